@@ -1,31 +1,59 @@
 package jhelp.android.api.engine;
 
-import jhelp.android.api.engine.util.ArrayInt;
-import android.util.Pair;
-import android.util.SparseArray;
-
 /**
  * 3D animation.<br>
- * Animation is composed of frames, that can be steps to reach at precise time
+ * Animation is composed of frames, that can be steps to reach at precise time.<br>
+ * Frames are stored channel by channel in primitive arrays, and playing remembers the current
+ * interval, so animate a frame allocates nothing and only search next frames when time goes on.<br>
+ * Between two frames, each channel is linear or follows an easing curve (See {@link #setEasing(int, Easing)})
  * 
  * @author JHelp
  */
 public class Animation
 {
+   /** Channel : X angle */
+   public static final int  CHANNEL_ANGLE_X    = 3;
+   /** Channel : Y angle */
+   public static final int  CHANNEL_ANGLE_Y    = 4;
+   /** Channel : Z angle */
+   public static final int  CHANNEL_ANGLE_Z    = 5;
+   /** Channel : X scale */
+   public static final int  CHANNEL_SCALE_X    = 6;
+   /** Channel : Y scale */
+   public static final int  CHANNEL_SCALE_Y    = 7;
+   /** Channel : Z scale */
+   public static final int  CHANNEL_SCALE_Z    = 8;
+   /** Channel : X */
+   public static final int  CHANNEL_X          = 0;
+   /** Channel : Y */
+   public static final int  CHANNEL_Y          = 1;
+   /** Channel : Z */
+   public static final int  CHANNEL_Z          = 2;
+   /** Number of channels */
+   private static final int NUMBER_OF_CHANNELS = 9;
+
+   /** Current interval : index of the key frame just before (or at) current frame */
+   private int              cursor;
+   /** Current interval : 1 / interval length in frames */
+   private float            cursorInverse;
+   /** Easing by channel, {@code null} for linear */
+   private final Easing[]   easings;
    /** Animation FPS */
-   private final int                     fps;
-   /** Frames to play */
-   private final SparseArray<Position3D> frames;
-   /** Frames indexes */
-   private final ArrayInt                indexes;
+   private final int        fps;
    /** Indicates if animation is playing */
-   private boolean                       isPlaying;
+   private boolean          isPlaying;
+   /** Key frames indexes, sorted. First one is the start position at frame 0 */
+   private int[]            keyFrames;
+   /** Key frames values by channel, same order as key frames indexes */
+   private final float[][]  keyValues;
    /** Animated node */
-   private final Node3D                  node;
-   /** Start position */
-   private Position3D                    start;
+   private final Node3D     node;
+   /** Number of key frames, start position included */
+   private int              numberOfKeys;
    /** Start time */
-   private long                          time;
+   private long             time;
+   /** Indicates if animation is in playing animations of {@link AnimationSystem}, only used by render thread */
+   boolean                  inSystem;
 
    /**
     * Create a new instance of Animation at 25 FPS
@@ -55,110 +83,163 @@ public class Animation
 
       this.node = node;
       this.isPlaying = false;
-      this.frames = new SparseArray<Position3D>();
-      this.indexes = new ArrayInt();
+      this.keyFrames = new int[16];
+      this.keyValues = new float[Animation.NUMBER_OF_CHANNELS][16];
+      this.easings = new Easing[Animation.NUMBER_OF_CHANNELS];
+      this.numberOfKeys = 1;
       this.fps = Math.min(100, Math.max(1, fps));
    }
 
+   /**
+    * Interpolate a channel in current interval
+    * 
+    * @param channel
+    *           Channel
+    * @param factor
+    *           Progression in interval in [0, 1]
+    * @return Interpolated value
+    */
+   private float interpolate(final int channel, final float factor)
+   {
+      final float[] values = this.keyValues[channel];
+      final float first = values[this.cursor];
+      final Easing easing = this.easings[channel];
+
+      if(easing == null)
+      {
+         return first + ((values[this.cursor + 1] - first) * factor);
+      }
+
+      return first + ((values[this.cursor + 1] - first) * easing.ease(factor));
+   }
+
+   /**
+    * Put a position in key frames values
+    * 
+    * @param key
+    *           Key frame index
+    * @param position
+    *           Position
+    */
+   private void setKey(final int key, final Position3D position)
+   {
+      this.keyValues[Animation.CHANNEL_X][key] = position.x;
+      this.keyValues[Animation.CHANNEL_Y][key] = position.y;
+      this.keyValues[Animation.CHANNEL_Z][key] = position.z;
+      this.keyValues[Animation.CHANNEL_ANGLE_X][key] = position.angleX;
+      this.keyValues[Animation.CHANNEL_ANGLE_Y][key] = position.angleY;
+      this.keyValues[Animation.CHANNEL_ANGLE_Z][key] = position.angleZ;
+      this.keyValues[Animation.CHANNEL_SCALE_X][key] = position.scaleX;
+      this.keyValues[Animation.CHANNEL_SCALE_Y][key] = position.scaleY;
+      this.keyValues[Animation.CHANNEL_SCALE_Z][key] = position.scaleZ;
+   }
+
+   /**
+    * Put key frame values in node position
+    * 
+    * @param key
+    *           Key frame index
+    */
+   private void showKey(final int key)
+   {
+      final Position3D position = this.node.position;
+      position.x = this.keyValues[Animation.CHANNEL_X][key];
+      position.y = this.keyValues[Animation.CHANNEL_Y][key];
+      position.z = this.keyValues[Animation.CHANNEL_Z][key];
+      position.angleX = this.keyValues[Animation.CHANNEL_ANGLE_X][key];
+      position.angleY = this.keyValues[Animation.CHANNEL_ANGLE_Y][key];
+      position.angleZ = this.keyValues[Animation.CHANNEL_ANGLE_Z][key];
+      position.scaleX = this.keyValues[Animation.CHANNEL_SCALE_X][key];
+      position.scaleY = this.keyValues[Animation.CHANNEL_SCALE_Y][key];
+      position.scaleZ = this.keyValues[Animation.CHANNEL_SCALE_Z][key];
+   }
+
    /**
     * Animate the animation
     * 
     * @return {@code true} if animation have to be continue. {@code false} if animation is finish
     */
    boolean animate()
+   {
+      return this.animate(System.currentTimeMillis());
+   }
+
+   /**
+    * Animate the animation at given time.<br>
+    * Only the animated node position is modified, so animations of different nodes can be animated
+    * in parallel
+    * 
+    * @param now
+    *           Current time in milliseconds
+    * @return {@code true} if animation have to be continue. {@code false} if animation is finish
+    */
+   boolean animate(final long now)
    {
       if(this.isPlaying == false)
       {
          return false;
       }
 
-      final long relative = (System.currentTimeMillis() - this.time);
-      int frame = (int) ((relative * this.fps) / 1000);
-      final int size = this.indexes.getSize();
-      Position3D p1 = this.start;
-      Position3D p2 = this.start;
-
-      if(size == 0)
+      if(this.numberOfKeys == 1)
       {
          this.isPlaying = false;
 
          return false;
       }
 
-      final Pair<Integer, Integer> interval = this.indexes.getIntervalSupposeSorted(frame);
+      final long relative = Math.max(0, now - this.time);
+      final int frame = (int) ((relative * this.fps) / 1000);
+      final int last = this.numberOfKeys - 1;
 
-      if(interval.second == -1)
+      if(frame < this.keyFrames[this.cursor])
       {
-         this.isPlaying = true;
-
-         p1 = this.start;
-         p2 = this.frames.get(this.indexes.getInteger(0));
-
-         final int dist = this.indexes.getInteger(0);
-         final int inv = dist - frame;
-
-         this.node.position.x = ((p1.x * inv) + (p2.x * frame)) / dist;
-         this.node.position.y = ((p1.y * inv) + (p2.y * frame)) / dist;
-         this.node.position.z = ((p1.z * inv) + (p2.z * frame)) / dist;
-
-         this.node.position.angleX = ((p1.angleX * inv) + (p2.angleX * frame)) / dist;
-         this.node.position.angleY = ((p1.angleY * inv) + (p2.angleY * frame)) / dist;
-         this.node.position.angleZ = ((p1.angleZ * inv) + (p2.angleZ * frame)) / dist;
-
-         this.node.position.scaleX = ((p1.scaleX * inv) + (p2.scaleX * frame)) / dist;
-         this.node.position.scaleY = ((p1.scaleY * inv) + (p2.scaleY * frame)) / dist;
-         this.node.position.scaleZ = ((p1.scaleZ * inv) + (p2.scaleZ * frame)) / dist;
-
-         return true;
+         // Time goes back (Clock change), search from start
+         this.cursor = 0;
+         this.cursorInverse = 0;
       }
 
-      if(interval.first == size)
+      if((this.cursor < last) && (frame >= this.keyFrames[this.cursor + 1]))
       {
-         this.isPlaying = false;
+         do
+         {
+            this.cursor++;
+         }
+         while((this.cursor < last) && (frame >= this.keyFrames[this.cursor + 1]));
 
-         this.node.position.copy(this.frames.get(this.indexes.getInteger(size - 1)));
-
-         return false;
+         this.cursorInverse = 0;
       }
 
-      if(interval.first == interval.second)
+      if(this.cursor == last)
       {
-         this.isPlaying = true;
-
-         this.node.position.copy(this.frames.get(this.indexes.getInteger(interval.first)));
+         this.showKey(last);
+         this.isPlaying = frame == this.keyFrames[last];
 
-         return true;
+         return this.isPlaying;
       }
 
-      this.isPlaying = true;
-
-      final int f = this.indexes.getInteger(interval.first);
-      final int s = this.indexes.getInteger(interval.second);
-
-      p1 = this.frames.get(f);
-      p2 = this.frames.get(s);
-
-      frame -= f;
-      final int dist = s - f;
-      final int inv = dist - frame;
-
-      this.node.position.x = ((p1.x * inv) + (p2.x * frame)) / dist;
-      this.node.position.y = ((p1.y * inv) + (p2.y * frame)) / dist;
-      this.node.position.z = ((p1.z * inv) + (p2.z * frame)) / dist;
-
-      this.node.position.angleX = ((p1.angleX * inv) + (p2.angleX * frame)) / dist;
-      this.node.position.angleY = ((p1.angleY * inv) + (p2.angleY * frame)) / dist;
-      this.node.position.angleZ = ((p1.angleZ * inv) + (p2.angleZ * frame)) / dist;
+      if(this.cursorInverse == 0)
+      {
+         // Interval changed. Key frames are sorted and frame is in [start, end[, so length >0
+         this.cursorInverse = 1f / (this.keyFrames[this.cursor + 1] - this.keyFrames[this.cursor]);
+      }
 
-      this.node.position.scaleX = ((p1.scaleX * inv) + (p2.scaleX * frame)) / dist;
-      this.node.position.scaleY = ((p1.scaleY * inv) + (p2.scaleY * frame)) / dist;
-      this.node.position.scaleZ = ((p1.scaleZ * inv) + (p2.scaleZ * frame)) / dist;
+      final float factor = (frame - this.keyFrames[this.cursor]) * this.cursorInverse;
+      final Position3D position = this.node.position;
+      position.x = this.interpolate(Animation.CHANNEL_X, factor);
+      position.y = this.interpolate(Animation.CHANNEL_Y, factor);
+      position.z = this.interpolate(Animation.CHANNEL_Z, factor);
+      position.angleX = this.interpolate(Animation.CHANNEL_ANGLE_X, factor);
+      position.angleY = this.interpolate(Animation.CHANNEL_ANGLE_Y, factor);
+      position.angleZ = this.interpolate(Animation.CHANNEL_ANGLE_Z, factor);
+      position.scaleX = this.interpolate(Animation.CHANNEL_SCALE_X, factor);
+      position.scaleY = this.interpolate(Animation.CHANNEL_SCALE_Y, factor);
+      position.scaleZ = this.interpolate(Animation.CHANNEL_SCALE_Z, factor);
 
       return true;
    }
 
    /**
-    * Start the animation
+    * Start the animation. Called by render thread (See {@link AnimationSystem})
     */
    void start()
    {
@@ -169,11 +250,15 @@ public class Animation
 
       this.isPlaying = true;
       this.time = System.currentTimeMillis();
-      this.start = this.node.position.copy();
+      this.cursor = 0;
+      this.cursorInverse = 0;
+      this.setKey(0, this.node.position);
    }
 
    /**
-    * Add frame to animation
+    * Add frame to animation.<br>
+    * Position is copied, so changing it after has no effect on the animation. If a frame with same
+    * index exists, it is replaced
     * 
     * @param frame
     *           Frame
@@ -197,10 +282,47 @@ public class Animation
          throw new NullPointerException("position3d musn't be null");
       }
 
-      this.indexes.add(frame);
-      this.indexes.sortUniq();
+      // Key 0 is the start position, user frames are after
+      int key = this.numberOfKeys;
+
+      while((key > 1) && (this.keyFrames[key - 1] > frame))
+      {
+         key--;
+      }
+
+      if((key > 1) && (this.keyFrames[key - 1] == frame))
+      {
+         this.setKey(key - 1, position3d);
+
+         return;
+      }
+
+      if(this.numberOfKeys == this.keyFrames.length)
+      {
+         final int capacity = this.numberOfKeys << 1;
+         final int[] keyFrames = new int[capacity];
+         System.arraycopy(this.keyFrames, 0, keyFrames, 0, this.numberOfKeys);
+         this.keyFrames = keyFrames;
+
+         for(int channel = 0; channel < Animation.NUMBER_OF_CHANNELS; channel++)
+         {
+            final float[] values = new float[capacity];
+            System.arraycopy(this.keyValues[channel], 0, values, 0, this.numberOfKeys);
+            this.keyValues[channel] = values;
+         }
+      }
 
-      this.frames.put(frame, position3d);
+      final int moved = this.numberOfKeys - key;
+      System.arraycopy(this.keyFrames, key, this.keyFrames, key + 1, moved);
+
+      for(int channel = 0; channel < Animation.NUMBER_OF_CHANNELS; channel++)
+      {
+         System.arraycopy(this.keyValues[channel], key, this.keyValues[channel], key + 1, moved);
+      }
+
+      this.keyFrames[key] = frame;
+      this.setKey(key, position3d);
+      this.numberOfKeys++;
    }
 
    /**
@@ -213,6 +335,47 @@ public class Animation
       return this.isPlaying;
    }
 
+   /**
+    * Change easing of all channels.<br>
+    * Easing applies between each couple of consecutive frames
+    * 
+    * @param easing
+    *           Easing to use or {@code null} for linear
+    */
+   public void setEasing(final Easing easing)
+   {
+      for(int channel = 0; channel < Animation.NUMBER_OF_CHANNELS; channel++)
+      {
+         this.setEasing(channel, easing);
+      }
+   }
+
+   /**
+    * Change easing of one channel.<br>
+    * Easing applies between each couple of consecutive frames
+    * 
+    * @param channel
+    *           Channel : {@link #CHANNEL_X}, {@link #CHANNEL_Y}, {@link #CHANNEL_Z}, {@link #CHANNEL_ANGLE_X},
+    *           {@link #CHANNEL_ANGLE_Y}, {@link #CHANNEL_ANGLE_Z}, {@link #CHANNEL_SCALE_X}, {@link #CHANNEL_SCALE_Y}
+    *           or {@link #CHANNEL_SCALE_Z}
+    * @param easing
+    *           Easing to use or {@code null} for linear
+    */
+   public void setEasing(final int channel, final Easing easing)
+   {
+      if(this.isPlaying == true)
+      {
+         throw new IllegalStateException("Can't modify animation while playing");
+      }
+
+      if((channel < 0) || (channel >= Animation.NUMBER_OF_CHANNELS))
+      {
+         throw new IllegalArgumentException("channel MUST be in [0, " + Animation.NUMBER_OF_CHANNELS + "[ not " + channel);
+      }
+
+      this.easings[channel] = easing;
+   }
+
    public void stop()
    {
       this.isPlaying = false;
@@ -0,0 +1,371 @@
+package jhelp.android.api.engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import jhelp.android.api.engine.util.Debug;
+
+/**
+ * Playing animations of the scene.<br>
+ * Before each frame, all playing animations are animated at the same time. Animations are
+ * split in chunks of fixed size (See {@link #setChunkSize(int)}), chunks are animated in parallel by
+ * frame preparation jobs (See {@link JobSystem}) and the render thread, then render thread continues
+ * when all chunks are done. Chunks whose job is not started yet are taken back by the render thread,
+ * so the frame never waits a free worker. An
+ * animation only modifies the position of its node, so two playing animations must not animate the
+ * same node.<br>
+ * Finished animations are removed by moving the last one at their place, so play order is not
+ * kept.<br>
+ * Get it with {@link Scene3D#getAnimationSystem()}
+ *
+ * @author JHelp
+ */
+public final class AnimationSystem
+{
+    /**
+     * Chunk of animations to animate
+     *
+     * @author JHelp
+     */
+    class Chunk
+            implements Runnable
+    {
+        /**
+         * Index after the last animation of the chunk
+         */
+        int            end;
+        /**
+         * Job that animates the chunk, {@code null} if animated by render thread
+         */
+        Job            job;
+        /**
+         * Signal the chunk is done, {@code null} if animated by render thread
+         */
+        CountDownLatch latch;
+        /**
+         * Current time in milliseconds
+         */
+        long           now;
+        /**
+         * Index of the first animation of the chunk
+         */
+        int            start;
+
+        /**
+         * Create a new instance of Chunk
+         */
+        Chunk()
+        {
+        }
+
+        /**
+         * Animate the chunk <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @see java.lang.Runnable#run()
+         */
+        @Override
+        public void run()
+        {
+            try
+            {
+                AnimationSystem.this.animate(this.start, this.end, this.now);
+            }
+            catch (final Exception exception)
+            {
+                Debug.printException(exception, "Animation failed !");
+            }
+            finally
+            {
+                if (this.latch != null)
+                {
+                    this.latch.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * Default number of animations in a chunk
+     */
+    public static final int                        DEFAULT_CHUNK_SIZE = 256;
+    /**
+     * Playing animations, only used by render thread (And chunk jobs, in their chunk)
+     */
+    private Animation[]                            animations;
+    /**
+     * Number of animations in a chunk
+     */
+    private volatile int                           chunkSize;
+    /**
+     * Chunks, reused from frame to frame
+     */
+    private final ArrayList<Chunk>                 chunks;
+    /**
+     * Indicates if render thread have to stop all playing animations
+     */
+    private volatile boolean                       clear;
+    /**
+     * Duration of last animate in nanoseconds
+     */
+    private volatile long                          duration;
+    /**
+     * Indicates by animation index, if animation is finished
+     */
+    private boolean[]                              finished;
+    /**
+     * Number of playing animations
+     */
+    private volatile int                           numberOfAnimations;
+    /**
+     * Animations to play, added by any thread and taken by render thread at next frame
+     */
+    private final ConcurrentLinkedQueue<Animation> pending;
+
+    /**
+     * Create a new instance of AnimationSystem
+     */
+    AnimationSystem()
+    {
+        this.animations = new Animation[64];
+        this.finished = new boolean[64];
+        this.chunks = new ArrayList<Chunk>();
+        this.pending = new ConcurrentLinkedQueue<Animation>();
+        this.chunkSize = AnimationSystem.DEFAULT_CHUNK_SIZE;
+        this.clear = false;
+    }
+
+    /**
+     * Add an animation to playing ones
+     *
+     * @param animation Animation to add
+     */
+    private void add(final Animation animation)
+    {
+        final int count = this.numberOfAnimations;
+
+        if (count == this.animations.length)
+        {
+            final Animation[] animations = new Animation[count << 1];
+            System.arraycopy(this.animations, 0, animations, 0, count);
+            this.animations = animations;
+            this.finished = new boolean[count << 1];
+        }
+
+        this.animations[count] = animation;
+        this.numberOfAnimations = count + 1;
+    }
+
+    /**
+     * Animate a part of playing animations
+     *
+     * @param start Index of first animation
+     * @param end   Index after last animation
+     * @param now   Current time in milliseconds
+     */
+    void animate(final int start, final int end, final long now)
+    {
+        final Animation[] animations = this.animations;
+        final boolean[]   finished   = this.finished;
+
+        for (int index = start; index < end; index++)
+        {
+            finished[index] = animations[index].animate(now) == false;
+        }
+    }
+
+    /**
+     * Called by render thread before each frame : animate all playing animations
+     *
+     * @param now Current time in milliseconds
+     */
+    void animate(final long now)
+    {
+        if (this.clear == true)
+        {
+            this.clear = false;
+
+            for (int index = this.numberOfAnimations - 1; index >= 0; index--)
+            {
+                this.animations[index].inSystem = false;
+                this.animations[index] = null;
+            }
+
+            this.numberOfAnimations = 0;
+        }
+
+        Animation animation = this.pending.poll();
+
+        while (animation != null)
+        {
+            // Started here, so never while a chunk animates it
+            animation.start();
+
+            // Played again before it is removed : it is already animated
+            if (animation.inSystem == false)
+            {
+                animation.inSystem = true;
+                this.add(animation);
+            }
+
+            animation = this.pending.poll();
+        }
+
+        int count = this.numberOfAnimations;
+
+        if (count == 0)
+        {
+            this.duration = 0;
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        final int  chunkSize = this.chunkSize;
+
+        if (count <= chunkSize)
+        {
+            this.animate(0, count, now);
+        }
+        else
+        {
+            final int            numberOfChunks = (count + chunkSize - 1) / chunkSize;
+            final CountDownLatch latch          = new CountDownLatch(numberOfChunks - 1);
+            Chunk                chunk          = null;
+
+            while (this.chunks.size() < numberOfChunks)
+            {
+                this.chunks.add(new Chunk());
+            }
+
+            final JobSystem jobSystem = Scene3D.SCENE3D.getJobSystem();
+
+            for (int index = 0; index < numberOfChunks; index++)
+            {
+                chunk = this.chunks.get(index);
+                chunk.start = index * chunkSize;
+                chunk.end = Math.min(count, chunk.start + chunkSize);
+                chunk.now = now;
+                // Render thread animates the last chunk itself
+                chunk.latch = index < numberOfChunks - 1 ? latch : null;
+                chunk.job = null;
+
+                if (chunk.latch != null)
+                {
+                    chunk.job = jobSystem.submit(JobPriority.FRAME_PREPARATION, chunk);
+                }
+            }
+
+            chunk.run();
+
+            // Last submitted chunks are the less likely started
+            for (int index = numberOfChunks - 2; index >= 0; index--)
+            {
+                chunk = this.chunks.get(index);
+
+                if (chunk.job.cancel() == true)
+                {
+                    chunk.run();
+                }
+
+                chunk.job = null;
+            }
+
+            try
+            {
+                latch.await();
+            }
+            catch (final InterruptedException exception)
+            {
+                Debug.printException(exception, "Interrupted while animating !");
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Descending, so the animation moved at a finished place is already checked
+        for (int index = count - 1; index >= 0; index--)
+        {
+            if (this.finished[index] == true)
+            {
+                this.animations[index].inSystem = false;
+                count--;
+                this.animations[index] = this.animations[count];
+                this.finished[index] = false;
+                this.animations[count] = null;
+            }
+        }
+
+        this.numberOfAnimations = count;
+        this.duration = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Stop all playing animations, at next frame
+     */
+    void clear()
+    {
+        this.pending.clear();
+        this.clear = true;
+    }
+
+    /**
+     * Queue an animation to start and play at next frame.<br>
+     * An animation played again while still playing, or not removed yet, is animated once
+     *
+     * @param animation Animation to play
+     */
+    void play(final Animation animation)
+    {
+        this.pending.offer(animation);
+    }
+
+    /**
+     * Number of animations in a chunk
+     *
+     * @return Number of animations in a chunk
+     */
+    public int getChunkSize()
+    {
+        return this.chunkSize;
+    }
+
+    /**
+     * Duration of last animate of all playing animations
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * Number of playing animations, at last frame
+     *
+     * @return Number of playing animations
+     */
+    public int getNumberOfAnimations()
+    {
+        return this.numberOfAnimations;
+    }
+
+    /**
+     * Change the number of animations in a chunk.<br>
+     * Little chunks share better the work between threads, big chunks cost less synchronization. If
+     * there are less playing animations than the chunk size, they are animated by the render thread
+     * alone
+     *
+     * @param chunkSize Number of animations in a chunk
+     */
+    public void setChunkSize(final int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize MUST be >0 not " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+}
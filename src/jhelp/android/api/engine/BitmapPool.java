@@ -0,0 +1,298 @@
+package jhelp.android.api.engine;
+
+import android.graphics.Bitmap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Pool of bitmaps and pixels buffers used to decode textures.<br>
+ * Bitmaps and direct buffers no more used by textures are kept, then given again to next decoded
+ * textures of same size : bitmaps are decoded in place (Android inBitmap), pixels are copied in a
+ * buffer already allocated. So loading levels one after other not allocate again tens of mega
+ * bytes each time.<br>
+ * Pool size is limited (See {@link #setMaximumSize(long)}), oldest elements are removed first.
+ * Allocation counts are available to check the pool efficiency.<br>
+ * Get it with {@link Scene3D#getBitmapPool()}. Thread safe
+ *
+ * @author JHelp
+ */
+public final class BitmapPool
+{
+    /**
+     * Elements in the pool : bitmaps and buffers, oldest first
+     */
+    private final ArrayList<Object> elements;
+    /**
+     * Maximum pool size in bytes
+     */
+    private long                    maximumSize;
+    /**
+     * Number of bitmaps allocated
+     */
+    private int                     numberOfBitmapAllocations;
+    /**
+     * Number of bitmaps taken from the pool
+     */
+    private int                     numberOfBitmapReuses;
+    /**
+     * Number of buffers allocated
+     */
+    private int                     numberOfBufferAllocations;
+    /**
+     * Number of buffers taken from the pool
+     */
+    private int                     numberOfBufferReuses;
+    /**
+     * Current pool size in bytes
+     */
+    private long                    size;
+
+    /**
+     * Create a new instance of BitmapPool
+     *
+     * @param maximumSize Maximum pool size in bytes
+     */
+    BitmapPool(final long maximumSize)
+    {
+        this.elements = new ArrayList<Object>();
+        this.setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Size of an element in bytes
+     *
+     * @param element Bitmap or buffer
+     * @return Size in bytes
+     */
+    private long sizeOf(final Object element)
+    {
+        if (element instanceof Bitmap)
+        {
+            final Bitmap bitmap = (Bitmap) element;
+            return (long) bitmap.getRowBytes() * bitmap.getHeight();
+        }
+
+        return ((ByteBuffer) element).capacity();
+    }
+
+    /**
+     * Remove oldest elements while pool is too big
+     */
+    private void trim()
+    {
+        Object element;
+
+        while ((this.size > this.maximumSize) && (this.elements.isEmpty() == false))
+        {
+            element = this.elements.remove(0);
+            this.size -= this.sizeOf(element);
+
+            if (element instanceof Bitmap)
+            {
+                ((Bitmap) element).recycle();
+            }
+        }
+    }
+
+    /**
+     * Obtain a mutable ARGB 8888 bitmap, from the pool if one of same size is inside.<br>
+     * Content of a bitmap from the pool is not cleared
+     *
+     * @param width  Bitmap width
+     * @param height Bitmap height
+     * @return Bitmap
+     */
+    synchronized Bitmap obtainBitmap(final int width, final int height)
+    {
+        Object element;
+        Bitmap bitmap;
+
+        for (int index = this.elements.size() - 1; index >= 0; index--)
+        {
+            element = this.elements.get(index);
+
+            if (element instanceof Bitmap)
+            {
+                bitmap = (Bitmap) element;
+
+                if ((bitmap.getWidth() == width) && (bitmap.getHeight() == height))
+                {
+                    this.elements.remove(index);
+                    this.size -= this.sizeOf(bitmap);
+                    this.numberOfBitmapReuses++;
+                    return bitmap;
+                }
+            }
+        }
+
+        this.numberOfBitmapAllocations++;
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Obtain a direct buffer, from the pool if one of same capacity is inside.<br>
+     * Content of a buffer from the pool is not cleared
+     *
+     * @param capacity Buffer capacity in bytes
+     * @return Direct buffer, position 0, limit its capacity
+     */
+    synchronized ByteBuffer obtainBuffer(final int capacity)
+    {
+        Object     element;
+        ByteBuffer buffer;
+
+        for (int index = this.elements.size() - 1; index >= 0; index--)
+        {
+            element = this.elements.get(index);
+
+            if (element instanceof ByteBuffer)
+            {
+                buffer = (ByteBuffer) element;
+
+                if (buffer.capacity() == capacity)
+                {
+                    this.elements.remove(index);
+                    this.size -= capacity;
+                    this.numberOfBufferReuses++;
+                    buffer.clear();
+                    return buffer;
+                }
+            }
+        }
+
+        this.numberOfBufferAllocations++;
+        return UtilBuffer.createByteBuffer(capacity);
+    }
+
+    /**
+     * Give back a bitmap no more used.<br>
+     * Bitmaps that can't be decoded in place (Not mutable or not ARGB 8888) are recycled
+     *
+     * @param bitmap Bitmap no more used. Must not be used after
+     */
+    synchronized void release(final Bitmap bitmap)
+    {
+        if ((bitmap == null) || (bitmap.isRecycled() == true))
+        {
+            return;
+        }
+
+        if ((bitmap.isMutable() == false) || (bitmap.getConfig() != Bitmap.Config.ARGB_8888))
+        {
+            bitmap.recycle();
+            return;
+        }
+
+        this.elements.add(bitmap);
+        this.size += this.sizeOf(bitmap);
+        this.trim();
+    }
+
+    /**
+     * Give back a buffer no more used.<br>
+     * Only direct and writable buffers are kept
+     *
+     * @param buffer Buffer no more used. Must not be used after
+     */
+    synchronized void release(final ByteBuffer buffer)
+    {
+        if ((buffer == null) || (buffer.isDirect() == false) || (buffer.isReadOnly() == true))
+        {
+            return;
+        }
+
+        this.elements.add(buffer);
+        this.size += buffer.capacity();
+        this.trim();
+    }
+
+    /**
+     * Remove all elements of the pool
+     */
+    public synchronized void clear()
+    {
+        final long maximumSize = this.maximumSize;
+        this.maximumSize = 0;
+        this.trim();
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Maximum pool size
+     *
+     * @return Maximum pool size in bytes
+     */
+    public synchronized long getMaximumSize()
+    {
+        return this.maximumSize;
+    }
+
+    /**
+     * Number of bitmaps allocated, because no bitmap of same size was in the pool
+     *
+     * @return Number of bitmaps allocated
+     */
+    public synchronized int getNumberOfBitmapAllocations()
+    {
+        return this.numberOfBitmapAllocations;
+    }
+
+    /**
+     * Number of bitmaps taken from the pool
+     *
+     * @return Number of bitmaps taken from the pool
+     */
+    public synchronized int getNumberOfBitmapReuses()
+    {
+        return this.numberOfBitmapReuses;
+    }
+
+    /**
+     * Number of buffers allocated, because no buffer of same size was in the pool
+     *
+     * @return Number of buffers allocated
+     */
+    public synchronized int getNumberOfBufferAllocations()
+    {
+        return this.numberOfBufferAllocations;
+    }
+
+    /**
+     * Number of buffers taken from the pool
+     *
+     * @return Number of buffers taken from the pool
+     */
+    public synchronized int getNumberOfBufferReuses()
+    {
+        return this.numberOfBufferReuses;
+    }
+
+    /**
+     * Current pool size
+     *
+     * @return Current pool size in bytes
+     */
+    public synchronized long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Change maximum pool size. Oldest elements are removed if pool is too big
+     *
+     * @param maximumSize Maximum pool size in bytes, 0 for not keep anything
+     */
+    public synchronized void setMaximumSize(final long maximumSize)
+    {
+        if (maximumSize < 0)
+        {
+            throw new IllegalArgumentException("maximumSize MUST be >=0 not " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+        this.trim();
+    }
+}
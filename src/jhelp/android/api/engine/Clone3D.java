@@ -3,7 +3,9 @@ package jhelp.android.api.engine;
 import javax.microedition.khronos.opengles.GL10;
 
 /**
- * Clone of 3D object
+ * Clone of 3D object.<br>
+ * Clone shares the cloned object mesh, only its position and material are its own. Clones of a same
+ * object are draw together, the mesh is bound once for all of them
  * 
  * @author JHelp
  */
@@ -29,6 +31,54 @@ public class Clone3D
 		}
 
 		this.clonedObject = clonedObject;
+		this.clonedObject.addClone();
+	}
+
+	/**
+	 * Add the cloned object mesh draw, with clone material, to the render queue <br>
+	 * <br>
+	 * <b>Parent documentation:</b><br>
+	 * {@inheritDoc}
+	 * 
+	 * @param renderQueue
+	 *           Render queue to fill
+	 * @param world
+	 *           Node world matrix
+	 * @param sphere
+	 *           Geometry bounding sphere
+	 * @see jhelp.android.api.engine.Node3D#enqueue(RenderQueue, float[], float[])
+	 */
+	@Override
+	void enqueue(final RenderQueue renderQueue, final float[] world, final float[] sphere)
+	{
+		this.clonedObject.enqueueMesh(renderQueue, world, this.material, sphere);
+	}
+
+	/**
+	 * Cloned object
+	 * 
+	 * @return Cloned object
+	 */
+	Object3D getClonedObject()
+	{
+		return this.clonedObject;
+	}
+
+	/**
+	 * Bounding sphere of the cloned object <br>
+	 * <br>
+	 * <b>Parent documentation:</b><br>
+	 * {@inheritDoc}
+	 * 
+	 * @param sphere
+	 *           Array where write sphere center X, Y, Z and radius
+	 * @return Bounding state
+	 * @see jhelp.android.api.engine.Node3D#geometryBoundingSphere(float[])
+	 */
+	@Override
+	protected int geometryBoundingSphere(final float[] sphere)
+	{
+		return this.clonedObject.geometryBoundingSphere(sphere);
 	}
 
 	/**
@@ -39,15 +89,11 @@ public class Clone3D
 	 * 
 	 * @param gl
 	 *           Open GL link
-	 * @see jhelp.engine.Node3D#renderSpecific(GL10)
+	 * @see jhelp.android.api.engine.Node3D#renderSpecific(GL10)
 	 */
 	@Override
 	protected void renderSpecific(final GL10 gl)
 	{
-		final Material material = this.clonedObject.material;
-
-		this.clonedObject.material = this.material;
-		this.clonedObject.renderSpecific(gl);
-		this.clonedObject.material = material;
+		this.clonedObject.renderMesh(gl, this.material);
 	}
 }
\ No newline at end of file
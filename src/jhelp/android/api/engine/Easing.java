@@ -0,0 +1,150 @@
+package jhelp.android.api.engine;
+
+import jhelp.android.api.UtilMath;
+
+/**
+ * Easing curve for animations (See {@link Animation#setEasing(Easing)}).<br>
+ * Curve is sampled once in a table, then eased values are linear interpolation between two
+ * samples, so easing costs no transcendental function call while animating. More samples (See
+ * {@link #create(Curve, int)}) are closer to the curve but take more memory.<br>
+ * Curves are f : [0, 1] -> [0, 1], with f(0)=0 and f(1)=1
+ *
+ * @author JHelp
+ */
+public final class Easing
+{
+    /**
+     * Curve to sample
+     *
+     * @author JHelp
+     */
+    public static interface Curve
+    {
+        /**
+         * Compute the curve
+         *
+         * @param t Value in [0, 1]
+         * @return Curve value
+         */
+        public double compute(double t);
+    }
+
+    /**
+     * Default number of samples
+     */
+    public static final int    DEFAULT_RESOLUTION = 256;
+    /**
+     * Exponential easing (See {@link UtilMath#interpolationExponential(double)})
+     */
+    public static final Easing EXPONENTIAL        = Easing.create(new Curve()
+    {
+        public double compute(final double t)
+        {
+            return UtilMath.interpolationExponential(t);
+        }
+    }, Easing.DEFAULT_RESOLUTION);
+    /**
+     * Logarithm easing (See {@link UtilMath#interpolationLogarithm(double)})
+     */
+    public static final Easing LOGARITHM          = Easing.create(new Curve()
+    {
+        public double compute(final double t)
+        {
+            return UtilMath.interpolationLogarithm(t);
+        }
+    }, Easing.DEFAULT_RESOLUTION);
+    /**
+     * Sinus easing (See {@link UtilMath#interpolationSinus(double)})
+     */
+    public static final Easing SINUS              = Easing.create(new Curve()
+    {
+        public double compute(final double t)
+        {
+            return UtilMath.interpolationSinus(t);
+        }
+    }, Easing.DEFAULT_RESOLUTION);
+
+    /**
+     * Sample a curve
+     *
+     * @param curve      Curve to sample
+     * @param resolution Number of intervals between samples
+     * @return Created easing
+     */
+    public static Easing create(final Curve curve, final int resolution)
+    {
+        if (curve == null)
+        {
+            throw new NullPointerException("curve musn't be null");
+        }
+
+        if (resolution < 1)
+        {
+            throw new IllegalArgumentException("resolution MUST be >0 not " + resolution);
+        }
+
+        final float[] samples = new float[resolution + 1];
+
+        for (int index = 0; index <= resolution; index++)
+        {
+            samples[index] = (float) curve.compute((double) index / resolution);
+        }
+
+        return new Easing(samples);
+    }
+
+    /**
+     * Number of intervals between samples
+     */
+    private final int     resolution;
+    /**
+     * Curve samples, for t = 0, 1/resolution, 2/resolution, ..., 1
+     */
+    private final float[] samples;
+
+    /**
+     * Create a new instance of Easing
+     *
+     * @param samples Curve samples
+     */
+    private Easing(final float[] samples)
+    {
+        this.samples = samples;
+        this.resolution = samples.length - 1;
+    }
+
+    /**
+     * Ease a value
+     *
+     * @param t Value in [0, 1], clamped if outside
+     * @return Eased value
+     */
+    public float ease(final float t)
+    {
+        if (t <= 0)
+        {
+            return this.samples[0];
+        }
+
+        if (t >= 1)
+        {
+            return this.samples[this.resolution];
+        }
+
+        final float position = t * this.resolution;
+        final int   index    = (int) position;
+        final float first    = this.samples[index];
+
+        return first + ((this.samples[index + 1] - first) * (position - index));
+    }
+
+    /**
+     * Number of intervals between samples
+     *
+     * @return Number of intervals between samples
+     */
+    public int getResolution()
+    {
+        return this.resolution;
+    }
+}
@@ -1,7 +1,5 @@
 package jhelp.android.api.engine;
 
-import java.util.concurrent.TimeUnit;
-
 import jhelp.android.api.R;
 import jhelp.android.api.engine.geom.Plane;
 import jhelp.android.api.engine.util.Utilities;
@@ -30,7 +28,7 @@ public class EngineActivity
 
         this.setContentView(surfaceView);
 
-        Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this, 1024, TimeUnit.MILLISECONDS);
+        Scene3D.SCENE3D.getJobSystem().schedule(JobPriority.ASSET_LOADING, this, 1024);
 
     }
 
@@ -0,0 +1,510 @@
+package jhelp.android.api.engine;
+
+import jhelp.android.api.engine.util.Debug;
+
+/**
+ * Decides when the scene is render.<br>
+ * A frame is requested only when the scene changed (See {@link Scene3D#requestRender()}) or
+ * animations are playing. While frames follow each other, they are paced at the target frame
+ * rate (See {@link #setTargetFramesPerSecond(int)}) : each frame is planned one interval after the
+ * previous planned one, not after the time it really happens, so pacing not drift. If frames are
+ * late of more than one interval, late frames are skipped instead of requested in burst.<br>
+ * Changes made directly on nodes positions don't request a frame, so when nothing happen, a frame
+ * is still requested from time to time (See {@link #setIdleInterval(long)}).<br>
+ * Frame time statistics are available. Time comes from a {@link Clock}, so pacing can be checked
+ * with a fake clock.<br>
+ * Get it with {@link Scene3D#getFrameScheduler()}
+ *
+ * @author JHelp
+ */
+public final class FrameScheduler
+{
+    /**
+     * Time source
+     *
+     * @author JHelp
+     */
+    public static interface Clock
+    {
+        /**
+         * Current time
+         *
+         * @return Current time in nanoseconds
+         */
+        public long nanoTime();
+    }
+
+    /**
+     * Request frames while scheduler is started
+     *
+     * @author JHelp
+     */
+    class Driver
+            implements Runnable
+    {
+        /**
+         * Create a new instance of Driver
+         */
+        Driver()
+        {
+        }
+
+        /**
+         * Wait next frames and request them <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @see java.lang.Runnable#run()
+         */
+        public void run()
+        {
+            FrameScheduler.this.drive();
+        }
+    }
+
+    /**
+     * Weight of a new frame in averages
+     */
+    private static final double AVERAGE_WEIGHT        = 1d / 16d;
+    /**
+     * Default target frame rate
+     */
+    public static final int     DEFAULT_FPS           = 60;
+    /**
+     * Default interval between two frames when nothing happen, in milliseconds
+     */
+    public static final long    DEFAULT_IDLE_INTERVAL = 250;
+    /**
+     * Clock of the system
+     */
+    public static final Clock   SYSTEM_CLOCK          = new Clock()
+    {
+        public long nanoTime()
+        {
+            return System.nanoTime();
+        }
+    };
+    /**
+     * Indicates if animations are playing at last frame
+     */
+    private boolean             active;
+    /**
+     * Average time between two frames starts, in nanoseconds
+     */
+    private double              averageFrameInterval;
+    /**
+     * Average frame render duration, in nanoseconds
+     */
+    private double              averageFrameTime;
+    /**
+     * Time source
+     */
+    private final Clock         clock;
+    /**
+     * Indicates if a frame is requested by a change
+     */
+    private boolean             dirty;
+    /**
+     * Thread that requests frames, {@code null} if not started
+     */
+    private Thread              driver;
+    /**
+     * Interval between two frames at target frame rate, in nanoseconds
+     */
+    private long                frameInterval;
+    /**
+     * Time of current frame start, in nanoseconds
+     */
+    private long                frameStart;
+    /**
+     * Interval between two frames when nothing happen, in nanoseconds. 0 for never
+     */
+    private long                idleInterval;
+    /**
+     * Time of last frame request, in nanoseconds
+     */
+    private long                lastRequest;
+    /**
+     * Maximum frame render duration since last statistics reset, in nanoseconds
+     */
+    private long                maximumFrameTime;
+    /**
+     * Planned time of next frame when frames follow each other, in nanoseconds
+     */
+    private long                nextFrameTime;
+    /**
+     * Number of frames render since last statistics reset
+     */
+    private long                numberOfFrames;
+    /**
+     * Number of frames skipped because late, since last statistics reset
+     */
+    private long                numberOfSkippedFrames;
+    /**
+     * Indicates if last requested frame was paced (Previous frame was requested just before)
+     */
+    private boolean             paced;
+    /**
+     * Action that request a frame render, {@code null} if not started
+     */
+    private Runnable            requestRender;
+
+    /**
+     * Create a new instance of FrameScheduler
+     *
+     * @param clock Time source
+     */
+    FrameScheduler(final Clock clock)
+    {
+        if (clock == null)
+        {
+            throw new NullPointerException("clock musn't be null");
+        }
+
+        this.clock = clock;
+        this.frameInterval = 1000000000L / FrameScheduler.DEFAULT_FPS;
+        this.idleInterval = FrameScheduler.DEFAULT_IDLE_INTERVAL * 1000000L;
+        this.dirty = true;
+        this.paced = false;
+    }
+
+    /**
+     * Request frames while started
+     */
+    void drive()
+    {
+        long     delay;
+        Runnable requestRender;
+
+        synchronized (this)
+        {
+            while (this.driver == Thread.currentThread())
+            {
+                delay = this.nextFrame(this.clock.nanoTime());
+
+                if (delay == 0)
+                {
+                    requestRender = this.requestRender;
+
+                    try
+                    {
+                        requestRender.run();
+                    }
+                    catch (final Exception exception)
+                    {
+                        Debug.printException(exception, "Request render failed !");
+                    }
+
+                    continue;
+                }
+
+                try
+                {
+                    if (delay == Long.MAX_VALUE)
+                    {
+                        this.wait();
+                    }
+                    else
+                    {
+                        this.wait(delay / 1000000L, (int) (delay % 1000000L));
+                    }
+                }
+                catch (final InterruptedException exception)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by render thread when a frame render ends
+     *
+     * @param active Indicates if animations are playing, so next frame is need
+     */
+    void frameEnded(final boolean active)
+    {
+        final long now = this.clock.nanoTime();
+
+        synchronized (this)
+        {
+            final long duration = now - this.frameStart;
+
+            if (this.numberOfFrames <= 1)
+            {
+                this.averageFrameTime = duration;
+            }
+            else
+            {
+                this.averageFrameTime += (duration - this.averageFrameTime) * FrameScheduler.AVERAGE_WEIGHT;
+            }
+
+            this.maximumFrameTime = Math.max(this.maximumFrameTime, duration);
+            this.active = active;
+
+            if (active == true)
+            {
+                this.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Called by render thread when a frame render starts
+     */
+    void frameStarted()
+    {
+        final long now = this.clock.nanoTime();
+
+        synchronized (this)
+        {
+            if (this.numberOfFrames == 1)
+            {
+                this.averageFrameInterval = now - this.frameStart;
+            }
+            else if (this.numberOfFrames > 1)
+            {
+                this.averageFrameInterval += ((now - this.frameStart) - this.averageFrameInterval)
+                        * FrameScheduler.AVERAGE_WEIGHT;
+            }
+
+            this.frameStart = now;
+            this.numberOfFrames++;
+        }
+    }
+
+    /**
+     * Compute when the next frame must be requested.<br>
+     * If it is now, the frame is considered as requested
+     *
+     * @param now Current time in nanoseconds
+     * @return 0 if frame must be requested now, time to wait in nanoseconds before ask again, or
+     * {@link Long#MAX_VALUE} for wait a change
+     */
+    synchronized long nextFrame(final long now)
+    {
+        if ((this.dirty == false) && (this.active == false))
+        {
+            this.paced = false;
+
+            if (this.idleInterval <= 0)
+            {
+                return Long.MAX_VALUE;
+            }
+
+            final long wake = this.lastRequest + this.idleInterval;
+
+            if (now < wake)
+            {
+                return wake - now;
+            }
+        }
+        else if ((this.paced == true) && (now < this.nextFrameTime))
+        {
+            return this.nextFrameTime - now;
+        }
+
+        if (this.paced == true)
+        {
+            // Planned from previous planned frame, so waits errors not accumulate
+            this.nextFrameTime += this.frameInterval;
+
+            if (this.nextFrameTime <= now)
+            {
+                this.numberOfSkippedFrames += ((now - this.nextFrameTime) / this.frameInterval) + 1;
+                this.nextFrameTime = now + this.frameInterval;
+            }
+        }
+        else
+        {
+            this.nextFrameTime = now + this.frameInterval;
+        }
+
+        this.paced = (this.dirty == true) || (this.active == true);
+        this.dirty = false;
+        this.lastRequest = now;
+        return 0;
+    }
+
+    /**
+     * Start to request frames
+     *
+     * @param requestRender Action that request a frame render
+     */
+    synchronized void start(final Runnable requestRender)
+    {
+        if (requestRender == null)
+        {
+            throw new NullPointerException("requestRender musn't be null");
+        }
+
+        this.requestRender = requestRender;
+
+        if (this.driver == null)
+        {
+            this.dirty = true;
+            this.paced = false;
+            this.driver = new Thread(new Driver(), "FrameScheduler");
+            this.driver.setDaemon(true);
+            this.driver.start();
+        }
+    }
+
+    /**
+     * Stop to request frames
+     */
+    void stop()
+    {
+        final Thread driver;
+
+        synchronized (this)
+        {
+            driver = this.driver;
+            this.driver = null;
+            this.notifyAll();
+        }
+
+        if (driver != null)
+        {
+            try
+            {
+                driver.join(1024);
+            }
+            catch (final InterruptedException exception)
+            {
+                Debug.printException(exception, "Interrupted while stopping frame scheduler !");
+            }
+        }
+    }
+
+    /**
+     * Average frame render duration
+     *
+     * @return Average frame render duration in nanoseconds
+     */
+    public synchronized long getAverageFrameTime()
+    {
+        return (long) this.averageFrameTime;
+    }
+
+    /**
+     * Average frame rate, computed from time between frames starts
+     *
+     * @return Average frame rate
+     */
+    public synchronized float getFramesPerSecond()
+    {
+        if (this.averageFrameInterval <= 0)
+        {
+            return 0;
+        }
+
+        return (float) (1e9 / this.averageFrameInterval);
+    }
+
+    /**
+     * Interval between two frames when nothing happen
+     *
+     * @return Interval in milliseconds, 0 for never
+     */
+    public synchronized long getIdleInterval()
+    {
+        return this.idleInterval / 1000000L;
+    }
+
+    /**
+     * Maximum frame render duration since last statistics reset
+     *
+     * @return Maximum frame render duration in nanoseconds
+     */
+    public synchronized long getMaximumFrameTime()
+    {
+        return this.maximumFrameTime;
+    }
+
+    /**
+     * Number of frames render since last statistics reset
+     *
+     * @return Number of frames
+     */
+    public synchronized long getNumberOfFrames()
+    {
+        return this.numberOfFrames;
+    }
+
+    /**
+     * Number of frames skipped because late, since last statistics reset
+     *
+     * @return Number of frames skipped
+     */
+    public synchronized long getNumberOfSkippedFrames()
+    {
+        return this.numberOfSkippedFrames;
+    }
+
+    /**
+     * Target frame rate
+     *
+     * @return Target frame rate
+     */
+    public synchronized int getTargetFramesPerSecond()
+    {
+        return (int) (1000000000L / this.frameInterval);
+    }
+
+    /**
+     * Request a frame, as soon as pacing allows it
+     */
+    public synchronized void requestFrame()
+    {
+        this.dirty = true;
+        this.notifyAll();
+    }
+
+    /**
+     * Reset statistics
+     */
+    public synchronized void resetStatistics()
+    {
+        this.numberOfFrames = 0;
+        this.numberOfSkippedFrames = 0;
+        this.maximumFrameTime = 0;
+        this.averageFrameTime = 0;
+        this.averageFrameInterval = 0;
+    }
+
+    /**
+     * Change interval between two frames when nothing happen.<br>
+     * Catch changes made directly on nodes positions. If all changes request a frame (See
+     * {@link Scene3D#requestRender()}), use 0 to not wake up when nothing happen
+     *
+     * @param idleInterval Interval in milliseconds, 0 for never
+     */
+    public synchronized void setIdleInterval(final long idleInterval)
+    {
+        if (idleInterval < 0)
+        {
+            throw new IllegalArgumentException("idleInterval MUST be >=0 not " + idleInterval);
+        }
+
+        this.idleInterval = idleInterval * 1000000L;
+        this.notifyAll();
+    }
+
+    /**
+     * Change target frame rate
+     *
+     * @param framesPerSecond Target frame rate
+     */
+    public synchronized void setTargetFramesPerSecond(final int framesPerSecond)
+    {
+        if (framesPerSecond < 1)
+        {
+            throw new IllegalArgumentException("framesPerSecond MUST be >0 not " + framesPerSecond);
+        }
+
+        this.frameInterval = 1000000000L / framesPerSecond;
+        this.notifyAll();
+    }
+}
@@ -0,0 +1,92 @@
+package jhelp.android.api.engine;
+
+import jhelp.android.api.engine.util.UtilMatrix;
+
+/**
+ * View frustum : the 6 planes (Left, right, bottom, top, near, far) that limit what the camera
+ * sees, in view space.<br>
+ * Planes are extracted from the projection matrix, so they change only when the projection
+ * changes
+ *
+ * @author JHelp
+ */
+final class Frustum
+{
+    /**
+     * Number of planes
+     */
+    private static final int NUMBER_OF_PLANES = 6;
+    /**
+     * Planes : A, B, C, D for each plane. Normals are unit and point inside the frustum
+     */
+    private final float[]    planes;
+    /**
+     * Temporary point used for transformation
+     */
+    private final float[]    point;
+
+    /**
+     * Create a new instance of Frustum
+     *
+     * @param projection Projection matrix
+     */
+    Frustum(final float[] projection)
+    {
+        this.planes = new float[Frustum.NUMBER_OF_PLANES << 2];
+        this.point = new float[3];
+
+        // Plane = last row +/- row (Gribb & Hartmann method)
+        for (int plane = 0; plane < Frustum.NUMBER_OF_PLANES; plane++)
+        {
+            final int   row  = plane >> 1;
+            final float sign = (plane & 1) == 0
+                               ? 1
+                               : -1;
+            final int   offset = plane << 2;
+            float       length = 0;
+
+            for (int column = 0; column < 4; column++)
+            {
+                this.planes[offset + column] = projection[(column << 2) + 3] + (sign * projection[(column << 2) + row]);
+
+                if (column < 3)
+                {
+                    length += this.planes[offset + column] * this.planes[offset + column];
+                }
+            }
+
+            length = (float) Math.sqrt(length);
+
+            for (int column = 0; column < 4; column++)
+            {
+                this.planes[offset + column] /= length;
+            }
+        }
+    }
+
+    /**
+     * Indicates if a sphere is, at least partially, inside the frustum
+     *
+     * @param view   Matrix that transforms the sphere in view space
+     * @param sphere Sphere : center X, Y, Z and radius
+     * @return {@code true} if sphere may be visible
+     */
+    boolean isVisible(final float[] view, final float[] sphere)
+    {
+        UtilMatrix.transform(view, sphere[0], sphere[1], sphere[2], this.point, 0);
+        final float radius = -sphere[3] * UtilMatrix.maximumScale(view);
+        final float x      = this.point[0];
+        final float y      = this.point[1];
+        final float z      = this.point[2];
+
+        for (int offset = this.planes.length - 4; offset >= 0; offset -= 4)
+        {
+            if (((this.planes[offset] * x) + (this.planes[offset + 1] * y) + (this.planes[offset + 2] * z) + this.planes[offset + 3]) < radius)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package jhelp.android.api.engine;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+import jhelp.android.api.engine.util.Debug;
+
+/**
+ * Open GL capabilities of the actual context.<br>
+ * Initialized each time the Open GL surface is created, see {@link #initialize(GL10)}. Written by
+ * render thread, read by any thread (Meshes are build outside render thread)
+ *
+ * @author JHelp
+ */
+final class GLCapabilities
+{
+    /**
+     * Unsigned int type for indexes (Not defined in Open GL ES 1.x, need extension
+     * GL_OES_element_index_uint)
+     */
+    static final int GL_UNSIGNED_INT = 0x1405;
+
+    /**
+     * Context generation, change each time a new Open GL context is created, so video memory
+     * objects created in previous context are known as lost
+     */
+    private static volatile int     contextGeneration           = 0;
+    /**
+     * Indicates if unsigned int indexes are supported
+     */
+    private static volatile boolean unsignedIntIndexSupported   = false;
+    /**
+     * Indicates if vertex buffer objects are supported
+     */
+    private static volatile boolean vertexBufferObjectSupported = false;
+
+    /**
+     * Actual context generation
+     *
+     * @return Actual context generation
+     */
+    static int getContextGeneration()
+    {
+        return GLCapabilities.contextGeneration;
+    }
+
+    /**
+     * Initialize capabilities for a new Open GL context
+     *
+     * @param gl Open GL link
+     */
+    static void initialize(final GL10 gl)
+    {
+        GLCapabilities.contextGeneration++;
+
+        final String version    = gl.glGetString(GL10.GL_VERSION);
+        final String extensions = gl.glGetString(GL10.GL_EXTENSIONS);
+
+        GLCapabilities.vertexBufferObjectSupported = (gl instanceof GL11)
+                && (((version != null) && (version.contains("1.0") == false))
+                || ((extensions != null) && (extensions.contains("vertex_buffer_object") == true)));
+
+        GLCapabilities.unsignedIntIndexSupported = (extensions != null)
+                && (extensions.contains("GL_OES_element_index_uint") == true);
+
+        Debug.printVerbose("Open GL : ", version, " VBO=", GLCapabilities.vertexBufferObjectSupported,
+                           " UINT=", GLCapabilities.unsignedIntIndexSupported);
+    }
+
+    /**
+     * Indicates if unsigned int indexes are supported with {@link #GL_UNSIGNED_INT}
+     *
+     * @return {@code true} if unsigned int indexes are supported
+     */
+    static boolean isUnsignedIntIndexSupported()
+    {
+        return GLCapabilities.unsignedIntIndexSupported;
+    }
+
+    /**
+     * Indicates if vertex buffer objects are supported
+     *
+     * @return {@code true} if vertex buffer objects are supported
+     */
+    static boolean isVertexBufferObjectSupported()
+    {
+        return GLCapabilities.vertexBufferObjectSupported;
+    }
+
+    /**
+     * To avoid instance
+     */
+    private GLCapabilities()
+    {
+    }
+}
@@ -0,0 +1,319 @@
+package jhelp.android.api.engine;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Open GL state tracker.<br>
+ * Remembers the last state given to Open GL and filters calls that would not change it.<br>
+ * Since code outside the tracker may change Open GL state, the tracker must be invalidated
+ * (See {@link #invalidate()}) after such code.<br>
+ * Only use it in render thread
+ *
+ * @author JHelp
+ */
+final class GLState
+{
+    /**
+     * Capability state : unknown
+     */
+    private static final int UNKNOWN  = -1;
+    /**
+     * Capability state : disabled
+     */
+    private static final int DISABLED = 0;
+    /**
+     * Capability state : enabled
+     */
+    private static final int ENABLED  = 1;
+    /**
+     * Unknown bound texture
+     */
+    private static final int NO_TEXTURE = Integer.MIN_VALUE;
+
+    /**
+     * Current color alpha
+     */
+    private float         alpha;
+    /**
+     * Current color blue
+     */
+    private float         blue;
+    /**
+     * Texture currently bound
+     */
+    private int           boundTexture;
+    /**
+     * Indicates if current color is known
+     */
+    private boolean       colorKnown;
+    /**
+     * Face culling state
+     */
+    private int           cullFace;
+    /**
+     * Current material diffuse color
+     */
+    private final float[] diffuse;
+    /**
+     * Indicates if current diffuse color is known
+     */
+    private boolean       diffuseKnown;
+    /**
+     * Number of draw calls since last {@link #resetCounters()}
+     */
+    private int           drawCalls;
+    /**
+     * Number of filtered calls since last {@link #resetCounters()}
+     */
+    private int           filteredChanges;
+    /**
+     * Number of geometry binds since last {@link #resetCounters()}
+     */
+    private int           geometryBinds;
+    /**
+     * Current color green
+     */
+    private float         green;
+    /**
+     * Current color red
+     */
+    private float         red;
+    /**
+     * Number of state changes send to Open GL since last {@link #resetCounters()}
+     */
+    private int           stateChanges;
+    /**
+     * Texture 2D state
+     */
+    private int           texture2D;
+
+    /**
+     * Create a new instance of GLState
+     */
+    GLState()
+    {
+        this.diffuse = new float[4];
+        this.invalidate();
+    }
+
+    /**
+     * Change the state of a capability
+     *
+     * @param gl         Open GL link
+     * @param capability Capability
+     * @param current    Current capability state
+     * @param enable     Indicates if enable or disable
+     * @return New capability state
+     */
+    private int capability(final GL10 gl, final int capability, final int current, final boolean enable)
+    {
+        final int state = enable == true
+                          ? GLState.ENABLED
+                          : GLState.DISABLED;
+
+        if (current == state)
+        {
+            this.filteredChanges++;
+
+            return state;
+        }
+
+        this.stateChanges++;
+
+        if (enable == true)
+        {
+            gl.glEnable(capability);
+        }
+        else
+        {
+            gl.glDisable(capability);
+        }
+
+        return state;
+    }
+
+    /**
+     * Bind a texture
+     *
+     * @param gl        Open GL link
+     * @param textureId Texture ID
+     */
+    void bindTexture(final GL10 gl, final int textureId)
+    {
+        if (this.boundTexture == textureId)
+        {
+            this.filteredChanges++;
+
+            return;
+        }
+
+        this.stateChanges++;
+        this.boundTexture = textureId;
+        gl.glBindTexture(GL10.GL_TEXTURE_2D, textureId);
+    }
+
+    /**
+     * Change current color
+     *
+     * @param gl    Open GL link
+     * @param red   Red
+     * @param green Green
+     * @param blue  Blue
+     * @param alpha Alpha
+     */
+    void color(final GL10 gl, final float red, final float green, final float blue, final float alpha)
+    {
+        if ((this.colorKnown == true) && (this.red == red) && (this.green == green) && (this.blue == blue)
+                && (this.alpha == alpha))
+        {
+            this.filteredChanges++;
+
+            return;
+        }
+
+        this.stateChanges++;
+        this.colorKnown = true;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+        gl.glColor4f(red, green, blue, alpha);
+    }
+
+    /**
+     * Enable or disable face culling
+     *
+     * @param gl     Open GL link
+     * @param enable Indicates if enable face culling
+     */
+    void cullFace(final GL10 gl, final boolean enable)
+    {
+        this.cullFace = this.capability(gl, GL10.GL_CULL_FACE, this.cullFace, enable);
+    }
+
+    /**
+     * Change material diffuse color
+     *
+     * @param gl    Open GL link
+     * @param color Diffuse color
+     */
+    void diffuse(final GL10 gl, final Color4f color)
+    {
+        if ((this.diffuseKnown == true) && (this.diffuse[0] == color.red) && (this.diffuse[1] == color.green)
+                && (this.diffuse[2] == color.blue) && (this.diffuse[3] == color.alpha))
+        {
+            this.filteredChanges++;
+
+            return;
+        }
+
+        this.stateChanges++;
+        this.diffuseKnown = true;
+        this.diffuse[0] = color.red;
+        this.diffuse[1] = color.green;
+        this.diffuse[2] = color.blue;
+        this.diffuse[3] = color.alpha;
+        gl.glMaterialfv(GL10.GL_FRONT_AND_BACK, GL10.GL_DIFFUSE, color.putInFloatBuffer());
+    }
+
+    /**
+     * Count a draw call
+     */
+    void drawCall()
+    {
+        this.drawCalls++;
+    }
+
+    /**
+     * Count a geometry bind
+     */
+    void geometryBind()
+    {
+        this.geometryBinds++;
+    }
+
+    /**
+     * Number of draw calls since last {@link #resetCounters()}
+     *
+     * @return Number of draw calls
+     */
+    int getDrawCalls()
+    {
+        return this.drawCalls;
+    }
+
+    /**
+     * Number of calls filtered, because they not change the state, since last
+     * {@link #resetCounters()}
+     *
+     * @return Number of filtered calls
+     */
+    int getFilteredChanges()
+    {
+        return this.filteredChanges;
+    }
+
+    /**
+     * Number of geometry binds since last {@link #resetCounters()}
+     *
+     * @return Number of geometry binds
+     */
+    int getGeometryBinds()
+    {
+        return this.geometryBinds;
+    }
+
+    /**
+     * Number of state changes send to Open GL since last {@link #resetCounters()}
+     *
+     * @return Number of state changes
+     */
+    int getStateChanges()
+    {
+        return this.stateChanges;
+    }
+
+    /**
+     * Forget the known state, next calls will be send to Open GL
+     */
+    void invalidate()
+    {
+        this.boundTexture = GLState.NO_TEXTURE;
+        this.colorKnown = false;
+        this.diffuseKnown = false;
+        this.cullFace = GLState.UNKNOWN;
+        this.texture2D = GLState.UNKNOWN;
+    }
+
+    /**
+     * Reset counters
+     */
+    void resetCounters()
+    {
+        this.drawCalls = 0;
+        this.filteredChanges = 0;
+        this.geometryBinds = 0;
+        this.stateChanges = 0;
+    }
+
+    /**
+     * Enable or disable 2D texture
+     *
+     * @param gl     Open GL link
+     * @param enable Indicates if enable 2D texture
+     */
+    void texture2D(final GL10 gl, final boolean enable)
+    {
+        this.texture2D = this.capability(gl, GL10.GL_TEXTURE_2D, this.texture2D, enable);
+    }
+
+    /**
+     * Indicates that a texture was bound outside the tracker
+     *
+     * @param textureId Bound texture ID
+     */
+    void textureBound(final int textureId)
+    {
+        this.boundTexture = textureId;
+    }
+}
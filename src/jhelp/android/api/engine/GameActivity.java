@@ -1,7 +1,5 @@
 package jhelp.android.api.engine;
 
-import java.util.concurrent.TimeUnit;
-
 import jhelp.android.api.Debug;
 import jhelp.android.api.R;
 import jhelp.android.api.engine.geom.Cube;
@@ -67,7 +65,7 @@ public class GameActivity
 
         this.surfaceView.setOnTouchListener(this);
 
-        Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this, 1024, TimeUnit.MILLISECONDS);
+        Scene3D.SCENE3D.getJobSystem().schedule(JobPriority.ASSET_LOADING, this, 1024);
     }
 
     public void onSensorChanged(final SensorEvent event)
@@ -85,8 +83,7 @@ public class GameActivity
     {
         if (motionEvent.getAction() == MotionEvent.ACTION_UP)
         {
-            Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(new DoTouch(motionEvent), 1,
-                                                                 TimeUnit.MILLISECONDS);
+            Scene3D.SCENE3D.getJobSystem().submit(JobPriority.INPUT, new DoTouch(motionEvent));
         }
 
         return true;
@@ -1,13 +1,9 @@
 package jhelp.android.api.engine;
 
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
-import jhelp.android.api.engine.util.Debug;
+import jhelp.android.api.engine.util.UtilMatrix;
 
 import android.content.Context;
 import android.graphics.RectF;
@@ -47,8 +43,6 @@ public class JHelpGLSurfaceView
             gl.glMatrixMode(GL10.GL_MODELVIEW);
 
             Scene3D.SCENE3D.render(gl);
-
-            Scene3D.exitCriticalSection();
         }
 
         /**
@@ -76,6 +70,10 @@ public class JHelpGLSurfaceView
             gl.glLoadIdentity();
             gl.glFrustumf(-ratio, ratio, -1, 1, 1, 10);
 
+            final float[] projection = new float[16];
+            UtilMatrix.frustum(projection, -ratio, ratio, -1, 1, 1, 10);
+            Scene3D.SCENE3D.setProjection(projection);
+
             JHelpGLSurfaceView.this.boundsReal.left = 0;
             JHelpGLSurfaceView.this.boundsReal.top = 0;
             JHelpGLSurfaceView.this.boundsReal.right = width;
@@ -131,6 +129,10 @@ public class JHelpGLSurfaceView
 
             gl.glEnableClientState(GL10.GL_VERTEX_ARRAY);
             gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+
+            GLCapabilities.initialize(gl);
+            // Video memory of previous context is lost
+            Scene3D.SCENE3D.getTextureManager().clear();
         }
     }
 
@@ -140,7 +142,7 @@ public class JHelpGLSurfaceView
     private final Runnable refreshScene = new Runnable()
     {
         /**
-         * Refresh the scene in separate scene <br>
+         * Refresh the scene, called by the frame scheduler <br>
          * <br>
          * <b>Parent documentation:</b><br>
          * {@inheritDoc}
@@ -149,8 +151,6 @@ public class JHelpGLSurfaceView
          */
         public void run()
         {
-            Scene3D.enterCriticalSection();
-
             JHelpGLSurfaceView.this.requestRender();
         }
     };
@@ -158,10 +158,6 @@ public class JHelpGLSurfaceView
      * Scene renderer
      */
     private JHelpSceneRenderer sceneRenderer;
-    /**
-     * Thread refresh link to cancel it when exit application
-     */
-    private ScheduledFuture<?> scheduledFuture;
     /**
      * Last touch X position
      */
@@ -207,14 +203,10 @@ public class JHelpGLSurfaceView
 
         this.setRenderer(this.sceneRenderer);
 
-        Scene3D.SCENE3D.scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(32);
-
-        // Render the view only when there is a change
+        // Render the view only when there is a change or playing animations
         this.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
 
-        this.scheduledFuture = Scene3D.SCENE3D.scheduledThreadPoolExecutor.scheduleWithFixedDelay(
-                this.refreshScene, 1024, 64,
-                TimeUnit.MILLISECONDS);
+        Scene3D.SCENE3D.getFrameScheduler().start(this.refreshScene);
     }
 
     /**
@@ -228,36 +220,10 @@ public class JHelpGLSurfaceView
     @Override
     protected void onDetachedFromWindow()
     {
-        if (this.scheduledFuture != null)
-        {
-            this.scheduledFuture.cancel(false);
-
-            try
-            {
-                Scene3D.SCENE3D.scheduledThreadPoolExecutor.awaitTermination(1024,
-                                                                             TimeUnit.MILLISECONDS);
-            }
-            catch (final InterruptedException exception)
-            {
-                // {@todo} TODO Check if print exception is enough
-                Debug.printTodo("Check if print exception is enough");
-                Debug.printException(exception);
-            }
-
-            Scene3D.SCENE3D.scheduledThreadPoolExecutor.shutdown();
-
-            try
-            {
-                Scene3D.SCENE3D.scheduledThreadPoolExecutor.awaitTermination(1024,
-                                                                             TimeUnit.MILLISECONDS);
-            }
-            catch (final InterruptedException exception)
-            {
-                Debug.printException(exception);
-            }
-        }
+        Scene3D.SCENE3D.getFrameScheduler().stop();
 
-        this.scheduledFuture = null;
+        // Running jobs end by themselves, workers stay for next view
+        Scene3D.SCENE3D.getJobSystem().cancelAll();
 
         Scene3D.SCENE3D.destroy();
 
@@ -310,6 +276,7 @@ public class JHelpGLSurfaceView
             case MotionEvent.ACTION_MOVE:
                 Scene3D.SCENE3D.getRoot().position.angleY += (x - this.touchX);
                 Scene3D.SCENE3D.getRoot().position.angleX += (y - this.touchY);
+                Scene3D.SCENE3D.requestRender();
                 break;
         }
 
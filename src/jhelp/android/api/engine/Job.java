@@ -0,0 +1,183 @@
+package jhelp.android.api.engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Job submitted to the {@link JobSystem}.<br>
+ * A job waits its dependencies end, is queued in its priority lane, then runs once. It can be
+ * cancelled while not running, then jobs depending on it are cancelled too
+ *
+ * @author JHelp
+ */
+public final class Job
+{
+    /**
+     * Job state : cancelled
+     */
+    static final int                 STATE_CANCELLED = 4;
+    /**
+     * Job state : run done
+     */
+    static final int                 STATE_DONE      = 3;
+    /**
+     * Job state : queued in its lane
+     */
+    static final int                 STATE_QUEUED    = 1;
+    /**
+     * Job state : running
+     */
+    static final int                 STATE_RUNNING   = 2;
+    /**
+     * Job state : waiting dependencies or delay
+     */
+    static final int                 STATE_WAITING   = 0;
+    /**
+     * Jobs that wait this one, guarded by job system
+     */
+    private ArrayList<Job>           dependents;
+    /**
+     * Signal the job is done or cancelled
+     */
+    private final CountDownLatch     finished;
+    /**
+     * Job system that runs the job
+     */
+    private final JobSystem          jobSystem;
+    /**
+     * Number of dependencies (and delay) not ended yet, guarded by job system
+     */
+    int                              pending;
+    /**
+     * Priority lane
+     */
+    private final JobPriority        priority;
+    /**
+     * Job state, guarded by job system
+     */
+    int                              state;
+    /**
+     * Task to run
+     */
+    private final Runnable           task;
+
+    /**
+     * Create a new instance of Job
+     *
+     * @param jobSystem Job system that runs the job
+     * @param priority  Priority lane
+     * @param task      Task to run
+     */
+    Job(final JobSystem jobSystem, final JobPriority priority, final Runnable task)
+    {
+        this.jobSystem = jobSystem;
+        this.priority = priority;
+        this.task = task;
+        this.finished = new CountDownLatch(1);
+        this.state = Job.STATE_WAITING;
+        this.pending = 0;
+    }
+
+    /**
+     * Add a job that waits this one. Called with job system lock
+     *
+     * @param job Job that waits this one
+     */
+    void addDependent(final Job job)
+    {
+        if (this.dependents == null)
+        {
+            this.dependents = new ArrayList<Job>();
+        }
+
+        this.dependents.add(job);
+    }
+
+    /**
+     * Signal the job ended (Done or cancelled)
+     */
+    void finish()
+    {
+        this.finished.countDown();
+    }
+
+    /**
+     * Task to run
+     *
+     * @return Task to run
+     */
+    Runnable getTask()
+    {
+        return this.task;
+    }
+
+    /**
+     * Take jobs that wait this one. Called with job system lock
+     *
+     * @return Jobs that wait this one or {@code null} if none
+     */
+    ArrayList<Job> takeDependents()
+    {
+        final ArrayList<Job> dependents = this.dependents;
+        this.dependents = null;
+        return dependents;
+    }
+
+    /**
+     * Cancel the job if not running yet.<br>
+     * Jobs depending on it are cancelled too
+     *
+     * @return {@code true} if job is cancelled. {@code false} if it is running or done
+     */
+    public boolean cancel()
+    {
+        return this.jobSystem.cancel(this);
+    }
+
+    /**
+     * Priority lane
+     *
+     * @return Priority lane
+     */
+    public JobPriority getPriority()
+    {
+        return this.priority;
+    }
+
+    /**
+     * Indicates if job is cancelled
+     *
+     * @return {@code true} if job is cancelled
+     */
+    public boolean isCancelled()
+    {
+        synchronized (this.jobSystem)
+        {
+            return this.state == Job.STATE_CANCELLED;
+        }
+    }
+
+    /**
+     * Indicates if job ran
+     *
+     * @return {@code true} if job ran
+     */
+    public boolean isDone()
+    {
+        synchronized (this.jobSystem)
+        {
+            return this.state == Job.STATE_DONE;
+        }
+    }
+
+    /**
+     * Wait the job is done or cancelled.<br>
+     * Never call it from a job that the waited one depends on
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void waitFinished() throws InterruptedException
+    {
+        this.finished.await();
+    }
+}
@@ -0,0 +1,27 @@
+package jhelp.android.api.engine;
+
+/**
+ * Priority lane of a job (See {@link JobSystem}), from most urgent to less urgent
+ *
+ * @author JHelp
+ */
+public enum JobPriority
+{
+    /**
+     * User input reaction
+     */
+    INPUT,
+    /**
+     * Preparation of next frames, like meshes build
+     */
+    FRAME_PREPARATION,
+    /**
+     * Asset decoding, like textures of a loading scene. Never takes all workers, not limited by
+     * running asset loading jobs, so decoding runs while loading continues
+     */
+    ASSET_DECODING,
+    /**
+     * Asset loading, like scenes load. Never takes all workers
+     */
+    ASSET_LOADING
+}
@@ -0,0 +1,490 @@
+package jhelp.android.api.engine;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import jhelp.android.api.engine.util.Debug;
+
+/**
+ * Jobs of the engine : input reactions, frames preparation, assets loading.<br>
+ * Jobs are queued in lanes by priority (See {@link JobPriority}) and run by a fixed number of
+ * workers, one by processor (At least 2). A free worker always takes the most urgent job. Asset
+ * decoding jobs and asset loading jobs never take all workers of their lane, so an input or frame
+ * job never waits that a long load ends. Each of these lanes has its own limit, so a loading job
+ * that submits decoding jobs never prevents them to run.<br>
+ * A job can depend on other jobs : it is queued only when all of them are done, and cancelled if
+ * one of them is cancelled. It can also be delayed. A job not running yet can be cancelled (See
+ * {@link Job#cancel()}).<br>
+ * Get it with {@link Scene3D#getJobSystem()}
+ *
+ * @author JHelp
+ */
+public final class JobSystem
+{
+    /**
+     * Worker that runs jobs
+     *
+     * @author JHelp
+     */
+    class Worker
+            implements Runnable
+    {
+        /**
+         * Create a new instance of Worker
+         */
+        Worker()
+        {
+        }
+
+        /**
+         * Run jobs, forever <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @see java.lang.Runnable#run()
+         */
+        public void run()
+        {
+            try
+            {
+                while (true)
+                {
+                    try
+                    {
+                        JobSystem.this.execute(JobSystem.this.take());
+                    }
+                    catch (final Error error)
+                    {
+                        // Job is already ended, the worker continues with next ones
+                        Debug.printError(error, "Job failed !");
+                    }
+                }
+            }
+            catch (final InterruptedException exception)
+            {
+                Debug.printException(exception, "Job worker interrupted !");
+            }
+        }
+    }
+
+    /**
+     * Queued jobs by priority
+     */
+    private final LinkedList<Job>[] lanes;
+    /**
+     * Maximum number of jobs running at the same time, by priority
+     */
+    private final int[]             limits;
+    /**
+     * Number of cancelled jobs
+     */
+    private int                     numberOfCancelledJobs;
+    /**
+     * Number of done jobs
+     */
+    private int                     numberOfDoneJobs;
+    /**
+     * Number of workers
+     */
+    private final int               numberOfWorkers;
+    /**
+     * Number of running jobs, by priority
+     */
+    private final int[]             running;
+    /**
+     * Timer of delayed jobs, {@code null} if not created yet
+     */
+    private Timer                   timer;
+    /**
+     * Jobs waiting dependencies or delay
+     */
+    private final HashSet<Job>      waiting;
+    /**
+     * Indicates if workers are started
+     */
+    private boolean                 workersStarted;
+
+    /**
+     * Create a new instance of JobSystem with one worker by processor (At least 2)
+     */
+    JobSystem()
+    {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a new instance of JobSystem
+     *
+     * @param numberOfWorkers Number of workers
+     */
+    @SuppressWarnings("unchecked")
+    JobSystem(final int numberOfWorkers)
+    {
+        if (numberOfWorkers < 2)
+        {
+            throw new IllegalArgumentException("numberOfWorkers MUST be >1 not " + numberOfWorkers);
+        }
+
+        final JobPriority[] priorities = JobPriority.values();
+        this.lanes = new LinkedList[priorities.length];
+        this.limits = new int[priorities.length];
+        this.running = new int[priorities.length];
+
+        for (int index = 0; index < priorities.length; index++)
+        {
+            this.lanes[index] = new LinkedList<Job>();
+            this.limits[index] = numberOfWorkers;
+        }
+
+        this.limits[JobPriority.ASSET_DECODING.ordinal()] = numberOfWorkers - 1;
+        this.limits[JobPriority.ASSET_LOADING.ordinal()] = numberOfWorkers - 1;
+        this.waiting = new HashSet<Job>();
+        this.numberOfWorkers = numberOfWorkers;
+        this.workersStarted = false;
+    }
+
+    /**
+     * Cancel a job and jobs depending on it. Called with lock
+     *
+     * @param job Job to cancel
+     */
+    private void cancelJob(final Job job)
+    {
+        if (job.state == Job.STATE_QUEUED)
+        {
+            this.lanes[job.getPriority().ordinal()].remove(job);
+        }
+        else
+        {
+            this.waiting.remove(job);
+        }
+
+        job.state = Job.STATE_CANCELLED;
+        this.numberOfCancelledJobs++;
+        final ArrayList<Job> dependents = job.takeDependents();
+        job.finish();
+
+        if (dependents != null)
+        {
+            for (final Job dependent : dependents)
+            {
+                if ((dependent.state == Job.STATE_WAITING) || (dependent.state == Job.STATE_QUEUED))
+                {
+                    this.cancelJob(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a job in its lane. Called with lock
+     *
+     * @param job Job to queue
+     */
+    private void enqueue(final Job job)
+    {
+        this.waiting.remove(job);
+        job.state = Job.STATE_QUEUED;
+        this.lanes[job.getPriority().ordinal()].add(job);
+
+        if (this.workersStarted == false)
+        {
+            this.workersStarted = true;
+            Thread thread;
+
+            for (int index = 0; index < this.numberOfWorkers; index++)
+            {
+                thread = new Thread(new Worker(), "JobSystem-" + index);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        // Waiting workers wait for different lanes, so wake them all
+        this.notifyAll();
+    }
+
+    /**
+     * Most urgent job that can run now. Called with lock
+     *
+     * @return Job to run or {@code null} if none
+     */
+    private Job next()
+    {
+        for (int index = 0; index < this.lanes.length; index++)
+        {
+            if ((this.running[index] < this.limits[index]) && (this.lanes[index].isEmpty() == false))
+            {
+                return this.lanes[index].removeFirst();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A dependency or delay of a job ended. Called with lock
+     *
+     * @param job Job that waits
+     */
+    private void release(final Job job)
+    {
+        job.pending--;
+
+        if ((job.pending == 0) && (job.state == Job.STATE_WAITING))
+        {
+            this.enqueue(job);
+        }
+    }
+
+    /**
+     * Cancel a job and jobs depending on it
+     *
+     * @param job Job to cancel
+     * @return {@code true} if job is cancelled
+     */
+    synchronized boolean cancel(final Job job)
+    {
+        if (job.state == Job.STATE_CANCELLED)
+        {
+            return true;
+        }
+
+        if ((job.state != Job.STATE_WAITING) && (job.state != Job.STATE_QUEUED))
+        {
+            return false;
+        }
+
+        this.cancelJob(job);
+        return true;
+    }
+
+    /**
+     * Run a job, then release jobs depending on it.<br>
+     * Even if the task fails, the job ends, so its dependents run and its waiters wake up
+     *
+     * @param job Job to run
+     */
+    void execute(final Job job)
+    {
+        try
+        {
+            job.getTask().run();
+        }
+        catch (final Exception exception)
+        {
+            Debug.printException(exception, "Job failed !");
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                job.state = Job.STATE_DONE;
+                this.numberOfDoneJobs++;
+                this.running[job.getPriority().ordinal()]--;
+
+                if (this.lanes[job.getPriority().ordinal()].isEmpty() == false)
+                {
+                    // A job of the lane may wait a free place
+                    this.notifyAll();
+                }
+
+                final ArrayList<Job> dependents = job.takeDependents();
+
+                if (dependents != null)
+                {
+                    for (final Job dependent : dependents)
+                    {
+                        this.release(dependent);
+                    }
+                }
+            }
+
+            job.finish();
+        }
+    }
+
+    /**
+     * Wait and take the next job to run
+     *
+     * @return Job to run
+     * @throws InterruptedException If interrupted while waiting
+     */
+    synchronized Job take() throws InterruptedException
+    {
+        Job job = this.next();
+
+        while (job == null)
+        {
+            this.wait();
+            job = this.next();
+        }
+
+        job.state = Job.STATE_RUNNING;
+        this.running[job.getPriority().ordinal()]++;
+        return job;
+    }
+
+    /**
+     * Cancel all jobs not running yet
+     */
+    public synchronized void cancelAll()
+    {
+        final ArrayList<Job> jobs = new ArrayList<Job>(this.waiting);
+
+        for (final LinkedList<Job> lane : this.lanes)
+        {
+            jobs.addAll(lane);
+        }
+
+        for (final Job job : jobs)
+        {
+            if ((job.state == Job.STATE_WAITING) || (job.state == Job.STATE_QUEUED))
+            {
+                this.cancelJob(job);
+            }
+        }
+    }
+
+    /**
+     * Number of jobs cancelled since start
+     *
+     * @return Number of jobs cancelled
+     */
+    public synchronized int getNumberOfCancelledJobs()
+    {
+        return this.numberOfCancelledJobs;
+    }
+
+    /**
+     * Number of jobs done since start
+     *
+     * @return Number of jobs done
+     */
+    public synchronized int getNumberOfDoneJobs()
+    {
+        return this.numberOfDoneJobs;
+    }
+
+    /**
+     * Number of jobs queued in a lane, waiting a free worker
+     *
+     * @param priority Lane priority
+     * @return Number of queued jobs
+     */
+    public synchronized int getNumberOfQueuedJobs(final JobPriority priority)
+    {
+        if (priority == null)
+        {
+            throw new NullPointerException("priority musn't be null");
+        }
+
+        return this.lanes[priority.ordinal()].size();
+    }
+
+    /**
+     * Number of workers
+     *
+     * @return Number of workers
+     */
+    public int getNumberOfWorkers()
+    {
+        return this.numberOfWorkers;
+    }
+
+    /**
+     * Submit a job to run after a delay and its dependencies end
+     *
+     * @param priority     Priority lane
+     * @param task         Task to run
+     * @param delay        Delay in milliseconds before queue the job, 0 for no delay
+     * @param dependencies Jobs to wait before queue the job
+     * @return Submitted job
+     */
+    public Job schedule(final JobPriority priority, final Runnable task, final long delay,
+                        final Job... dependencies)
+    {
+        if (priority == null)
+        {
+            throw new NullPointerException("priority musn't be null");
+        }
+
+        if (task == null)
+        {
+            throw new NullPointerException("task musn't be null");
+        }
+
+        if (delay < 0)
+        {
+            throw new IllegalArgumentException("delay MUST be >=0 not " + delay);
+        }
+
+        final Job job = new Job(this, priority, task);
+
+        synchronized (this)
+        {
+            this.waiting.add(job);
+
+            for (final Job dependency : dependencies)
+            {
+                if (dependency.state == Job.STATE_CANCELLED)
+                {
+                    this.cancelJob(job);
+                    return job;
+                }
+
+                if (dependency.state != Job.STATE_DONE)
+                {
+                    job.pending++;
+                    dependency.addDependent(job);
+                }
+            }
+
+            if (delay > 0)
+            {
+                job.pending++;
+
+                if (this.timer == null)
+                {
+                    this.timer = new Timer("JobSystem-timer", true);
+                }
+
+                this.timer.schedule(new TimerTask()
+                {
+                    @Override
+                    public void run()
+                    {
+                        synchronized (JobSystem.this)
+                        {
+                            JobSystem.this.release(job);
+                        }
+                    }
+                }, delay);
+            }
+
+            if (job.pending == 0)
+            {
+                this.enqueue(job);
+            }
+        }
+
+        return job;
+    }
+
+    /**
+     * Submit a job to run as soon as its dependencies end
+     *
+     * @param priority     Priority lane
+     * @param task         Task to run
+     * @param dependencies Jobs to wait before queue the job
+     * @return Submitted job
+     */
+    public Job submit(final JobPriority priority, final Runnable task, final Job... dependencies)
+    {
+        return this.schedule(priority, task, 0, dependencies);
+    }
+}
@@ -2,19 +2,19 @@ package jhelp.android.api.engine;
 
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.StringTokenizer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import jhelp.android.api.R;
 import jhelp.android.api.engine.util.ArrayInt;
+import jhelp.android.api.engine.util.NumberScanner;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserFactory;
 
 /**
- * Scene loader
+ * Scene loader from a zip that contains the XML scene description and the textures.<br>
+ * Read elements are given to a {@link SceneHandler}
  *
  * @author JHelp
  */
@@ -186,24 +186,32 @@ class LoaderScene
     private static final String SCENE_3D_XML_DESCRIPTION = "JHelpScene3D.xml";
 
     /**
-     * Materials list
+     * Reader of colors
      */
-    private final HashMap<String, Material>          materials;
+    private final NumberScanner colorScanner;
     /**
-     * Nodes list
+     * Points coordinates read buffer
      */
-    private final HashMap<String, Node3D>            nodes;
+    private float[]             coordinates;
     /**
-     * Textures list
+     * Reader of indexes
      */
-    private final HashMap<String, Texture>           textures;
+    private final NumberScanner indexScanner;
     /**
-     * Textures, materials association
+     * Number of nodes given to the handler
      */
-    private final HashMap<String, ArrayList<String>> texturesMaterials;
+    private int                 numberOfNodes;
+    /**
+     * Reader of points
+     */
+    private final NumberScanner pointsScanner;
+    /**
+     * Handler that receives read elements
+     */
+    private final SceneHandler  sceneHandler;
 
     /**
-     * Create a new instance of LoaderScene
+     * Create a new instance of LoaderScene that creates the scene in {@link Scene3D#SCENE3D}
      *
      * @param inputStream Stream to parse
      * @throws Exception On parsing issue
@@ -211,10 +219,25 @@ class LoaderScene
     LoaderScene(final InputStream inputStream)
             throws Exception
     {
-        this.materials = new HashMap<String, Material>();
-        this.texturesMaterials = new HashMap<String, ArrayList<String>>();
-        this.nodes = new HashMap<String, Node3D>();
-        this.textures = new HashMap<String, Texture>();
+        this(inputStream, new SceneCreator());
+    }
+
+    /**
+     * Create a new instance of LoaderScene
+     *
+     * @param inputStream  Stream to parse
+     * @param sceneHandler Handler that receives read elements
+     * @throws Exception On parsing issue
+     */
+    LoaderScene(final InputStream inputStream, final SceneHandler sceneHandler)
+            throws Exception
+    {
+        this.sceneHandler = sceneHandler;
+        this.numberOfNodes = 0;
+        this.coordinates = new float[384];
+        this.pointsScanner = new NumberScanner(" \n\r\f\t,;-|:");
+        this.indexScanner = new NumberScanner(" .\t,;-|:");
+        this.colorScanner = new NumberScanner(" \t,;-|:");
 
         final ZipInputStream zipInputStream = new ZipInputStream(inputStream);
 
@@ -239,7 +262,7 @@ class LoaderScene
                     || (name.toLowerCase()
                             .endsWith(LoaderScene.EXTENSION_PNG) == true))
             {
-                this.loadTexture(name, zipInputStream);
+                this.sceneHandler.texture(name, zipInputStream);
             }
 
             zipInputStream.closeEntry();
@@ -249,10 +272,7 @@ class LoaderScene
 
         zipInputStream.close();
 
-        this.materials.clear();
-        this.textures.clear();
-        this.texturesMaterials.clear();
-        this.nodes.clear();
+        this.sceneHandler.endScene();
     }
 
     /**
@@ -268,40 +288,16 @@ class LoaderScene
             return;
         }
 
-        final StringTokenizer stringTokenizer = new StringTokenizer(content, " .\t,;-|:", false);
+        this.indexScanner.reset(content);
+        int integer;
 
-        while (stringTokenizer.hasMoreTokens() == true)
+        while (this.indexScanner.hasNext() == true)
         {
-            try
-            {
-                arrayInt.add(Integer.parseInt(stringTokenizer.nextToken()));
-            }
-            catch (final Exception exception)
-            {
-                //Nothing to do
-            }
-        }
-    }
-
-    /**
-     * Load a texture
-     *
-     * @param name           Texture name
-     * @param zipInputStream Stream to read
-     */
-    private void loadTexture(final String name, final ZipInputStream zipInputStream)
-    {
-        final Texture texture = new Texture(zipInputStream);
-
-        this.textures.put(name, texture);
+            integer = this.indexScanner.nextInt(0);
 
-        final ArrayList<String> materialList = this.texturesMaterials.get(name);
-
-        if (materialList != null)
-        {
-            for (final String mat : materialList)
+            if (this.indexScanner.isValid() == true)
             {
-                this.materials.get(mat).texture = texture;
+                arrayInt.add(integer);
             }
         }
     }
@@ -311,28 +307,31 @@ class LoaderScene
      *
      * @param points String to parse
      */
-    private void parse2DPoints(final String points)
+    private void parse2DPoints(final String points) throws Exception
     {
-        float                 x, y;
-        final StringTokenizer stringTokenizer = new StringTokenizer(points, " \n\r\f\t,;-|:",
-                                                                    false);
+        float   x, y;
+        float[] coordinates = this.coordinates;
+        int     size        = 0;
+        this.pointsScanner.reset(points);
 
-        while (stringTokenizer.hasMoreTokens() == true)
+        while (this.pointsScanner.hasNext() == true)
         {
-            x = y = 0;
-
-            if (stringTokenizer.hasMoreTokens() == true)
-            {
-                x = this.parseFloat(stringTokenizer.nextToken(), 0);
-            }
+            x = this.pointsScanner.nextFloat(0);
+            y = this.pointsScanner.nextFloat(0);
 
-            if (stringTokenizer.hasMoreTokens() == true)
+            if ((size + 2) > coordinates.length)
             {
-                y = this.parseFloat(stringTokenizer.nextToken(), 0);
+                final float[] temp = new float[coordinates.length << 1];
+                System.arraycopy(coordinates, 0, temp, 0, size);
+                coordinates = temp;
+                this.coordinates = temp;
             }
 
-            PoolPoints.storePoint2D(x, y);
+            coordinates[size++] = x;
+            coordinates[size++] = y;
         }
+
+        this.sceneHandler.points2D(coordinates, size >> 1);
     }
 
     /**
@@ -340,33 +339,33 @@ class LoaderScene
      *
      * @param points String to parse
      */
-    private void parse3DPoints(final String points)
+    private void parse3DPoints(final String points) throws Exception
     {
-        float                 x, y, z;
-        final StringTokenizer stringTokenizer = new StringTokenizer(points, " \n\r\f\t,;-|:",
-                                                                    false);
+        float   x, y, z;
+        float[] coordinates = this.coordinates;
+        int     size        = 0;
+        this.pointsScanner.reset(points);
 
-        while (stringTokenizer.hasMoreTokens() == true)
+        while (this.pointsScanner.hasNext() == true)
         {
-            x = y = z = 0;
-
-            if (stringTokenizer.hasMoreTokens() == true)
-            {
-                x = this.parseFloat(stringTokenizer.nextToken(), 0);
-            }
+            x = this.pointsScanner.nextFloat(0);
+            y = this.pointsScanner.nextFloat(0);
+            z = this.pointsScanner.nextFloat(0);
 
-            if (stringTokenizer.hasMoreTokens() == true)
+            if ((size + 3) > coordinates.length)
             {
-                y = this.parseFloat(stringTokenizer.nextToken(), 0);
+                final float[] temp = new float[coordinates.length << 1];
+                System.arraycopy(coordinates, 0, temp, 0, size);
+                coordinates = temp;
+                this.coordinates = temp;
             }
 
-            if (stringTokenizer.hasMoreTokens() == true)
-            {
-                z = this.parseFloat(stringTokenizer.nextToken(), 0);
-            }
-
-            PoolPoints.storePoint3D(x, y, z);
+            coordinates[size++] = x;
+            coordinates[size++] = y;
+            coordinates[size++] = z;
         }
+
+        this.sceneHandler.points3D(coordinates, size / 3);
     }
 
     /**
@@ -377,8 +376,8 @@ class LoaderScene
      */
     private void parseAnimation(final XmlPullParser xmlPullParser) throws Exception
     {
-        Node3D node = null;
-        int    fps  = 25;
+        String nodeName = null;
+        int    fps      = 25;
 
         final int number = xmlPullParser.getAttributeCount();
         String    attributeName;
@@ -393,23 +392,25 @@ class LoaderScene
             }
             else if (LoaderScene.PARAMETER_NODE.equals(attributeName) == true)
             {
-                node = this.nodes.get(xmlPullParser.getAttributeValue(i));
+                nodeName = xmlPullParser.getAttributeValue(i);
             }
         }
 
-        if (node != null)
+        if (nodeName != null)
         {
-            final Animation animation = new Animation(node, fps);
+            final ArrayInt              frames    = new ArrayInt();
+            final ArrayList<Position3D> positions = new ArrayList<Position3D>();
 
             while (xmlPullParser.next() == XmlPullParser.START_TAG)
             {
                 if (LoaderScene.MARKUP_FRAME.equals(xmlPullParser.getName()) == true)
                 {
-                    this.parseFrame(animation, xmlPullParser);
+                    this.parseFrame(frames, positions, xmlPullParser);
                 }
             }
 
-            Scene3D.SCENE3D.playAnimation(animation);
+            this.sceneHandler.animation(nodeName, fps, frames.toArray(),
+                                        positions.toArray(new Position3D[positions.size()]), positions.size());
         }
     }
 
@@ -445,26 +446,26 @@ class LoaderScene
     {
         final Color4f color4f = Color4f.createGreyColor();
 
-        final StringTokenizer stringTokenizer = new StringTokenizer(color, " \t,;-|:", false);
+        this.colorScanner.reset(color);
 
-        if (stringTokenizer.hasMoreTokens() == true)
+        if (this.colorScanner.hasNext() == true)
         {
-            color4f.red = this.parseFloat(stringTokenizer.nextToken(), 0.5f);
+            color4f.red = this.colorScanner.nextFloat(0.5f);
         }
 
-        if (stringTokenizer.hasMoreTokens() == true)
+        if (this.colorScanner.hasNext() == true)
         {
-            color4f.green = this.parseFloat(stringTokenizer.nextToken(), 0.5f);
+            color4f.green = this.colorScanner.nextFloat(0.5f);
         }
 
-        if (stringTokenizer.hasMoreTokens() == true)
+        if (this.colorScanner.hasNext() == true)
         {
-            color4f.blue = this.parseFloat(stringTokenizer.nextToken(), 0.5f);
+            color4f.blue = this.colorScanner.nextFloat(0.5f);
         }
 
-        if (stringTokenizer.hasMoreTokens() == true)
+        if (this.colorScanner.hasNext() == true)
         {
-            color4f.alpha = this.parseFloat(stringTokenizer.nextToken(), 1f);
+            color4f.alpha = this.colorScanner.nextFloat(1f);
         }
 
         return color4f;
@@ -492,11 +493,13 @@ class LoaderScene
     /**
      * Parse frame from XML
      *
-     * @param animation     Animation where add the parsed frame
+     * @param frames        Frames numbers where add the parsed frame number
+     * @param positions     Positions where add the parsed frame position
      * @param xmlPullParser XML reader
      * @throws Exception On parsing issue
      */
-    private void parseFrame(final Animation animation, final XmlPullParser xmlPullParser)
+    private void parseFrame(final ArrayInt frames, final ArrayList<Position3D> positions,
+                            final XmlPullParser xmlPullParser)
             throws Exception
     {
         int   frame  = 0;
@@ -559,8 +562,8 @@ class LoaderScene
             }
         }
 
-        animation.addFrame(frame,
-                           new Position3D(x, y, z, angleX, angleY, angleZ, scaleX, scaleY, scaleZ));
+        frames.add(frame);
+        positions.add(new Position3D(x, y, z, angleX, angleY, angleZ, scaleX, scaleY, scaleZ));
 
         xmlPullParser.next();
     }
@@ -592,9 +595,10 @@ class LoaderScene
      */
     private void parseMaterial(final XmlPullParser xmlPullParser) throws Exception
     {
-        final Material material    = new Material();
-        String         name        = material.toString();
-        String         textureName = null;
+        String  name        = null;
+        String  textureName = null;
+        float   alpha       = 1f;
+        Color4f diffuse     = Color4f.createGreyColor();
 
         final int number = xmlPullParser.getAttributeCount();
         String    attributeName;
@@ -609,11 +613,11 @@ class LoaderScene
             }
             else if (LoaderScene.PARAMETER_ALPHA.equals(attributeName) == true)
             {
-                material.alpha = this.parseFloat(xmlPullParser.getAttributeValue(i), 1f);
+                alpha = this.parseFloat(xmlPullParser.getAttributeValue(i), 1f);
             }
             else if (LoaderScene.PARAMETER_DIFFUSE.equals(attributeName) == true)
             {
-                material.diffuseColor = this.parseColor(xmlPullParser.getAttributeValue(i));
+                diffuse = this.parseColor(xmlPullParser.getAttributeValue(i));
             }
             else if (LoaderScene.PARAMETER_TEXTURE.equals(attributeName) == true)
             {
@@ -621,34 +625,24 @@ class LoaderScene
             }
         }
 
-        this.materials.put(name, material);
-
-        if (textureName != null)
+        if (name == null)
         {
-            material.texture = this.textures.get(textureName);
-
-            ArrayList<String> materialList = this.texturesMaterials.get(textureName);
-
-            if (materialList == null)
-            {
-                materialList = new ArrayList<String>();
-                this.texturesMaterials.put(textureName, materialList);
-            }
-
-            materialList.add(name);
+            name = "Material" + Math.random();
         }
+
+        this.sceneHandler.material(name, alpha, diffuse, textureName);
     }
 
     /**
      * Parse node from XML
      *
-     * @param parent        Node parent
+     * @param parent        Node parent index or {@link SceneHandler#ROOT}
      * @param xmlPullParser XML reader
      * @throws Exception On parsing issue
      */
-    private void parseNode(final Node3D parent, final XmlPullParser xmlPullParser) throws Exception
+    private void parseNode(final int parent, final XmlPullParser xmlPullParser) throws Exception
     {
-        Node3D  node              = null;
+        boolean valid             = false;
         String  name              = "Node" + Math.random();
         int     type              = R.id.NODE_3D_TYPE_NODE;
         String  cloned            = null;
@@ -744,58 +738,38 @@ class LoaderScene
             }
         }
 
+        ArrayInt arrayPoint = null;
+        ArrayInt arrayUV    = null;
+
         switch (type)
         {
             case R.id.NODE_3D_TYPE_NODE:
-                node = new Node3D();
+                valid = true;
                 break;
             case R.id.NODE_3D_TYPE_CLONE:
-                if (cloned != null)
-                {
-                    node = new Clone3D((Object3D) this.nodes.get(cloned));
-
-                    if (materialName != null)
-                    {
-                        ((Clone3D) node).material = this.materials.get(materialName);
-                    }
-                }
+                valid = cloned != null;
                 break;
             case R.id.NODE_3D_TYPE_OBJECT:
                 if ((indexPoint != null) && (indexUV != null))
                 {
-                    node = new Object3D();
-
-                    if (materialName != null)
-                    {
-                        ((Object3D) node).material = this.materials.get(materialName);
-                    }
+                    valid = true;
+                    arrayPoint = new ArrayInt();
+                    arrayUV = new ArrayInt();
 
-                    ((Object3D) node).numberOfTriangles = numberOfTriangles;
-                    ((Object3D) node).doubleFace = doubleFace;
-
-                    this.fillArrayInt(((Object3D) node).indexPoint, indexPoint);
-                    this.fillArrayInt(((Object3D) node).indexUV, indexUV);
-
-                    ((Object3D) node).compact();
+                    this.fillArrayInt(arrayPoint, indexPoint);
+                    this.fillArrayInt(arrayUV, indexUV);
                 }
                 break;
         }
 
-        if (node != null)
+        if (valid == true)
         {
-            node.position.x = x;
-            node.position.y = y;
-            node.position.z = z;
-            node.position.angleX = angleX;
-            node.position.angleY = angleY;
-            node.position.angleZ = angleZ;
-            node.position.scaleX = scaleX;
-            node.position.scaleY = scaleY;
-            node.position.scaleZ = scaleZ;
-
-            parent.addChild(node);
+            final int node = this.numberOfNodes;
+            this.numberOfNodes++;
 
-            this.nodes.put(name, node);
+            this.sceneHandler.node(parent, type, name, cloned, materialName,
+                                   new Position3D(x, y, z, angleX, angleY, angleZ, scaleX, scaleY, scaleZ),
+                                   doubleFace, numberOfTriangles, arrayPoint, arrayUV);
 
             if (xmlPullParser.next() == XmlPullParser.START_TAG)
             {
@@ -838,8 +812,7 @@ class LoaderScene
      */
     private void parseScene(final XmlPullParser xmlPullParser) throws Exception
     {
-        Scene3D.SCENE3D.destroy();
-        PoolPoints.clear();
+        this.sceneHandler.startScene();
 
         int next = xmlPullParser.next();
 
@@ -862,7 +835,7 @@ class LoaderScene
                     }
                     else if (LoaderScene.MARKUP_NODE.equals(xmlPullParser.getName()) == true)
                     {
-                        this.parseNode(Scene3D.SCENE3D.getRoot(), xmlPullParser);
+                        this.parseNode(SceneHandler.ROOT, xmlPullParser);
                     }
                     else if (LoaderScene.MARKUP_ANIMATION.equals(xmlPullParser.getName()) == true)
                     {
@@ -1,5 +1,7 @@
 package jhelp.android.api.engine;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.microedition.khronos.opengles.GL10;
 
 /**
@@ -9,6 +11,10 @@ import javax.microedition.khronos.opengles.GL10;
  */
 public class Material
 {
+	/** Next material sort key */
+	private static final AtomicInteger	NEXT_SORT_KEY	= new AtomicInteger(0);
+	/** Key used to sort draws by material */
+	final int									sortKey			= Material.NEXT_SORT_KEY.getAndIncrement();
 	/** Material alpha in [0, 1]. 0 : transparent, 1: opaque */
 	public float	alpha;
 	/** Diffuse color */
@@ -24,6 +30,40 @@ public class Material
 		this.alpha = 1;
 	}
 
+	/**
+	 * Indicates if material is transparent, so have to be draw after opaque ones
+	 * 
+	 * @return {@code true} if material is transparent
+	 */
+	boolean isTransparent()
+	{
+		return (this.alpha < 1) || (this.diffuseColor.alpha < 1);
+	}
+
+	/**
+	 * Render the material in Open GL, filtering redundant state changes
+	 * 
+	 * @param gl
+	 *           Open GL link
+	 * @param glState
+	 *           Open GL state tracker
+	 */
+	void render(final GL10 gl, final GLState glState)
+	{
+		glState.color(gl, this.diffuseColor.red, this.diffuseColor.green, this.diffuseColor.blue, this.alpha);
+		glState.diffuse(gl, this.diffuseColor);
+
+		if(this.texture != null)
+		{
+			glState.texture2D(gl, true);
+			this.texture.bind(gl, glState);
+		}
+		else
+		{
+			glState.texture2D(gl, false);
+		}
+	}
+
 	/**
 	 * Render the material in Open GL
 	 * 
@@ -39,7 +79,7 @@ public class Material
 		if(this.texture != null)
 		{
 			gl.glEnable(GL10.GL_TEXTURE_2D);
-			this.texture.bind(gl);
+			this.texture.bind(gl, null);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,482 @@
+package jhelp.android.api.engine;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+import jhelp.android.api.engine.util.Debug;
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Mesh ready to be draw : unique vertices (X, Y, Z, U, V interleaved) and triangles indexes.<br>
+ * Indexes are unsigned shorts if there are at most 65536 vertices, unsigned ints if more and
+ * device supports it. If device not supports unsigned int indexes, triangles are expanded in
+ * vertices and draw without indexes.<br>
+ * The mesh can live in client memory or be send to video memory (Vertex buffer objects). Video
+ * memory of a mesh no more draw is freed by render thread after {@link #release()}.<br>
+ * Mesh bounding sphere is computed at creation, so outside render thread
+ *
+ * @author JHelp
+ */
+final class Mesh
+{
+    /**
+     * Maximum number of vertices for short indexes
+     */
+    private static final int                         MAXIMUM_SHORT_INDEX = 65536;
+    /**
+     * Next mesh sort key
+     */
+    private static final AtomicInteger               NEXT_SORT_KEY       = new AtomicInteger(0);
+    /**
+     * Meshes which video memory have to be freed by render thread
+     */
+    private static final ConcurrentLinkedQueue<Mesh> RELEASED            = new ConcurrentLinkedQueue<Mesh>();
+    /**
+     * Number of floats per vertex : X, Y, Z, U, V
+     */
+    static final int                                 VERTEX_SIZE         = 5;
+    /**
+     * Vertex size in bytes
+     */
+    static final int                                 VERTEX_STRIDE       = Mesh.VERTEX_SIZE << 2;
+
+    /**
+     * Indicates if last bind use video memory
+     */
+    private boolean           boundInVideoMemory;
+    /**
+     * Bounding sphere : center X, Y, Z and radius
+     */
+    private final float[]     boundingSphere;
+    /**
+     * Context generation where vertex buffer objects were created
+     */
+    private int               contextGeneration;
+    /**
+     * Number of vertices to draw (Number of indexes if indexed)
+     */
+    private final int         count;
+    /**
+     * Index buffer object ID in video memory, -1 if not in video memory
+     */
+    private int               indexBufferId;
+    /**
+     * Triangles indexes, {@code null} if mesh is not indexed
+     */
+    private final Buffer      indexes;
+    /**
+     * Indexes type : {@link GL10#GL_UNSIGNED_SHORT} or {@link GLCapabilities#GL_UNSIGNED_INT}
+     */
+    private final int         indexType;
+    /**
+     * Indicates if send to video memory failed, so don't try again
+     */
+    private boolean           uploadFailed;
+    /**
+     * Vertex buffer object ID in video memory, -1 if not in video memory
+     */
+    private int               vertexBufferId;
+    /**
+     * Vertices : X, Y, Z, U, V interleaved
+     */
+    private final FloatBuffer vertices;
+    /**
+     * Key used to sort draws by mesh
+     */
+    final int                 sortKey;
+
+    /**
+     * Create a new instance of Mesh
+     *
+     * @param vertices       Vertices : X, Y, Z, U, V interleaved
+     * @param numberVertices Number of vertices
+     * @param indexes        Triangles indexes
+     * @param numberIndexes  Number of indexes
+     */
+    Mesh(final float[] vertices, final int numberVertices, final int[] indexes, final int numberIndexes)
+    {
+        this.vertexBufferId = -1;
+        this.indexBufferId = -1;
+        this.uploadFailed = false;
+        this.boundInVideoMemory = false;
+        this.count = numberIndexes;
+        this.sortKey = Mesh.NEXT_SORT_KEY.getAndIncrement();
+        this.boundingSphere = Mesh.computeBoundingSphere(vertices, numberVertices);
+
+        if (numberVertices <= Mesh.MAXIMUM_SHORT_INDEX)
+        {
+            this.vertices = Mesh.createVertices(vertices, numberVertices);
+            this.indexes = UtilBuffer.createShortBuffer(indexes, numberIndexes);
+            this.indexType = GL10.GL_UNSIGNED_SHORT;
+        }
+        else if (GLCapabilities.isUnsignedIntIndexSupported() == true)
+        {
+            this.vertices = Mesh.createVertices(vertices, numberVertices);
+            this.indexes = UtilBuffer.createIntBuffer(indexes, numberIndexes);
+            this.indexType = GLCapabilities.GL_UNSIGNED_INT;
+        }
+        else
+        {
+            final float[] expanded = new float[numberIndexes * Mesh.VERTEX_SIZE];
+
+            for (int i = 0; i < numberIndexes; i++)
+            {
+                System.arraycopy(vertices, indexes[i] * Mesh.VERTEX_SIZE, expanded, i * Mesh.VERTEX_SIZE,
+                                 Mesh.VERTEX_SIZE);
+            }
+
+            this.vertices = UtilBuffer.createFloatBuffer(expanded);
+            this.indexes = null;
+            this.indexType = 0;
+        }
+    }
+
+    /**
+     * Create a new instance of Mesh, copy of an other one with transformed UVs : U' = U * scaleU +
+     * offsetU, V' = V * scaleV + offsetV
+     *
+     * @param mesh    Mesh to copy
+     * @param offsetU U offset
+     * @param offsetV V offset
+     * @param scaleU  U scale
+     * @param scaleV  V scale
+     */
+    private Mesh(final Mesh mesh, final float offsetU, final float offsetV, final float scaleU, final float scaleV)
+    {
+        this.vertexBufferId = -1;
+        this.indexBufferId = -1;
+        this.uploadFailed = false;
+        this.boundInVideoMemory = false;
+        this.count = mesh.count;
+        this.sortKey = Mesh.NEXT_SORT_KEY.getAndIncrement();
+        this.boundingSphere = mesh.boundingSphere;
+        this.indexes = mesh.indexes;
+        this.indexType = mesh.indexType;
+
+        final int capacity = mesh.vertices.capacity();
+        this.vertices = UtilBuffer.createFloatBuffer(capacity);
+
+        for (int offset = 0; offset < capacity; offset += Mesh.VERTEX_SIZE)
+        {
+            this.vertices.put(offset, mesh.vertices.get(offset));
+            this.vertices.put(offset + 1, mesh.vertices.get(offset + 1));
+            this.vertices.put(offset + 2, mesh.vertices.get(offset + 2));
+            this.vertices.put(offset + 3, (mesh.vertices.get(offset + 3) * scaleU) + offsetU);
+            this.vertices.put(offset + 4, (mesh.vertices.get(offset + 4) * scaleV) + offsetV);
+        }
+    }
+
+    /**
+     * Compute vertices bounding sphere.<br>
+     * Sphere center is the center of the vertices bounding box
+     *
+     * @param vertices       Vertices array
+     * @param numberVertices Number of vertices
+     * @return Bounding sphere : center X, Y, Z and radius
+     */
+    private static float[] computeBoundingSphere(final float[] vertices, final int numberVertices)
+    {
+        final float[] sphere = new float[4];
+
+        if (numberVertices <= 0)
+        {
+            return sphere;
+        }
+
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        final int limit = numberVertices * Mesh.VERTEX_SIZE;
+
+        for (int offset = 0; offset < limit; offset += Mesh.VERTEX_SIZE)
+        {
+            minX = Math.min(minX, vertices[offset]);
+            minY = Math.min(minY, vertices[offset + 1]);
+            minZ = Math.min(minZ, vertices[offset + 2]);
+            maxX = Math.max(maxX, vertices[offset]);
+            maxY = Math.max(maxY, vertices[offset + 1]);
+            maxZ = Math.max(maxZ, vertices[offset + 2]);
+        }
+
+        final float centerX = (minX + maxX) / 2f;
+        final float centerY = (minY + maxY) / 2f;
+        final float centerZ = (minZ + maxZ) / 2f;
+        float radius = 0;
+        float x, y, z;
+
+        for (int offset = 0; offset < limit; offset += Mesh.VERTEX_SIZE)
+        {
+            x = vertices[offset] - centerX;
+            y = vertices[offset + 1] - centerY;
+            z = vertices[offset + 2] - centerZ;
+            radius = Math.max(radius, (x * x) + (y * y) + (z * z));
+        }
+
+        sphere[0] = centerX;
+        sphere[1] = centerY;
+        sphere[2] = centerZ;
+        sphere[3] = (float) Math.sqrt(radius);
+
+        return sphere;
+    }
+
+    /**
+     * Create vertices buffer
+     *
+     * @param vertices       Vertices array
+     * @param numberVertices Number of vertices
+     * @return Created buffer
+     */
+    private static FloatBuffer createVertices(final float[] vertices, final int numberVertices)
+    {
+        final FloatBuffer floatBuffer = UtilBuffer.createFloatBuffer(numberVertices * Mesh.VERTEX_SIZE);
+        floatBuffer.put(vertices, 0, numberVertices * Mesh.VERTEX_SIZE);
+        floatBuffer.position(0);
+
+        return floatBuffer;
+    }
+
+    /**
+     * Free video memory of released meshes (See {@link #release()}). Called by render thread after
+     * frame draw
+     *
+     * @param gl Open GL link
+     */
+    static void deleteReleased(final GL10 gl)
+    {
+        final int[] ids  = new int[2];
+        Mesh        mesh = Mesh.RELEASED.poll();
+
+        while (mesh != null)
+        {
+            // Buffers of a previous context are already lost
+            if ((mesh.vertexBufferId >= 0) && (mesh.contextGeneration == GLCapabilities.getContextGeneration()))
+            {
+                ids[0] = mesh.vertexBufferId;
+                ids[1] = mesh.indexBufferId;
+                ((GL11) gl).glDeleteBuffers(2, ids, 0);
+            }
+
+            mesh.vertexBufferId = -1;
+            mesh.indexBufferId = -1;
+            mesh = Mesh.RELEASED.poll();
+        }
+    }
+
+    /**
+     * Send vertices and indexes to video memory.<br>
+     * If it failed, the buffers objects are freed and the mesh will be draw from client memory
+     *
+     * @param gl Open GL link
+     */
+    private void upload(final GL11 gl)
+    {
+        final int[] ids = new int[2];
+        gl.glGenBuffers(2, ids, 0);
+        this.vertexBufferId = ids[0];
+        this.indexBufferId = ids[1];
+        this.contextGeneration = GLCapabilities.getContextGeneration();
+
+        // Clear previous errors
+        while (gl.glGetError() != GL10.GL_NO_ERROR)
+        {
+        }
+
+        this.vertices.position(0);
+        gl.glBindBuffer(GL11.GL_ARRAY_BUFFER, this.vertexBufferId);
+        gl.glBufferData(GL11.GL_ARRAY_BUFFER, this.vertices.capacity() << 2, this.vertices, GL11.GL_STATIC_DRAW);
+        gl.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
+
+        if (this.indexes != null)
+        {
+            final int bytes = this.indexType == GL10.GL_UNSIGNED_SHORT
+                              ? this.count << 1
+                              : this.count << 2;
+            this.indexes.position(0);
+            gl.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, this.indexBufferId);
+            gl.glBufferData(GL11.GL_ELEMENT_ARRAY_BUFFER, bytes, this.indexes, GL11.GL_STATIC_DRAW);
+            gl.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, 0);
+        }
+
+        if (gl.glGetError() != GL10.GL_NO_ERROR)
+        {
+            Debug.printWarning("Can't put mesh in video memory, use client memory");
+
+            gl.glDeleteBuffers(2, ids, 0);
+            this.vertexBufferId = -1;
+            this.indexBufferId = -1;
+            this.uploadFailed = true;
+        }
+    }
+
+    /**
+     * Bind the mesh, to be able draw it with {@link #draw(GL10)}.<br>
+     * Don't forget to call {@link #unbind(GL10)} after draw
+     *
+     * @param gl          Open GL link
+     * @param videoMemory Indicates if try to use video memory
+     */
+    void bind(final GL10 gl, final boolean videoMemory)
+    {
+        if ((videoMemory == true) && (this.uploadFailed == false)
+                && (GLCapabilities.isVertexBufferObjectSupported() == true))
+        {
+            final GL11 gl11 = (GL11) gl;
+
+            if ((this.vertexBufferId < 0) || (this.contextGeneration != GLCapabilities.getContextGeneration()))
+            {
+                this.upload(gl11);
+            }
+
+            if (this.vertexBufferId >= 0)
+            {
+                this.boundInVideoMemory = true;
+                gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, this.vertexBufferId);
+                gl11.glVertexPointer(3, GL10.GL_FLOAT, Mesh.VERTEX_STRIDE, 0);
+                gl11.glTexCoordPointer(2, GL10.GL_FLOAT, Mesh.VERTEX_STRIDE, 12);
+                gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
+
+                if (this.indexes != null)
+                {
+                    gl11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, this.indexBufferId);
+                }
+
+                return;
+            }
+        }
+
+        this.boundInVideoMemory = false;
+        this.vertices.position(0);
+        gl.glVertexPointer(3, GL10.GL_FLOAT, Mesh.VERTEX_STRIDE, this.vertices);
+        this.vertices.position(3);
+        gl.glTexCoordPointer(2, GL10.GL_FLOAT, Mesh.VERTEX_STRIDE, this.vertices);
+        this.vertices.position(0);
+    }
+
+    /**
+     * Copy the bounding sphere
+     *
+     * @param sphere Array where write center X, Y, Z and radius
+     */
+    void copyBoundingSphere(final float[] sphere)
+    {
+        System.arraycopy(this.boundingSphere, 0, sphere, 0, 4);
+    }
+
+    /**
+     * Draw the mesh.<br>
+     * Mesh must be bind with {@link #bind(GL10, boolean)} before
+     *
+     * @param gl Open GL link
+     */
+    void draw(final GL10 gl)
+    {
+        if (this.indexes == null)
+        {
+            gl.glDrawArrays(GL10.GL_TRIANGLES, 0, this.count);
+        }
+        else if (this.boundInVideoMemory == true)
+        {
+            ((GL11) gl).glDrawElements(GL10.GL_TRIANGLES, this.count, this.indexType, 0);
+        }
+        else
+        {
+            this.indexes.position(0);
+            gl.glDrawElements(GL10.GL_TRIANGLES, this.count, this.indexType, this.indexes);
+        }
+    }
+
+    /**
+     * Number of vertices stored in memory
+     *
+     * @return Number of vertices stored
+     */
+    int numberOfVertices()
+    {
+        return this.vertices.capacity() / Mesh.VERTEX_SIZE;
+    }
+
+    /**
+     * Signal the mesh is no more draw, so its video memory can be freed.<br>
+     * Can be called by any thread, video memory is freed by render thread after current frame. If
+     * the mesh is draw again, it is send again to video memory
+     */
+    void release()
+    {
+        Mesh.RELEASED.offer(this);
+    }
+
+    /**
+     * Render the mesh : bind, draw and unbind
+     *
+     * @param gl          Open GL link
+     * @param videoMemory Indicates if try to use video memory
+     */
+    void render(final GL10 gl, final boolean videoMemory)
+    {
+        this.bind(gl, videoMemory);
+        this.draw(gl);
+        this.unbind(gl);
+    }
+
+    /**
+     * Create a copy of the mesh with transformed UVs : U' = U * scaleU + offsetU, V' = V * scaleV +
+     * offsetV
+     *
+     * @param offsetU U offset
+     * @param offsetV V offset
+     * @param scaleU  U scale
+     * @param scaleV  V scale
+     * @return Transformed copy
+     */
+    Mesh transformUV(final float offsetU, final float offsetV, final float scaleU, final float scaleV)
+    {
+        return new Mesh(this, offsetU, offsetV, scaleU, scaleV);
+    }
+
+    /**
+     * Compute UVs bounds
+     *
+     * @param bounds Array where write minimum U, minimum V, maximum U, maximum V
+     */
+    void uvBounds(final float[] bounds)
+    {
+        bounds[0] = bounds[1] = Float.POSITIVE_INFINITY;
+        bounds[2] = bounds[3] = Float.NEGATIVE_INFINITY;
+        final int capacity = this.vertices.capacity();
+        float     u, v;
+
+        for (int offset = 0; offset < capacity; offset += Mesh.VERTEX_SIZE)
+        {
+            u = this.vertices.get(offset + 3);
+            v = this.vertices.get(offset + 4);
+            bounds[0] = Math.min(bounds[0], u);
+            bounds[1] = Math.min(bounds[1], v);
+            bounds[2] = Math.max(bounds[2], u);
+            bounds[3] = Math.max(bounds[3], v);
+        }
+    }
+
+    /**
+     * Unbind the mesh
+     *
+     * @param gl Open GL link
+     */
+    void unbind(final GL10 gl)
+    {
+        if ((this.indexes != null) && (this.boundInVideoMemory == true))
+        {
+            ((GL11) gl).glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, 0);
+        }
+
+        this.boundInVideoMemory = false;
+    }
+}
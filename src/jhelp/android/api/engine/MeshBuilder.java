@@ -0,0 +1,392 @@
+package jhelp.android.api.engine;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import jhelp.android.api.engine.util.ArrayInt;
+import jhelp.android.api.engine.util.GridPointIndex;
+import jhelp.android.api.engine.util.HashLongInt;
+
+/**
+ * Build a mesh for an {@link Object3D} in bulk.<br>
+ * Vertices and triangles can be given by whole arrays or buffers, the builder never takes the
+ * scene critical section, so it can be used in any thread without stall the render.<br>
+ * When mesh is complete, {@link #publish(Object3D)} gives it to the object in one atomic
+ * operation : the object draws its old mesh (or nothing) until the new one is published.<br>
+ * The object becomes compacted, it is no more possible to add triangle with
+ * {@link Object3D#addTriangle(float, float, float, float, float, float, float, float, float,
+ * float, float, float, float, float, float)}.<br>
+ * A builder is not thread safe, use it in one thread at a time
+ *
+ * @author JHelp
+ */
+public class MeshBuilder
+{
+    /**
+     * Triangles indexes
+     */
+    private final ArrayInt indexes;
+    /**
+     * Number of vertices
+     */
+    private int            numberVertices;
+    /**
+     * Vertices pairs (Position index, UV index) already created by
+     * {@link #addTriangle(float, float, float, float, float, float, float, float, float, float,
+     * float, float, float, float, float)}
+     */
+    private HashLongInt    pairs;
+    /**
+     * Positions already used by {@link #addTriangle(float, float, float, float, float, float,
+     * float, float, float, float, float, float, float, float, float)}
+     */
+    private GridPointIndex positions;
+    /**
+     * UVs already used by {@link #addTriangle(float, float, float, float, float, float, float,
+     * float, float, float, float, float, float, float, float)}
+     */
+    private GridPointIndex uvs;
+    /**
+     * Vertices : X, Y, Z, U, V interleaved
+     */
+    private float[]        vertices;
+
+    /**
+     * Create a new instance of MeshBuilder
+     */
+    public MeshBuilder()
+    {
+        this(128);
+    }
+
+    /**
+     * Create a new instance of MeshBuilder
+     *
+     * @param expectedVertices Expected number of vertices
+     */
+    public MeshBuilder(final int expectedVertices)
+    {
+        this.vertices = new float[Math.max(128, expectedVertices) * Mesh.VERTEX_SIZE];
+        this.indexes = new ArrayInt(expectedVertices);
+        this.numberVertices = 0;
+    }
+
+    /**
+     * Check if an index refers to a created vertex
+     *
+     * @param index Index to check
+     */
+    private void checkVertex(final int index)
+    {
+        if ((index < 0) || (index >= this.numberVertices))
+        {
+            throw new IllegalArgumentException(
+                    "index must be in [0, " + this.numberVertices + "[ not " + index);
+        }
+    }
+
+    /**
+     * Expand, if need, vertices capacity
+     *
+     * @param more Number of vertices at least need
+     */
+    private void expand(final int more)
+    {
+        final int need = (this.numberVertices + more) * Mesh.VERTEX_SIZE;
+
+        if (need > this.vertices.length)
+        {
+            final float[] temp = new float[need + (need >> 1)];
+            System.arraycopy(this.vertices, 0, temp, 0, this.numberVertices * Mesh.VERTEX_SIZE);
+            this.vertices = temp;
+        }
+    }
+
+    /**
+     * Obtain vertex for a position and UV, create it if not already exists
+     *
+     * @param x X
+     * @param y Y
+     * @param z Z
+     * @param u U
+     * @param v V
+     * @return Vertex index
+     */
+    private int obtainVertex(final float x, final float y, final float z, final float u, final float v)
+    {
+        if (this.pairs == null)
+        {
+            this.pairs = new HashLongInt();
+            this.positions = new GridPointIndex(3);
+            this.uvs = new GridPointIndex(2);
+        }
+
+        final long key = (((long) this.positions.store(x, y, z)) << 32)
+                | (this.uvs.store(u, v, 0) & 0xFFFFFFFFL);
+        int vertex = this.pairs.get(key, -1);
+
+        if (vertex < 0)
+        {
+            vertex = this.addVertex(x, y, z, u, v);
+            this.pairs.put(key, vertex);
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Add a triangle.<br>
+     * Vertices with same position and UV (With epsilon precision) than a vertex previously added
+     * by this method are shared
+     *
+     * @param x1 First point X
+     * @param y1 First point Y
+     * @param z1 First point Z
+     * @param u1 First point U
+     * @param v1 First point V
+     * @param x2 Second point X
+     * @param y2 Second point Y
+     * @param z2 Second point Z
+     * @param u2 Second point U
+     * @param v2 Second point V
+     * @param x3 Third point X
+     * @param y3 Third point Y
+     * @param z3 Third point Z
+     * @param u3 Third point U
+     * @param v3 Third point V
+     */
+    public void addTriangle(final float x1, final float y1, final float z1,//
+                            final float u1, final float v1,//
+                            final float x2, final float y2, final float z2,//
+                            final float u2, final float v2,//
+                            final float x3, final float y3, final float z3,//
+                            final float u3, final float v3)
+    {
+        this.indexes.add(this.obtainVertex(x1, y1, z1, u1, v1));
+        this.indexes.add(this.obtainVertex(x2, y2, z2, u2, v2));
+        this.indexes.add(this.obtainVertex(x3, y3, z3, u3, v3));
+    }
+
+    /**
+     * Add a triangle from vertices indexes
+     *
+     * @param vertex1 First vertex index
+     * @param vertex2 Second vertex index
+     * @param vertex3 Third vertex index
+     */
+    public void addTriangle(final int vertex1, final int vertex2, final int vertex3)
+    {
+        this.checkVertex(vertex1);
+        this.checkVertex(vertex2);
+        this.checkVertex(vertex3);
+
+        this.indexes.add(vertex1);
+        this.indexes.add(vertex2);
+        this.indexes.add(vertex3);
+    }
+
+    /**
+     * Add several triangles from vertices indexes
+     *
+     * @param base    Index added to each index, typically the value returned by
+     *                {@link #addVertices(float[], float[])}
+     * @param indexes Vertices indexes, each 3 indexes describe a triangle
+     */
+    public void addTriangles(final int base, final int[] indexes)
+    {
+        if (indexes == null)
+        {
+            throw new NullPointerException("indexes musn't be null");
+        }
+
+        if ((indexes.length % 3) != 0)
+        {
+            throw new IllegalArgumentException("indexes length must be a multiple of 3, not " + indexes.length);
+        }
+
+        int index;
+
+        for (final int relative : indexes)
+        {
+            index = base + relative;
+            this.checkVertex(index);
+            this.indexes.add(index);
+        }
+    }
+
+    /**
+     * Add several triangles from vertices indexes.<br>
+     * Indexes are read from buffer position to its limit
+     *
+     * @param base    Index added to each index, typically the value returned by
+     *                {@link #addVertices(FloatBuffer, FloatBuffer)}
+     * @param indexes Vertices indexes, each 3 indexes describe a triangle
+     */
+    public void addTriangles(final int base, final IntBuffer indexes)
+    {
+        if (indexes == null)
+        {
+            throw new NullPointerException("indexes musn't be null");
+        }
+
+        final int[] array = new int[indexes.remaining()];
+        indexes.duplicate()
+               .get(array);
+        this.addTriangles(base, array);
+    }
+
+    /**
+     * Add a vertex
+     *
+     * @param x X
+     * @param y Y
+     * @param z Z
+     * @param u U
+     * @param v V
+     * @return Vertex index
+     */
+    public int addVertex(final float x, final float y, final float z, final float u, final float v)
+    {
+        this.expand(1);
+
+        int offset = this.numberVertices * Mesh.VERTEX_SIZE;
+        this.vertices[offset++] = x;
+        this.vertices[offset++] = y;
+        this.vertices[offset++] = z;
+        this.vertices[offset++] = u;
+        this.vertices[offset] = v;
+
+        return this.numberVertices++;
+    }
+
+    /**
+     * Add several vertices
+     *
+     * @param positions Positions : X, Y, Z for each vertex
+     * @param uvs       UVs : U, V for each vertex. If {@code null} all UVs are (0, 0)
+     * @return Index of the first added vertex
+     */
+    public int addVertices(final float[] positions, final float[] uvs)
+    {
+        if (positions == null)
+        {
+            throw new NullPointerException("positions musn't be null");
+        }
+
+        final int number = positions.length / 3;
+
+        if ((uvs != null) && (uvs.length < (number << 1)))
+        {
+            throw new IllegalArgumentException(
+                    "Need " + (number << 1) + " UV coordinates, but only " + uvs.length + " given");
+        }
+
+        this.expand(number);
+
+        final int first  = this.numberVertices;
+        int       offset = first * Mesh.VERTEX_SIZE;
+
+        for (int vertex = 0, position = 0, uv = 0; vertex < number; vertex++, position += 3, uv += 2)
+        {
+            System.arraycopy(positions, position, this.vertices, offset, 3);
+
+            if (uvs != null)
+            {
+                System.arraycopy(uvs, uv, this.vertices, offset + 3, 2);
+            }
+            else
+            {
+                this.vertices[offset + 3] = 0;
+                this.vertices[offset + 4] = 0;
+            }
+
+            offset += Mesh.VERTEX_SIZE;
+        }
+
+        this.numberVertices += number;
+
+        return first;
+    }
+
+    /**
+     * Add several vertices.<br>
+     * Coordinates are read from buffers position to their limit
+     *
+     * @param positions Positions : X, Y, Z for each vertex
+     * @param uvs       UVs : U, V for each vertex. If {@code null} all UVs are (0, 0)
+     * @return Index of the first added vertex
+     */
+    public int addVertices(final FloatBuffer positions, final FloatBuffer uvs)
+    {
+        if (positions == null)
+        {
+            throw new NullPointerException("positions musn't be null");
+        }
+
+        final float[] arrayPositions = new float[positions.remaining()];
+        positions.duplicate()
+                 .get(arrayPositions);
+        float[] arrayUVs = null;
+
+        if (uvs != null)
+        {
+            arrayUVs = new float[uvs.remaining()];
+            uvs.duplicate()
+               .get(arrayUVs);
+        }
+
+        return this.addVertices(arrayPositions, arrayUVs);
+    }
+
+    /**
+     * Remove all vertices and triangles, to build a new mesh
+     */
+    public void clear()
+    {
+        this.numberVertices = 0;
+        this.indexes.clear();
+        this.pairs = null;
+        this.positions = null;
+        this.uvs = null;
+    }
+
+    /**
+     * Number of triangles
+     *
+     * @return Number of triangles
+     */
+    public int getNumberOfTriangles()
+    {
+        return this.indexes.getSize() / 3;
+    }
+
+    /**
+     * Number of vertices
+     *
+     * @return Number of vertices
+     */
+    public int getNumberOfVertices()
+    {
+        return this.numberVertices;
+    }
+
+    /**
+     * Build the mesh and give it to an object.<br>
+     * The mesh is build in the current thread, the object receives it in one atomic operation.
+     * The builder can be reused after that, it keeps its content
+     *
+     * @param object3D Object that will draw the mesh
+     */
+    public void publish(final Object3D object3D)
+    {
+        if (object3D == null)
+        {
+            throw new NullPointerException("object3D musn't be null");
+        }
+
+        final int numberIndexes = this.indexes.getSize();
+
+        object3D.publishMesh(new Mesh(this.vertices, this.numberVertices, this.indexes.toArray(), numberIndexes),
+                             numberIndexes / 3);
+    }
+}
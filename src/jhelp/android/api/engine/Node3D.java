@@ -1,20 +1,94 @@
 package jhelp.android.api.engine;
 
-import java.util.ArrayList;
-
 import javax.microedition.khronos.opengles.GL10;
 
+import jhelp.android.api.engine.util.UtilMatrix;
+
 /**
- * Represents a 3D node
+ * Represents a 3D node.<br>
+ * Children list is copy on write : render reads an immutable snapshot without lock, while
+ * modifications create a new list.<br>
+ * Each node knows a bounding sphere of itself and all its descendants. It is computed again only
+ * when a geometry, a position or the children list changed in the sub-tree. When rendering, the
+ * sub-tree is skipped if its sphere is outside the view frustum. Visible nodes are not draw
+ * directly, they add their draws to a render queue, sorted to minimize Open GL state changes.<br>
+ * Each node also keeps its world matrix (Transformation from node space to scene space). It is
+ * computed again only if its position or one of its ancestors positions changed, so static
+ * sub-trees cost no transformation computing. The matrix is given to Open GL as is, and can be
+ * used for picking (See {@link #copyWorldMatrix(float[])}).<br>
+ * A node that draws something in {@link #renderSpecific(GL10)} is never culled, unless it describes
+ * what it draws in {@link #geometryBoundingSphere(float[])}
  *
  * @author JHelp
  */
 public class Node3D
 {
     /**
-     * Node children
+     * Empty children list
+     */
+    private static final Node3D[] NO_CHILDREN    = new Node3D[0];
+    /**
+     * Bounding state : node and its descendants draw nothing
+     */
+    protected static final int    BOUNDS_EMPTY   = 0;
+    /**
+     * Bounding state : bounding sphere is known
      */
-    private final ArrayList<Node3D> children;
+    protected static final int    BOUNDS_KNOWN   = 1;
+    /**
+     * Bounding state : bounding sphere is unknown, so node is never culled
+     */
+    protected static final int    BOUNDS_UNKNOWN = 2;
+    /**
+     * Bounding sphere of the node and its descendants in node space : center X, Y, Z and radius
+     */
+    private final float[]         boundingSphere;
+    /**
+     * Bounding state, one of {@link #BOUNDS_EMPTY}, {@link #BOUNDS_KNOWN} or
+     * {@link #BOUNDS_UNKNOWN}
+     */
+    private int                   boundingState;
+    /**
+     * Result of the bounds update of the last frame
+     */
+    private boolean               boundsChanged;
+    /**
+     * Children list used for compute the bounding sphere
+     */
+    private Node3D[]              boundsChildren;
+    /**
+     * Last frame where bounds were updated
+     */
+    private int                   boundsFrame;
+    /**
+     * Node children (Never modified, replaced on change)
+     */
+    private volatile Node3D[]     children;
+    /**
+     * Geometry bounding sphere used for compute the bounding sphere
+     */
+    private final float[]         geometrySphere;
+    /**
+     * Geometry bounding state used for compute the bounding sphere
+     */
+    private int                   geometryState;
+    /**
+     * World matrix used when node is render under an other parent than the one used for compute
+     * {@link #worldMatrix}
+     */
+    private final float[]         otherWorldMatrix;
+    /**
+     * Temporary sphere used for computing
+     */
+    private final float[]         temporarySphere;
+    /**
+     * Matrix that transforms node space to scene space
+     */
+    private final float[]         worldMatrix;
+    /**
+     * Parent world matrix used for compute {@link #worldMatrix}
+     */
+    private float[]               worldParent;
     /**
      * Node position (relative to parent)
      */
@@ -25,25 +99,146 @@ public class Node3D
      */
     public Node3D()
     {
-        this.children = new ArrayList<Node3D>();
+        this.children = Node3D.NO_CHILDREN;
+        this.boundingSphere = new float[4];
+        this.geometrySphere = new float[4];
+        this.temporarySphere = new float[4];
+        this.worldMatrix = new float[16];
+        this.otherWorldMatrix = new float[16];
+        UtilMatrix.identity(this.worldMatrix);
+        this.boundingState = Node3D.BOUNDS_UNKNOWN;
+        this.geometryState = Node3D.BOUNDS_UNKNOWN;
+        this.boundsFrame = -1;
     }
 
     /**
-     * Destroy the node
+     * Compute the bounding sphere from geometry and children
+     *
+     * @param children Children list
      */
-    void destroy()
+    private void computeBoundingSphere(final Node3D[] children)
     {
-        synchronized (this.children)
+        if (this.geometryState == Node3D.BOUNDS_UNKNOWN)
+        {
+            this.boundingState = Node3D.BOUNDS_UNKNOWN;
+            return;
+        }
+
+        boolean empty = this.geometryState == Node3D.BOUNDS_EMPTY;
+
+        if (empty == false)
+        {
+            this.mergeSphere(true, this.geometrySphere);
+        }
+
+        final float[] sphere = this.temporarySphere;
+        float[]       matrix;
+
+        for (final Node3D child : children)
         {
-            for (final Node3D node : this.children)
+            if (child.boundingState == Node3D.BOUNDS_UNKNOWN)
+            {
+                this.boundingState = Node3D.BOUNDS_UNKNOWN;
+                return;
+            }
+
+            if (child.boundingState == Node3D.BOUNDS_KNOWN)
             {
-                node.destroy();
+                matrix = child.position.getMatrix();
+                UtilMatrix.transform(matrix, child.boundingSphere[0], child.boundingSphere[1], child.boundingSphere[2],
+                                     sphere, 0);
+                sphere[3] = child.boundingSphere[3] * UtilMatrix.maximumScale(matrix);
+                this.mergeSphere(empty, sphere);
+                empty = false;
             }
+        }
 
-            this.children.clear();
+        this.boundingState = empty == true
+                             ? Node3D.BOUNDS_EMPTY
+                             : Node3D.BOUNDS_KNOWN;
+    }
+
+    /**
+     * Add a sphere to the bounding sphere currently computing
+     *
+     * @param empty  Indicates if bounding sphere is currently empty
+     * @param sphere Sphere to add
+     */
+    private void mergeSphere(final boolean empty, final float[] sphere)
+    {
+        final float[] bounding = this.boundingSphere;
+
+        if (empty == true)
+        {
+            System.arraycopy(sphere, 0, bounding, 0, 4);
+            return;
+        }
+
+        final float x        = sphere[0] - bounding[0];
+        final float y        = sphere[1] - bounding[1];
+        final float z        = sphere[2] - bounding[2];
+        final float distance = (float) Math.sqrt((x * x) + (y * y) + (z * z));
+
+        if ((distance + sphere[3]) <= bounding[3])
+        {
+            return;
+        }
+
+        if ((distance + bounding[3]) <= sphere[3])
+        {
+            System.arraycopy(sphere, 0, bounding, 0, 4);
+            return;
         }
 
-        this.position = null;
+        final float radius = (distance + bounding[3] + sphere[3]) / 2f;
+        final float factor = (radius - bounding[3]) / distance;
+        bounding[0] += x * factor;
+        bounding[1] += y * factor;
+        bounding[2] += z * factor;
+        bounding[3] = radius;
+    }
+
+    /**
+     * Destroy the node
+     */
+    void destroy()
+    {
+        final Node3D[] children;
+
+        synchronized (this)
+        {
+            children = this.children;
+            this.children = Node3D.NO_CHILDREN;
+        }
+
+        for (final Node3D node : children)
+        {
+            node.destroy();
+        }
+    }
+
+    /**
+     * Add the node draws to the render queue.<br>
+     * By default the node is draw with {@link #renderSpecific(GL10)}
+     *
+     * @param renderQueue Render queue to fill
+     * @param world       Node world matrix
+     * @param sphere      Geometry bounding sphere (Meaningful only if known)
+     */
+    void enqueue(final RenderQueue renderQueue, final float[] world, final float[] sphere)
+    {
+        renderQueue.addCustom(this, world);
+    }
+
+    /**
+     * Node children.<br>
+     * The array is a snapshot, never modified, don't modify it
+     *
+     * @return Node children
+     */
+    Node3D[] getChildren()
+    {
+        return this.children;
     }
 
     /**
@@ -63,6 +258,69 @@ public class Node3D
         super.finalize();
     }
 
+    /**
+     * Bounding sphere, in node space, of what {@link #renderSpecific(GL10)} draws.<br>
+     * A plain node draws nothing. By default, for a sub-class, what is draw is not known : the node is
+     * draw with {@link #renderSpecific(GL10)} and never culled. Override it to enable culling, or to
+     * say the node draws nothing
+     *
+     * @param sphere Array where write sphere center X, Y, Z and radius
+     * @return {@link #BOUNDS_EMPTY} if nothing is draw, {@link #BOUNDS_KNOWN} if sphere is filled
+     * or {@link #BOUNDS_UNKNOWN} if what is draw is not known yet
+     */
+    protected int geometryBoundingSphere(final float[] sphere)
+    {
+        if (this.getClass() == Node3D.class)
+        {
+            // Node3D.renderSpecific draws nothing
+            return Node3D.BOUNDS_EMPTY;
+        }
+
+        return Node3D.BOUNDS_UNKNOWN;
+    }
+
+    /**
+     * Add the node, and its descendants, draws to the render queue, skipping nodes outside the
+     * frustum.<br>
+     * Nodes must be updated (See {@link #update(int, float[], boolean)}) before
+     *
+     * @param renderQueue Render queue to fill
+     * @param frustum     View frustum, {@code null} for draw all nodes
+     * @param parentWorld Parent world matrix
+     */
+    final void collect(final RenderQueue renderQueue, final Frustum frustum, final float[] parentWorld)
+    {
+        if (this.boundingState == Node3D.BOUNDS_EMPTY)
+        {
+            return;
+        }
+
+        float[] world = this.worldMatrix;
+
+        if (parentWorld != this.worldParent)
+        {
+            // Node is also child of an other parent
+            world = this.otherWorldMatrix;
+            UtilMatrix.multiply(world, parentWorld, this.position.getMatrix());
+        }
+
+        if ((frustum != null) && (this.boundingState == Node3D.BOUNDS_KNOWN)
+                && (frustum.isVisible(world, this.boundingSphere) == false))
+        {
+            return;
+        }
+
+        if (this.geometryState != Node3D.BOUNDS_EMPTY)
+        {
+            this.enqueue(renderQueue, world, this.geometrySphere);
+        }
+
+        for (final Node3D node3d : this.children)
+        {
+            node3d.collect(renderQueue, frustum, world);
+        }
+    }
+
     /**
      * Render specific in Open GL
      *
@@ -72,6 +330,69 @@ public class Node3D
     {
     }
 
+    /**
+     * Update, if need, the node world matrix and bounding sphere, and the ones of its
+     * descendants.<br>
+     * A node can be in several parents, only the first one met in the frame is used for the world
+     * matrix
+     *
+     * @param frame       Frame number
+     * @param parentWorld Parent world matrix
+     * @param parentMoved Indicates if parent world matrix changed since last update
+     * @return {@code true} if the bounding sphere, in parent space, changed
+     */
+    final boolean update(final int frame, final float[] parentWorld, final boolean parentMoved)
+    {
+        if (this.boundsFrame == frame)
+        {
+            return this.boundsChanged;
+        }
+
+        this.boundsFrame = frame;
+        final boolean moved = this.position.refreshMatrix();
+        final boolean worldMoved = moved || parentMoved || (this.worldParent != parentWorld);
+
+        if (worldMoved == true)
+        {
+            this.worldParent = parentWorld;
+            UtilMatrix.multiply(this.worldMatrix, parentWorld, this.position.getMatrix());
+        }
+
+        final Node3D[] children = this.children;
+        boolean        changed  = this.boundsChildren != children;
+        this.boundsChildren = children;
+
+        final float[] sphere = this.temporarySphere;
+        final int     state  = this.geometryBoundingSphere(sphere);
+
+        if ((state != this.geometryState)
+                || ((state == Node3D.BOUNDS_KNOWN) && ((sphere[0] != this.geometrySphere[0])
+                || (sphere[1] != this.geometrySphere[1]) || (sphere[2] != this.geometrySphere[2])
+                || (sphere[3] != this.geometrySphere[3]))))
+        {
+            this.geometryState = state;
+            System.arraycopy(sphere, 0, this.geometrySphere, 0, 4);
+            changed = true;
+        }
+
+        for (final Node3D child : children)
+        {
+            if (child.update(frame, this.worldMatrix, worldMoved) == true)
+            {
+                changed = true;
+            }
+        }
+
+        if (changed == true)
+        {
+            this.computeBoundingSphere(children);
+        }
+
+        this.boundsChanged = moved || changed;
+
+        return this.boundsChanged;
+    }
+
     /**
      * Add a child
      *
@@ -79,31 +400,63 @@ public class Node3D
      */
     public final void addChild(final Node3D node)
     {
-        synchronized (this.children)
+        if (node == null)
+        {
+            throw new NullPointerException("node musn't be null");
+        }
+
+        synchronized (this)
+        {
+            final int      length   = this.children.length;
+            final Node3D[] children = new Node3D[length + 1];
+            System.arraycopy(this.children, 0, children, 0, length);
+            children[length] = node;
+            this.children = children;
+        }
+
+        Scene3D.SCENE3D.requestRender();
+    }
+
+    /**
+     * Copy the world matrix : the transformation from node space to scene space, as it was at
+     * last frame.<br>
+     * Matrix is 16 floats in Open GL order
+     *
+     * @param matrix Array where write the matrix
+     */
+    public final void copyWorldMatrix(final float[] matrix)
+    {
+        if (matrix == null)
+        {
+            throw new NullPointerException("matrix musn't be null");
+        }
+
+        if (matrix.length < 16)
         {
-            this.children.add(node);
+            throw new IllegalArgumentException("matrix must have at least 16 elements, not " + matrix.length);
         }
+
+        UtilMatrix.copy(matrix, this.worldMatrix);
     }
 
     /**
-     * Render in Open GL
+     * Render in Open GL, without frustum culling
      *
      * @param gl Open GL link
      */
     public final void render(final GL10 gl)
     {
+        this.position.refreshMatrix();
+
         gl.glPushMatrix();
 
-        this.position.apply(gl);
+        gl.glMultMatrixf(this.position.getMatrix(), 0);
 
         this.renderSpecific(gl);
 
-        synchronized (this.children)
+        for (final Node3D node3d : this.children)
         {
-            for (final Node3D node3d : this.children)
-            {
-                node3d.render(gl);
-            }
+            node3d.render(gl);
         }
 
         gl.glPopMatrix();
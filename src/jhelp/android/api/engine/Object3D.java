@@ -4,19 +4,19 @@ import android.opengl.GLES10;
 import android.opengl.GLES20;
 import android.opengl.GLES30;
 
-import java.nio.FloatBuffer;
-import java.util.concurrent.TimeUnit;
-
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11;
 
 import jhelp.android.api.engine.util.ArrayInt;
 import jhelp.android.api.engine.util.Debug;
-import jhelp.android.api.engine.util.UtilBuffer;
-import jhelp.android.api.engine.util.Utilities;
+import jhelp.android.api.engine.util.HashLongInt;
 
 /**
- * Represents a 3D object
+ * Represents a 3D object.<br>
+ * Triangles share their vertices : the object is draw with an index buffer in one call.<br>
+ * Once compacted (See {@link #compact()}), the object vertices and indexes are send one time to
+ * video memory (If the device supports vertex buffer objects).<br>
+ * To create big objects, prefer {@link MeshBuilder} that build the mesh without stall the render
  *
  * @author JHelp
  */
@@ -29,19 +29,32 @@ public class Object3D
      * {@link #addTriangle(float, float, float, float, float, float, float, float, float, float,
      * float, float, float, float, float)}
      */
-    private boolean     canChange;
+    private volatile boolean canChange;
+    /**
+     * Indicates if triangles changed since last mesh build
+     */
+    private volatile boolean dirty;
     /**
      * Indicates if object is on construction
      */
-    private boolean     onConstruction;
+    private volatile boolean onConstruction;
+    /**
+     * Mesh to draw, {@code null} if need to be build
+     */
+    private volatile Mesh    mesh;
+    /**
+     * Number of clones created of the object. A clone is never forgotten
+     */
+    private int              numberOfClones;
     /**
-     * Object points
+     * UV transformation applied when mesh is build : offset U, offset V, scale U, scale V.
+     * {@code null} for no transformation
      */
-    private FloatBuffer points;
+    private float[]          uvTransform;
     /**
-     * Object UVs
+     * Incremented each time UV transformation changes
      */
-    private FloatBuffer uvs;
+    private int              uvVersion;
     /**
      * Points indexes
      */
@@ -69,6 +82,7 @@ public class Object3D
     public Object3D()
     {
         this.onConstruction = false;
+        this.dirty = false;
         this.canChange = true;
     }
 
@@ -77,40 +91,308 @@ public class Object3D
      */
     private void internalRefresh()
     {
-        Utilities.sleep(8);
+        this.dirty = true;
+    }
 
-        Scene3D.enterCriticalSection();
+    /**
+     * Mesh to draw. Launch, if need, the mesh build
+     *
+     * @return Mesh to draw or {@code null} if not build yet
+     */
+    private Mesh prepareMesh()
+    {
+        final Mesh mesh = this.mesh;
 
-        this.points = null;
-        this.uvs = null;
+        if (((mesh == null) || (this.dirty == true)) && (this.onConstruction == false))
+        {
+            final ArrayInt indexPoint = this.indexPoint;
 
-        this.onConstruction = false;
+            if ((indexPoint != null) && (indexPoint.getSize() > 0))
+            {
+                this.onConstruction = true;
+
+                Scene3D.SCENE3D.getJobSystem().submit(JobPriority.FRAME_PREPARATION, this);
+            }
+        }
 
-        Scene3D.exitCriticalSection();
+        return mesh;
     }
 
     /**
-     * Render the object in Open GL <br>
+     * Destroy the object : free the mesh video memory <br>
      * <br>
      * <b>Parent documentation:</b><br>
      * {@inheritDoc}
      *
-     * @param gl Open GL link
-     * @see jhelp.android.api.engine.Node3D#renderSpecific(GL10)
+     * @see jhelp.android.api.engine.Node3D#destroy()
      */
     @Override
-    protected final void renderSpecific(final GL10 gl)
+    void destroy()
+    {
+        final Mesh mesh = this.mesh;
+
+        if (mesh != null)
+        {
+            mesh.release();
+        }
+
+        super.destroy();
+    }
+
+    /**
+     * Add the object mesh draw to the render queue <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param renderQueue Render queue to fill
+     * @param world       Node world matrix
+     * @param sphere      Geometry bounding sphere
+     * @see jhelp.android.api.engine.Node3D#enqueue(RenderQueue, float[], float[])
+     */
+    @Override
+    final void enqueue(final RenderQueue renderQueue, final float[] world, final float[] sphere)
     {
-        if (this.points == null)
+        this.enqueueMesh(renderQueue, world, this.material, sphere);
+    }
+
+    /**
+     * Add the object mesh draw to the render queue
+     *
+     * @param renderQueue Render queue to fill
+     * @param world       World matrix
+     * @param material    Material to use
+     * @param sphere      Geometry bounding sphere
+     */
+    void enqueueMesh(final RenderQueue renderQueue, final float[] world, final Material material, final float[] sphere)
+    {
+        final Mesh mesh = this.prepareMesh();
+
+        if (mesh != null)
         {
-            if ((this.indexPoint == null) || (this.indexPoint.getSize() == 0) || (this.onConstruction == true))
+            renderQueue.addMesh(world, mesh, material, this.doubleFace, this.canChange == false, sphere);
+        }
+    }
+
+    /**
+     * Transform the object UVs : U' = U * scaleU + offsetU, V' = V * scaleV + offsetV.<br>
+     * Used to move a texture inside an atlas (See {@link TextureAtlas}). Triangles added after are
+     * also transformed
+     *
+     * @param offsetU U offset
+     * @param offsetV V offset
+     * @param scaleU  U scale
+     * @param scaleV  V scale
+     */
+    void transformUV(final float offsetU, final float offsetV, final float scaleU, final float scaleV)
+    {
+        synchronized (this)
+        {
+            if (this.uvTransform == null)
             {
-                return;
+                this.uvTransform = new float[]{offsetU, offsetV, scaleU, scaleV};
+            }
+            else
+            {
+                this.uvTransform[0] = (this.uvTransform[0] * scaleU) + offsetU;
+                this.uvTransform[1] = (this.uvTransform[1] * scaleV) + offsetV;
+                this.uvTransform[2] *= scaleU;
+                this.uvTransform[3] *= scaleV;
             }
-            this.onConstruction = true;
 
-            Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this, 16, TimeUnit.MILLISECONDS);
+            this.uvVersion++;
+            final Mesh mesh = this.mesh;
+
+            if (mesh != null)
+            {
+                // Drawn UVs follow the texture change while the mesh is build again
+                this.mesh = mesh.transformUV(offsetU, offsetV, scaleU, scaleV);
+                mesh.release();
+            }
+
+            if (this.indexUV != null)
+            {
+                // Mesh will be build again with the transformation
+                this.dirty = true;
+            }
+        }
+
+        Scene3D.SCENE3D.requestRender();
+    }
+
+    /**
+     * Register a new clone of the object
+     */
+    void addClone()
+    {
+        synchronized (this)
+        {
+            this.numberOfClones++;
+        }
+    }
+
+    /**
+     * Number of clones created of the object
+     *
+     * @return Number of clones
+     */
+    int getNumberOfClones()
+    {
+        synchronized (this)
+        {
+            return this.numberOfClones;
+        }
+    }
+
+    /**
+     * Compute UVs bounds, transformation included
+     *
+     * @param bounds Array where write minimum U, minimum V, maximum U, maximum V
+     * @return {@code true} if bounds computed. {@code false} if object have no UV
+     */
+    boolean uvBounds(final float[] bounds)
+    {
+        synchronized (this)
+        {
+            if ((this.indexUV != null) && (this.indexUV.getSize() > 0))
+            {
+                final float[] uv   = new float[2];
+                final int     size = this.indexUV.getSize();
+                bounds[0] = bounds[1] = Float.POSITIVE_INFINITY;
+                bounds[2] = bounds[3] = Float.NEGATIVE_INFINITY;
+
+                for (int i = 0; i < size; i++)
+                {
+                    PoolPoints.copyPoint2D(this.indexUV.getInteger(i), uv, 0);
+
+                    if (this.uvTransform != null)
+                    {
+                        uv[0] = (uv[0] * this.uvTransform[2]) + this.uvTransform[0];
+                        uv[1] = (uv[1] * this.uvTransform[3]) + this.uvTransform[1];
+                    }
+
+                    bounds[0] = Math.min(bounds[0], uv[0]);
+                    bounds[1] = Math.min(bounds[1], uv[1]);
+                    bounds[2] = Math.max(bounds[2], uv[0]);
+                    bounds[3] = Math.max(bounds[3], uv[1]);
+                }
+
+                return true;
+            }
+
+            final Mesh mesh = this.mesh;
+
+            if ((this.indexUV == null) && (mesh != null))
+            {
+                mesh.uvBounds(bounds);
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Publish a mesh build outside the object (See {@link MeshBuilder}).<br>
+     * The object becomes compacted
+     *
+     * @param mesh              Mesh to draw
+     * @param numberOfTriangles Number of triangles in the mesh
+     */
+    void publishMesh(final Mesh mesh, final int numberOfTriangles)
+    {
+        synchronized (this)
+        {
+            final Mesh previous = this.mesh;
 
+            if (previous != null)
+            {
+                previous.release();
+            }
+
+            this.canChange = false;
+            this.dirty = false;
+            this.numberOfTriangles = numberOfTriangles;
+
+            if (this.indexPoint != null)
+            {
+                this.indexPoint.destroy();
+                this.indexPoint = null;
+            }
+
+            if (this.indexUV != null)
+            {
+                this.indexUV.destroy();
+                this.indexUV = null;
+            }
+
+            if (this.uvTransform != null)
+            {
+                this.mesh = mesh.transformUV(this.uvTransform[0], this.uvTransform[1], this.uvTransform[2],
+                                             this.uvTransform[3]);
+            }
+            else
+            {
+                this.mesh = mesh;
+            }
+        }
+
+        Scene3D.SCENE3D.requestRender();
+    }
+
+    /**
+     * Bounding sphere of the mesh.<br>
+     * While the mesh is not build, or need to be build again, the sphere is unknown, so the object
+     * is render and the build is launched <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param sphere Array where write sphere center X, Y, Z and radius
+     * @return Bounding state
+     * @see jhelp.android.api.engine.Node3D#geometryBoundingSphere(float[])
+     */
+    @Override
+    protected final int geometryBoundingSphere(final float[] sphere)
+    {
+        final Mesh mesh = this.mesh;
+
+        if ((mesh != null) && ((this.dirty == false) || (this.onConstruction == true)))
+        {
+            mesh.copyBoundingSphere(sphere);
+
+            return Node3D.BOUNDS_KNOWN;
+        }
+
+        final ArrayInt indexPoint = this.indexPoint;
+
+        if ((indexPoint != null) && (indexPoint.getSize() > 0))
+        {
+            return Node3D.BOUNDS_UNKNOWN;
+        }
+
+        if (mesh != null)
+        {
+            mesh.copyBoundingSphere(sphere);
+
+            return Node3D.BOUNDS_KNOWN;
+        }
+
+        return Node3D.BOUNDS_EMPTY;
+    }
+
+    /**
+     * Render the object mesh in Open GL with a material
+     *
+     * @param gl       Open GL link
+     * @param material Material to use
+     */
+    final void renderMesh(final GL10 gl, final Material material)
+    {
+        final Mesh mesh = this.prepareMesh();
+
+        if (mesh == null)
+        {
             return;
         }
 
@@ -123,15 +405,24 @@ public class Object3D
             gl.glEnable(GL10.GL_CULL_FACE);
         }
 
-        this.material.render(gl);
+        material.render(gl);
 
-        gl.glVertexPointer(3, GL10.GL_FLOAT, 0, this.points);
-        gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, this.uvs);
+        mesh.render(gl, this.canChange == false);
+    }
 
-        for (int i = 0, offset = 0; i < this.numberOfTriangles; i++, offset += 3)
-        {
-            gl.glDrawArrays(GL10.GL_TRIANGLES, offset, 3);
-        }
+    /**
+     * Render the object in Open GL <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param gl Open GL link
+     * @see jhelp.android.api.engine.Node3D#renderSpecific(GL10)
+     */
+    @Override
+    protected final void renderSpecific(final GL10 gl)
+    {
+        this.renderMesh(gl, this.material);
     }
 
     /**
@@ -160,28 +451,25 @@ public class Object3D
                                   final float x3, final float y3, final float z3,//
                                   final float u3, final float v3)
     {
-        if (this.canChange == false)
+        synchronized (this)
         {
-            return;
-        }
-
-        Scene3D.enterCriticalSection();
-
-        this.points = null;
-        this.uvs = null;
-
-        this.indexPoint.add(PoolPoints.storePoint3D(x1, y1, z1));
-        this.indexUV.add(PoolPoints.storePoint2D(u1, v1));
+            if (this.canChange == false)
+            {
+                return;
+            }
 
-        this.indexPoint.add(PoolPoints.storePoint3D(x2, y2, z2));
-        this.indexUV.add(PoolPoints.storePoint2D(u2, v2));
+            this.indexPoint.add(PoolPoints.storePoint3D(x1, y1, z1));
+            this.indexUV.add(PoolPoints.storePoint2D(u1, v1));
 
-        this.indexPoint.add(PoolPoints.storePoint3D(x3, y3, z3));
-        this.indexUV.add(PoolPoints.storePoint2D(u3, v3));
+            this.indexPoint.add(PoolPoints.storePoint3D(x2, y2, z2));
+            this.indexUV.add(PoolPoints.storePoint2D(u2, v2));
 
-        this.numberOfTriangles++;
+            this.indexPoint.add(PoolPoints.storePoint3D(x3, y3, z3));
+            this.indexUV.add(PoolPoints.storePoint2D(u3, v3));
 
-        Scene3D.exitCriticalSection();
+            this.numberOfTriangles++;
+            this.dirty = true;
+        }
     }
 
     /**
@@ -190,12 +478,15 @@ public class Object3D
      */
     public final void compact()
     {
-        if (this.canChange == false)
+        synchronized (this)
         {
-            return;
-        }
+            if (this.canChange == false)
+            {
+                return;
+            }
 
-        this.canChange = false;
+            this.canChange = false;
+        }
 
         Debug.printVerbose("COMPACT");
 
@@ -225,53 +516,107 @@ public class Object3D
      */
     public void run()
     {
-        Scene3D.enterCriticalSection();
+        final int[]   points;
+        final int[]   uvs;
+        final int     numberIndexes;
+        final float[] uvTransform;
+        final int     uvVersion;
+
+        synchronized (this)
+        {
+            this.dirty = false;
+
+            if (this.indexPoint == null)
+            {
+                this.onConstruction = false;
+
+                return;
+            }
 
-        Point3D point3d;
-        Point2D point2d;
+            points = this.indexPoint.toArray();
+            uvs = this.indexUV.toArray();
+            numberIndexes = Math.min(this.numberOfTriangles * 3, Math.min(points.length, uvs.length));
+            uvTransform = this.uvTransform == null
+                          ? null
+                          : this.uvTransform.clone();
+            uvVersion = this.uvVersion;
+        }
 
-        final float[] coordPoints = new float[this.numberOfTriangles * 3 * 3];
-        final float[] coordUV     = new float[this.numberOfTriangles * 2 * 3];
+        final int[]       indexes       = new int[numberIndexes];
+        final float[]     coordVertices = new float[numberIndexes * Mesh.VERTEX_SIZE];
+        final HashLongInt uniqueVertex  = new HashLongInt(numberIndexes);
 
-        int indexPoint = 0;
-        int indexUV    = 0;
-        int index      = 0;
+        int  numberVertices = 0;
+        int  point;
+        int  uv;
+        long key;
+        int  vertex;
 
-        for (int i = 0; i < this.numberOfTriangles; i++)
+        for (int index = 0; index < numberIndexes; index++)
         {
-            for (int p = 0; p < 3; p++)
+            point = points[index];
+            uv = uvs[index];
+            key = (((long) point) << 32) | (uv & 0xFFFFFFFFL);
+            vertex = uniqueVertex.get(key, -1);
+
+            if (vertex < 0)
             {
-                point3d = PoolPoints.obtainPoint3D(this.indexPoint.getInteger(index));
-                coordPoints[indexPoint++] = point3d.x;
-                coordPoints[indexPoint++] = point3d.y;
-                coordPoints[indexPoint++] = point3d.z;
+                vertex = numberVertices;
+                numberVertices++;
+                uniqueVertex.put(key, vertex);
+
+                PoolPoints.copyPoint3D(point, coordVertices, vertex * Mesh.VERTEX_SIZE);
+                PoolPoints.copyPoint2D(uv, coordVertices, (vertex * Mesh.VERTEX_SIZE) + 3);
+
+                if (uvTransform != null)
+                {
+                    coordVertices[(vertex * Mesh.VERTEX_SIZE) + 3] =
+                            (coordVertices[(vertex * Mesh.VERTEX_SIZE) + 3] * uvTransform[2]) + uvTransform[0];
+                    coordVertices[(vertex * Mesh.VERTEX_SIZE) + 4] =
+                            (coordVertices[(vertex * Mesh.VERTEX_SIZE) + 4] * uvTransform[3]) + uvTransform[1];
+                }
+            }
+
+            indexes[index] = vertex;
+        }
+
+        final Mesh mesh = new Mesh(coordVertices, numberVertices, indexes, numberIndexes);
 
-                point2d = PoolPoints.obtainPoint2D(this.indexUV.getInteger(index));
-                coordUV[indexUV++] = point2d.x;
-                coordUV[indexUV++] = point2d.y;
+        synchronized (this)
+        {
+            // If UV transformation changed meanwhile, the object is dirty and will be build again
+            if (uvVersion == this.uvVersion)
+            {
+                final Mesh previous = this.mesh;
+                this.mesh = mesh;
 
-                index++;
+                if (previous != null)
+                {
+                    previous.release();
+                }
             }
         }
 
-        this.points = UtilBuffer.createFloatBuffer(coordPoints);
-        this.uvs = UtilBuffer.createFloatBuffer(coordUV);
-
         this.onConstruction = false;
-
-        Scene3D.exitCriticalSection();
+        Scene3D.SCENE3D.requestRender();
 
         if (this.canChange == false)
         {
-            Debug.printVerbose("DESTROY");
+            synchronized (this)
+            {
+                if ((this.indexPoint != null) && (this.dirty == false))
+                {
+                    Debug.printVerbose("DESTROY");
 
-            this.indexPoint.destroy();
-            this.indexPoint = null;
+                    this.indexPoint.destroy();
+                    this.indexPoint = null;
 
-            this.indexUV.destroy();
-            this.indexUV = null;
+                    this.indexUV.destroy();
+                    this.indexUV = null;
+                }
+            }
 
             System.gc();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,28 +1,60 @@
 package jhelp.android.api.engine;
 
-import java.util.ArrayList;
+import jhelp.android.api.engine.util.GridPointIndex;
 
 /**
- * Pool of points
+ * Pool of points.<br>
+ * Points are indexed by {@link GridPointIndex}, so store and search a point is in O(1) amortized.<br>
+ * Pool can be used by several threads
  * 
  * @author JHelp
  */
 class PoolPoints
 {
 	/** Point 2D pool */
-	private static final ArrayList<Point2D>	points2D	= new ArrayList<Point2D>();
+	private static final GridPointIndex	points2D	= new GridPointIndex(2);
 	/** Point 3D pool */
-	private static final ArrayList<Point3D>	points3D	= new ArrayList<Point3D>();
+	private static final GridPointIndex	points3D	= new GridPointIndex(3);
 
 	/**
 	 * Clear, make empty, the pool
 	 */
-	static void clear()
+	static synchronized void clear()
 	{
 		PoolPoints.points3D.clear();
 		PoolPoints.points2D.clear();
 	}
 
+	/**
+	 * Copy point 2D coordinates inside an array
+	 * 
+	 * @param index
+	 *           Point index
+	 * @param destination
+	 *           Array where write U, V
+	 * @param offset
+	 *           Offset in array
+	 */
+	static synchronized void copyPoint2D(final int index, final float[] destination, final int offset)
+	{
+		PoolPoints.points2D.copyPoint(index, destination, offset);
+	}
+
+	/**
+	 * Copy point 3D coordinates inside an array
+	 * 
+	 * @param index
+	 *           Point index
+	 * @param destination
+	 *           Array where write X, Y, Z
+	 * @param offset
+	 *           Offset in array
+	 */
+	static synchronized void copyPoint3D(final int index, final float[] destination, final int offset)
+	{
+		PoolPoints.points3D.copyPoint(index, destination, offset);
+	}
+
 	/**
 	 * Obtain point 2D from pool
 	 * 
@@ -30,9 +62,9 @@ class PoolPoints
 	 *           Point index
 	 * @return Point 2D
 	 */
-	static Point2D obtainPoint2D(final int index)
+	static synchronized Point2D obtainPoint2D(final int index)
 	{
-		return PoolPoints.points2D.get(index);
+		return new Point2D(PoolPoints.points2D.getCoordinate(index, 0), PoolPoints.points2D.getCoordinate(index, 1));
 	}
 
 	/**
@@ -42,9 +74,10 @@ class PoolPoints
 	 *           Point index
 	 * @return Point 3D
 	 */
-	static Point3D obtainPoint3D(final int index)
+	static synchronized Point3D obtainPoint3D(final int index)
 	{
-		return PoolPoints.points3D.get(index);
+		return new Point3D(PoolPoints.points3D.getCoordinate(index, 0), PoolPoints.points3D.getCoordinate(index, 1),
+				PoolPoints.points3D.getCoordinate(index, 2));
 	}
 
 	/**
@@ -56,20 +89,9 @@ class PoolPoints
 	 *           Y
 	 * @return Point 2D index
 	 */
-	static int storePoint2D(final float x, final float y)
+	static synchronized int storePoint2D(final float x, final float y)
 	{
-		final Point2D point = new Point2D(x, y);
-
-		int index = PoolPoints.points2D.indexOf(point);
-
-		if(index < 0)
-		{
-			index = PoolPoints.points2D.size();
-
-			PoolPoints.points2D.add(point);
-		}
-
-		return index;
+		return PoolPoints.points2D.store(x, y, 0);
 	}
 
 	/**
@@ -83,19 +105,8 @@ class PoolPoints
 	 *           Z
 	 * @return Point 3D index
 	 */
-	static int storePoint3D(final float x, final float y, final float z)
+	static synchronized int storePoint3D(final float x, final float y, final float z)
 	{
-		final Point3D point = new Point3D(x, y, z);
-
-		int index = PoolPoints.points3D.indexOf(point);
-
-		if(index < 0)
-		{
-			index = PoolPoints.points3D.size();
-
-			PoolPoints.points3D.add(point);
-		}
-
-		return index;
+		return PoolPoints.points3D.store(x, y, z);
 	}
-}
\ No newline at end of file
+}
@@ -2,13 +2,20 @@ package jhelp.android.api.engine;
 
 import javax.microedition.khronos.opengles.GL10;
 
+import jhelp.android.api.engine.util.UtilMatrix;
+
 /**
- * Describes a 3D position
+ * Describes a 3D position.<br>
+ * The transformation matrix is computed on CPU side only when a value changed since last computing
  * 
  * @author JHelp
  */
 public class Position3D
 {
+	/** Transformation matrix, {@code null} if never computed */
+	private float[]	matrix;
+	/** Values used to compute the transformation matrix */
+	private float[]	matrixValues;
 	/** Angle X */
 	public float	angleX;
 	/** Angle Y */
@@ -94,6 +101,59 @@ public class Position3D
 		this.scaleZ = position3d.scaleZ;
 	}
 
+	/**
+	 * Transformation matrix (Same transformation as {@link #apply(GL10)}).<br>
+	 * Matrix is shared, so don't modify it
+	 * 
+	 * @return Transformation matrix
+	 */
+	float[] getMatrix()
+	{
+		if(this.matrix == null)
+		{
+			this.refreshMatrix();
+		}
+
+		return this.matrix;
+	}
+
+	/**
+	 * Compute again the transformation matrix if position changed since last computing
+	 * 
+	 * @return {@code true} if position changed since last call
+	 */
+	boolean refreshMatrix()
+	{
+		float[] values = this.matrixValues;
+
+		if(values == null)
+		{
+			this.matrix = new float[16];
+			values = this.matrixValues = new float[9];
+		}
+		else if((values[0] == this.x) && (values[1] == this.y) && (values[2] == this.z) && (values[3] == this.angleX)
+				&& (values[4] == this.angleY) && (values[5] == this.angleZ) && (values[6] == this.scaleX)
+				&& (values[7] == this.scaleY) && (values[8] == this.scaleZ))
+		{
+			return false;
+		}
+
+		values[0] = this.x;
+		values[1] = this.y;
+		values[2] = this.z;
+		values[3] = this.angleX;
+		values[4] = this.angleY;
+		values[5] = this.angleZ;
+		values[6] = this.scaleX;
+		values[7] = this.scaleY;
+		values[8] = this.scaleZ;
+
+		UtilMatrix.position(this.matrix, values[0], values[1], values[2], values[3], values[4], values[5], values[6],
+				values[7], values[8]);
+
+		return true;
+	}
+
 	/**
 	 * Apply the position in Open GL
 	 * 
@@ -0,0 +1,364 @@
+package jhelp.android.api.engine;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import jhelp.android.api.engine.util.UtilMatrix;
+
+/**
+ * Queue of draws for one frame.<br>
+ * Scene traversal adds draws, then they are sorted to minimize Open GL state changes : opaque
+ * draws first, grouped by texture, mesh then material ; transparent draws after, from the farthest
+ * to the nearest.<br>
+ * Consecutive draws of the same mesh (Typically an object and its clones) share the geometry :
+ * it is bound once, only transformation and material change between draws.<br>
+ * Draws are pooled and sorted in place, so a frame allocates nothing once the pool is big
+ * enough.<br>
+ * Only use it in render thread
+ *
+ * @author JHelp
+ */
+final class RenderQueue
+{
+    /**
+     * A draw
+     *
+     * @author JHelp
+     */
+    static final class Draw
+    {
+        /**
+         * Node to render with {@link Node3D#renderSpecific(GL10)}, {@code null} for mesh draw
+         */
+        Node3D        custom;
+        /**
+         * Depth in view space, farthest is the smallest
+         */
+        float         depth;
+        /**
+         * Indicates if mesh is draw double face
+         */
+        boolean       doubleFace;
+        /**
+         * Material to use
+         */
+        Material      material;
+        /**
+         * Material sort key
+         */
+        int           materialKey;
+        /**
+         * Mesh to draw
+         */
+        Mesh          mesh;
+        /**
+         * Mesh sort key
+         */
+        int           meshKey;
+        /**
+         * Texture sort key, -1 if no texture
+         */
+        int           textureKey;
+        /**
+         * Indicates if draw is transparent
+         */
+        boolean       transparent;
+        /**
+         * Indicates if mesh can be put in video memory
+         */
+        boolean       videoMemory;
+        /**
+         * World matrix
+         */
+        final float[] world = new float[16];
+
+        /**
+         * Create a new instance of Draw
+         */
+        Draw()
+        {
+        }
+    }
+
+    /**
+     * Under this size, sort uses insertion sort
+     */
+    private static final int INSERTION_SORT_LIMIT = 8;
+
+    /**
+     * Draws pool, the first {@link #size} are the frame draws
+     */
+    private Draw[]           draws;
+    /**
+     * Number of draws in the frame
+     */
+    private int              size;
+
+    /**
+     * Create a new instance of RenderQueue
+     */
+    RenderQueue()
+    {
+        this.draws = new Draw[64];
+        this.size = 0;
+    }
+
+    /**
+     * Compare two draws in render order
+     *
+     * @param draw1 First draw
+     * @param draw2 Second draw
+     * @return Negative if first is before, positive if first is after, 0 if equivalent
+     */
+    private static int compare(final Draw draw1, final Draw draw2)
+    {
+        if (draw1.transparent != draw2.transparent)
+        {
+            return draw1.transparent == true
+                   ? 1
+                   : -1;
+        }
+
+        if (draw1.transparent == true)
+        {
+            return Float.compare(draw1.depth, draw2.depth);
+        }
+
+        if (draw1.textureKey != draw2.textureKey)
+        {
+            return draw1.textureKey < draw2.textureKey
+                   ? -1
+                   : 1;
+        }
+
+        if (draw1.meshKey != draw2.meshKey)
+        {
+            return draw1.meshKey < draw2.meshKey
+                   ? -1
+                   : 1;
+        }
+
+        if (draw1.materialKey != draw2.materialKey)
+        {
+            return draw1.materialKey < draw2.materialKey
+                   ? -1
+                   : 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Sort a part of draws
+     *
+     * @param start First draw (Included)
+     * @param end   Last draw (Included)
+     */
+    private void sort(int start, int end)
+    {
+        final Draw[] draws = this.draws;
+        Draw         pivot;
+        Draw         temp;
+        int          left;
+        int          right;
+
+        while ((end - start) >= RenderQueue.INSERTION_SORT_LIMIT)
+        {
+            pivot = draws[(start + end) >>> 1];
+            left = start;
+            right = end;
+
+            while (left <= right)
+            {
+                while (RenderQueue.compare(draws[left], pivot) < 0)
+                {
+                    left++;
+                }
+
+                while (RenderQueue.compare(draws[right], pivot) > 0)
+                {
+                    right--;
+                }
+
+                if (left <= right)
+                {
+                    temp = draws[left];
+                    draws[left] = draws[right];
+                    draws[right] = temp;
+                    left++;
+                    right--;
+                }
+            }
+
+            // Recurse on smallest part, loop on biggest one, to limit stack depth
+            if ((right - start) < (end - left))
+            {
+                this.sort(start, right);
+                start = left;
+            }
+            else
+            {
+                this.sort(left, end);
+                end = right;
+            }
+        }
+
+        for (int index = start + 1; index <= end; index++)
+        {
+            temp = draws[index];
+            left = index - 1;
+
+            while ((left >= start) && (RenderQueue.compare(draws[left], temp) > 0))
+            {
+                draws[left + 1] = draws[left];
+                left--;
+            }
+
+            draws[left + 1] = temp;
+        }
+    }
+
+    /**
+     * Obtain a free draw from the pool
+     *
+     * @param world World matrix
+     * @return Free draw
+     */
+    private Draw obtainDraw(final float[] world)
+    {
+        if (this.size >= this.draws.length)
+        {
+            final Draw[] temp = new Draw[this.size << 1];
+            System.arraycopy(this.draws, 0, temp, 0, this.size);
+            this.draws = temp;
+        }
+
+        Draw draw = this.draws[this.size];
+
+        if (draw == null)
+        {
+            draw = new Draw();
+            this.draws[this.size] = draw;
+        }
+
+        this.size++;
+        UtilMatrix.copy(draw.world, world);
+
+        return draw;
+    }
+
+    /**
+     * Add a node that draws itself with {@link Node3D#renderSpecific(GL10)}.<br>
+     * Since it can change any Open GL state, it is draw with opaque ones, before them
+     *
+     * @param node  Node to render
+     * @param world World matrix
+     */
+    void addCustom(final Node3D node, final float[] world)
+    {
+        final Draw draw = this.obtainDraw(world);
+        draw.custom = node;
+        draw.mesh = null;
+        draw.material = null;
+        draw.transparent = false;
+        draw.textureKey = -1;
+        draw.materialKey = -1;
+        draw.meshKey = -1;
+        draw.depth = 0;
+    }
+
+    /**
+     * Add a mesh draw
+     *
+     * @param world       World matrix
+     * @param mesh        Mesh to draw
+     * @param material    Material to use
+     * @param doubleFace  Indicates if mesh is draw double face
+     * @param videoMemory Indicates if mesh can be put in video memory
+     * @param center      Mesh center in node space, used for sort transparent draws
+     */
+    void addMesh(final float[] world, final Mesh mesh, final Material material, final boolean doubleFace,
+                 final boolean videoMemory, final float[] center)
+    {
+        final Draw draw = this.obtainDraw(world);
+        draw.custom = null;
+        draw.mesh = mesh;
+        draw.material = material;
+        draw.doubleFace = doubleFace;
+        draw.videoMemory = videoMemory;
+        draw.transparent = material.isTransparent();
+        final Texture texture = material.texture;
+        draw.textureKey = texture == null
+                          ? -1
+                          : texture.sortKey;
+        draw.materialKey = material.sortKey;
+        draw.meshKey = mesh.sortKey;
+        draw.depth = (world[2] * center[0]) + (world[6] * center[1]) + (world[10] * center[2]) + world[14];
+    }
+
+    /**
+     * Sort and render the draws, then empty the queue
+     *
+     * @param gl      Open GL link
+     * @param glState Open GL state tracker
+     */
+    void render(final GL10 gl, final GLState glState)
+    {
+        final int size = this.size;
+
+        if (size > 1)
+        {
+            this.sort(0, size - 1);
+        }
+
+        Draw    draw;
+        Mesh    boundMesh        = null;
+        boolean boundVideoMemory = false;
+
+        for (int index = 0; index < size; index++)
+        {
+            draw = this.draws[index];
+
+            if ((boundMesh != null)
+                    && ((draw.mesh != boundMesh) || (draw.videoMemory != boundVideoMemory)))
+            {
+                boundMesh.unbind(gl);
+                boundMesh = null;
+            }
+
+            gl.glLoadMatrixf(draw.world, 0);
+
+            if (draw.custom != null)
+            {
+                draw.custom.renderSpecific(gl);
+                glState.invalidate();
+                draw.custom = null;
+                continue;
+            }
+
+            glState.cullFace(gl, draw.doubleFace == false);
+            draw.material.render(gl, glState);
+
+            if (boundMesh == null)
+            {
+                boundMesh = draw.mesh;
+                boundVideoMemory = draw.videoMemory;
+                boundMesh.bind(gl, boundVideoMemory);
+                glState.geometryBind();
+            }
+
+            boundMesh.draw(gl);
+            glState.drawCall();
+
+            // Don't keep references, to let garbage collector free destroyed objects
+            draw.mesh = null;
+            draw.material = null;
+        }
+
+        if (boundMesh != null)
+        {
+            boundMesh.unbind(gl);
+        }
+
+        this.size = 0;
+    }
+}
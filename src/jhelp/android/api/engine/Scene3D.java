@@ -1,23 +1,36 @@
 package jhelp.android.api.engine;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import javax.microedition.khronos.opengles.GL10;
 
 import jhelp.android.api.engine.util.Debug;
+import jhelp.android.api.engine.util.UtilMatrix;
 
 /**
- * Represents a 3D scene
+ * Represents a 3D scene.<br>
+ * Render thread never waits other threads : scene graph is read through immutable snapshots (See
+ * {@link Node3D}) and animations to play are queued, then taken by render thread at next frame.<br>
+ * Nodes outside the view frustum are not render, others are draw through a render queue sorted to
+ * minimize Open GL state changes. Counters of the last frame are available (See
+ * {@link #getDrawCalls()}, {@link #getStateChanges()} and {@link #getFilteredStateChanges()})
  * 
  * @author JHelp
  */
 public class Scene3D
 {
 	/**
-	 * Load scene
+	 * Load scene.<br>
+	 * Scene can be a zip with XML description or a binary scene (See {@link SceneConverter}). Binary
+	 * scene files are memory mapped. Zip goes through the scene cache, if any (See
+	 * {@link Scene3D#setSceneCache(SceneCache)})
 	 * 
 	 * @author JHelp
 	 */
@@ -25,10 +38,26 @@ public class Scene3D
 			implements Runnable
 	{
 		/**
-		 * Stream to parse
+		 * File to load, {@code null} if load from stream
+		 */
+		private final File			file;
+		/**
+		 * Stream to parse, {@code null} if load from file
 		 */
 		private final InputStream	inputStream;
 
+		/**
+		 * Create a new instance of LoadScene
+		 * 
+		 * @param file
+		 *           File to load
+		 */
+		LoadScene(final File file)
+		{
+			this.file = file;
+			this.inputStream = null;
+		}
+
 		/**
 		 * Create a new instance of LoadScene
 		 * 
@@ -37,9 +66,100 @@ public class Scene3D
 		 */
 		LoadScene(final InputStream inputStream)
 		{
+			this.file = null;
 			this.inputStream = inputStream;
 		}
 
+		/**
+		 * Load scene from file
+		 * 
+		 * @throws Exception
+		 *            On loading issue
+		 */
+		private void loadFile() throws Exception
+		{
+			final RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "r");
+
+			try
+			{
+				final byte[] header = new byte[SceneBinaryFormat.HEADER_SIZE];
+				final int read = randomAccessFile.read(header);
+
+				if(SceneBinaryFormat.isBinary(header, read) == true)
+				{
+					final FileChannel fileChannel = randomAccessFile.getChannel();
+					new SceneBinaryReader(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+					return;
+				}
+			}
+			finally
+			{
+				randomAccessFile.close();
+			}
+
+			final SceneCache sceneCache = Scene3D.this.sceneCache;
+
+			if(sceneCache != null)
+			{
+				new SceneBinaryReader(sceneCache.prepare(this.file));
+				return;
+			}
+
+			final InputStream inputStream = new FileInputStream(this.file);
+
+			try
+			{
+				new LoaderScene(inputStream);
+			}
+			finally
+			{
+				inputStream.close();
+			}
+		}
+
+		/**
+		 * Load scene from stream
+		 * 
+		 * @throws Exception
+		 *            On loading issue
+		 */
+		private void loadStream() throws Exception
+		{
+			final BufferedInputStream bufferedInputStream = new BufferedInputStream(this.inputStream);
+			final byte[] header = new byte[SceneBinaryFormat.HEADER_SIZE];
+			bufferedInputStream.mark(SceneBinaryFormat.HEADER_SIZE);
+			final int read = bufferedInputStream.read(header);
+			bufferedInputStream.reset();
+
+			if(SceneBinaryFormat.isBinary(header, read) == false)
+			{
+				final SceneCache sceneCache = Scene3D.this.sceneCache;
+
+				if(sceneCache != null)
+				{
+					new SceneBinaryReader(sceneCache.prepare(bufferedInputStream));
+				}
+				else
+				{
+					new LoaderScene(bufferedInputStream);
+				}
+
+				return;
+			}
+
+			final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int size = bufferedInputStream.read(buffer);
+
+			while(size >= 0)
+			{
+				byteArrayOutputStream.write(buffer, 0, size);
+				size = bufferedInputStream.read(buffer);
+			}
+
+			new SceneBinaryReader(ByteBuffer.wrap(byteArrayOutputStream.toByteArray()));
+		}
+
 		/**
 		 * Load the scene in separate thread <br>
 		 * <br>
@@ -50,9 +170,23 @@ public class Scene3D
 		 */
 		public void run()
 		{
+			if(this.file != null)
+			{
+				try
+				{
+					this.loadFile();
+				}
+				catch(final Exception exception)
+				{
+					Debug.printException(exception, "Loading scene failed ! ", this.file.getAbsolutePath());
+				}
+
+				return;
+			}
+
 			try
 			{
-				new LoaderScene(this.inputStream);
+				this.loadStream();
 			}
 			catch(final Exception exception)
 			{
@@ -71,76 +205,164 @@ public class Scene3D
 		}
 	}
 
-	/** Number of thread waiting in critical section */
-	private static int				inCriticalSection	= 0;
-	/** Lock for synchronized */
-	private static final Object	LOCK					= new Object();
 	/** Scene 3D singleton */
 	public static final Scene3D	SCENE3D				= new Scene3D();
 
+	/** Playing animations */
+	private final AnimationSystem								animationSystem;
+	/** Pool of bitmaps and pixels buffers used to decode textures */
+	private final BitmapPool									bitmapPool;
+	/** Number of draw calls of last frame */
+	private volatile int										drawCalls;
+	/** Number of filtered state changes of last frame */
+	private volatile int										filteredStateChanges;
+	/** Number of geometry binds of last frame */
+	private volatile int										geometryBinds;
+	/** Current frame number */
+	private int														frame;
+	/** Decides when the scene is render */
+	private final FrameScheduler								frameScheduler;
+	/** View frustum, {@code null} if projection not known yet */
+	private volatile Frustum									frustum;
+	/** Open GL state tracker */
+	private final GLState										glState;
+	/** Identity matrix, root parent world matrix */
+	private final float[]										identity;
+	/** Jobs of the engine */
+	private final JobSystem										jobSystem;
+	/** Root node 3D */
+	private volatile Node3D									node3d;
+	/** Render queue */
+	private final RenderQueue									renderQueue;
+	/** Cache of prepared scenes, {@code null} if no cache */
+	private volatile SceneCache								sceneCache;
+	/** Number of state changes of last frame */
+	private volatile int										stateChanges;
+	/** Atlas page size used to pack small textures of loaded scenes, 0 if no packing */
+	private volatile int										textureAtlasPageSize;
+	/** Maximum number of textures buffered or decoding at the same time while loading a scene */
+	private volatile int										textureDecoders;
+	/** Manager of textures in video memory */
+	private final TextureManager								textureManager;
+
 	/**
-	 * Enter in critical section
+	 * Create a new instance of Scene3D
 	 */
-	static void enterCriticalSection()
+	private Scene3D()
 	{
-		synchronized(Scene3D.LOCK)
-		{
-			if(Scene3D.inCriticalSection > 0)
-			{
-				try
-				{
-					Scene3D.LOCK.wait(16364);
-				}
-				catch(final InterruptedException exception)
-				{
-				}
-			}
+		this.bitmapPool = new BitmapPool(16L << 20);
+		this.node3d = new Node3D();
+		this.animationSystem = new AnimationSystem();
+		this.frameScheduler = new FrameScheduler(FrameScheduler.SYSTEM_CLOCK);
+		this.jobSystem = new JobSystem();
+		this.frame = 0;
+		this.identity = new float[16];
+		UtilMatrix.identity(this.identity);
+		this.renderQueue = new RenderQueue();
+		this.glState = new GLState();
+		this.textureDecoders = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		this.textureManager = new TextureManager();
+	}
 
-			Scene3D.inCriticalSection++;
+	/**
+	 * Destroy/empty the scene
+	 */
+	void destroy()
+	{
+		this.animationSystem.clear();
+
+		final Node3D node3d = this.node3d;
+		this.node3d = null;
+
+		if(node3d != null)
+		{
+			node3d.destroy();
 		}
+
+		// Textures of the destroyed scene are removed when next scene is draw
+		this.textureManager.releaseUnused();
 	}
 
 	/**
-	 * Exit from critical section
+	 * Change the projection, to know the view frustum
+	 * 
+	 * @param projection
+	 *           Projection matrix
 	 */
-	static void exitCriticalSection()
+	void setProjection(final float[] projection)
 	{
-		synchronized(Scene3D.LOCK)
-		{
-			Scene3D.inCriticalSection--;
+		this.frustum = new Frustum(projection);
+	}
 
-			if(Scene3D.inCriticalSection > 0)
-			{
-				Scene3D.LOCK.notify();
-			}
-		}
+	/**
+	 * Playing animations, to tune how they are animated and know their cost
+	 * 
+	 * @return Playing animations
+	 */
+	public AnimationSystem getAnimationSystem()
+	{
+		return this.animationSystem;
 	}
 
-	/** Playing animation list */
-	private final ArrayList<Animation>	animations;
-	/** Root node 3D */
-	private Node3D								node3d;
-	/** Scheduler of threads */
-	public ScheduledThreadPoolExecutor	scheduledThreadPoolExecutor;
+	/**
+	 * Pool of bitmaps and pixels buffers used to decode textures
+	 * 
+	 * @return Pool of bitmaps and pixels buffers
+	 */
+	public BitmapPool getBitmapPool()
+	{
+		return this.bitmapPool;
+	}
 
 	/**
-	 * Create a new instance of Scene3D
+	 * Number of draw calls of last frame
+	 * 
+	 * @return Number of draw calls
 	 */
-	private Scene3D()
+	public int getDrawCalls()
 	{
-		this.node3d = new Node3D();
-		this.animations = new ArrayList<Animation>();
+		return this.drawCalls;
 	}
 
 	/**
-	 * Destroy/empty the scene
+	 * Number of Open GL state changes filtered, because they not change the state, in last frame
+	 * 
+	 * @return Number of filtered state changes
 	 */
-	void destroy()
+	public int getFilteredStateChanges()
 	{
-		this.animations.clear();
+		return this.filteredStateChanges;
+	}
 
-		this.node3d.destroy();
-		this.node3d = null;
+	/**
+	 * Decides when the scene is render, to tune the frame rate and know frame times
+	 * 
+	 * @return Frame scheduler
+	 */
+	public FrameScheduler getFrameScheduler()
+	{
+		return this.frameScheduler;
+	}
+
+	/**
+	 * Number of geometry binds of last frame. Consecutive draws of the same mesh, like clones,
+	 * share one bind
+	 * 
+	 * @return Number of geometry binds
+	 */
+	public int getGeometryBinds()
+	{
+		return this.geometryBinds;
+	}
+
+	/**
+	 * Jobs of the engine, to run work outside render thread
+	 * 
+	 * @return Jobs of the engine
+	 */
+	public JobSystem getJobSystem()
+	{
+		return this.jobSystem;
 	}
 
 	/**
@@ -150,16 +372,98 @@ public class Scene3D
 	 */
 	public Node3D getRoot()
 	{
-		if(this.node3d == null)
+		Node3D node3d = this.node3d;
+
+		if(node3d == null)
+		{
+			synchronized(this.animationSystem)
+			{
+				node3d = this.node3d;
+
+				if(node3d == null)
+				{
+					node3d = new Node3D();
+					this.node3d = node3d;
+				}
+			}
+		}
+
+		return node3d;
+	}
+
+	/**
+	 * Cache of prepared scenes
+	 * 
+	 * @return Cache of prepared scenes or {@code null} if no cache
+	 */
+	public SceneCache getSceneCache()
+	{
+		return this.sceneCache;
+	}
+
+	/**
+	 * Number of Open GL state changes (Texture, color, material, capabilities) of last frame
+	 * 
+	 * @return Number of state changes
+	 */
+	public int getStateChanges()
+	{
+		return this.stateChanges;
+	}
+
+	/**
+	 * Atlas page size used to pack small textures of loaded scenes
+	 * 
+	 * @return Atlas page size or 0 if textures are not packed
+	 */
+	public int getTextureAtlasPageSize()
+	{
+		return this.textureAtlasPageSize;
+	}
+
+	/**
+	 * Maximum number of textures buffered or decoding at the same time while loading a scene
+	 * 
+	 * @return Maximum number of textures buffered or decoding at the same time
+	 */
+	public int getTextureDecoders()
+	{
+		return this.textureDecoders;
+	}
+
+	/**
+	 * Manager of textures in video memory, to limit the video memory used and know its usage
+	 * 
+	 * @return Manager of textures in video memory
+	 */
+	public TextureManager getTextureManager()
+	{
+		return this.textureManager;
+	}
+
+	/**
+	 * Load a scene from a file.<br>
+	 * File can be a zip with XML description or a binary scene (See {@link SceneConverter}), binary
+	 * scene is memory mapped
+	 * 
+	 * @param file
+	 *           File to load
+	 */
+	public void loadScene(final File file)
+	{
+		if(file == null)
 		{
-			this.node3d = new Node3D();
+			throw new NullPointerException("file musn't be null");
 		}
 
-		return this.node3d;
+		final LoadScene loadScene = new LoadScene(file);
+
+		this.jobSystem.submit(JobPriority.ASSET_LOADING, loadScene);
 	}
 
 	/**
-	 * Load a scene for stream
+	 * Load a scene for stream.<br>
+	 * Stream can be a zip with XML description or a binary scene (See {@link SceneConverter})
 	 * 
 	 * @param inputStream
 	 *           Stream to read
@@ -168,21 +472,25 @@ public class Scene3D
 	{
 		final LoadScene loadScene = new LoadScene(inputStream);
 
-		this.scheduledThreadPoolExecutor.schedule(loadScene, 16, TimeUnit.MILLISECONDS);
+		this.jobSystem.submit(JobPriority.ASSET_LOADING, loadScene);
 	}
 
 	/**
-	 * Play an animation
+	 * Play an animation.<br>
+	 * The animation starts at next frame. Playing an animation already playing has no effect
 	 * 
 	 * @param animation
 	 *           Animation to play
 	 */
 	public void playAnimation(final Animation animation)
 	{
-		Scene3D.enterCriticalSection();
-		this.animations.add(animation);
-		animation.start();
-		Scene3D.exitCriticalSection();
+		if(animation == null)
+		{
+			throw new NullPointerException("animation musn't be null");
+		}
+
+		this.animationSystem.play(animation);
+		this.frameScheduler.requestFrame();
 	}
 
 	/**
@@ -193,21 +501,91 @@ public class Scene3D
 	 */
 	public void render(final GL10 gl)
 	{
-		if(this.node3d == null)
+		final Node3D node3d = this.node3d;
+
+		if(node3d == null)
 		{
 			return;
 		}
 
-		for(int anim = this.animations.size() - 1; anim >= 0; anim--)
+		this.frameScheduler.frameStarted();
+		this.animationSystem.animate(System.currentTimeMillis());
+
+		this.frame++;
+		node3d.update(this.frame, this.identity, false);
+
+		node3d.collect(this.renderQueue, this.frustum, this.identity);
+
+		// Other code may have changed Open GL state since last frame
+		this.glState.invalidate();
+		this.glState.resetCounters();
+		this.renderQueue.render(gl, this.glState);
+		this.textureManager.endFrame(gl);
+		Mesh.deleteReleased(gl);
+
+		this.drawCalls = this.glState.getDrawCalls();
+		this.geometryBinds = this.glState.getGeometryBinds();
+		this.stateChanges = this.glState.getStateChanges();
+		this.filteredStateChanges = this.glState.getFilteredChanges();
+		this.frameScheduler.frameEnded(this.animationSystem.getNumberOfAnimations() > 0);
+	}
+
+	/**
+	 * Request a render of the scene, as soon as the frame rate allows it.<br>
+	 * To call after changing the scene outside animations, like modify nodes positions. Adding nodes,
+	 * playing animations and refreshing textures already call it
+	 */
+	public void requestRender()
+	{
+		this.frameScheduler.requestFrame();
+	}
+
+	/**
+	 * Change the cache of prepared scenes.<br>
+	 * With a cache, a scene zip is prepared once, next loads of same zip are faster
+	 * 
+	 * @param sceneCache
+	 *           Cache of prepared scenes or {@code null} for no cache
+	 */
+	public void setSceneCache(final SceneCache sceneCache)
+	{
+		this.sceneCache = sceneCache;
+	}
+
+	/**
+	 * Change the atlas page size used to pack small textures of loaded scenes (See
+	 * {@link TextureAtlas}).<br>
+	 * Packed textures are draw without texture change. Applied for next loaded scene
+	 * 
+	 * @param textureAtlasPageSize
+	 *           Atlas page size (512 or 1024) or 0 for not pack textures
+	 */
+	public void setTextureAtlasPageSize(final int textureAtlasPageSize)
+	{
+		if((textureAtlasPageSize != 0) && (textureAtlasPageSize != 512) && (textureAtlasPageSize != 1024))
 		{
-			if(this.animations.get(anim).animate() == false)
-			{
-				this.animations.remove(anim);
-			}
+			throw new IllegalArgumentException("textureAtlasPageSize MUST be 0, 512 or 1024 not " + textureAtlasPageSize);
 		}
 
-		gl.glLoadIdentity();
+		this.textureAtlasPageSize = textureAtlasPageSize;
+	}
+
+	/**
+	 * Change the maximum number of textures buffered or decoding at the same time while loading a
+	 * scene.<br>
+	 * More decoders load faster on multi-core devices, less decoders take less memory. Applied for
+	 * next loaded scene
+	 * 
+	 * @param textureDecoders
+	 *           Maximum number of textures buffered or decoding at the same time
+	 */
+	public void setTextureDecoders(final int textureDecoders)
+	{
+		if(textureDecoders < 1)
+		{
+			throw new IllegalArgumentException("textureDecoders MUST be >0 not " + textureDecoders);
+		}
 
-		this.node3d.render(gl);
+		this.textureDecoders = textureDecoders;
 	}
-}
\ No newline at end of file
+}
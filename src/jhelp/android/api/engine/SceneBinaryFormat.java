@@ -0,0 +1,178 @@
+package jhelp.android.api.engine;
+
+import jhelp.android.api.R;
+
+/**
+ * Binary scene format description.<br>
+ * All values are little endian. File starts with {@link #MAGIC} then {@link #VERSION} (int), then
+ * a list of blocks. Each block is : block type (int), payload length in bytes (int), payload.
+ * Readers skip blocks they don't know, the list ends with a block {@link #BLOCK_END}.<br>
+ * Strings are : length in bytes (int, -1 for {@code null}) then UTF-8 bytes.<br>
+ * Blocks payloads :
+ * <ul>
+ * <li>{@link #BLOCK_POINTS_3D} : number of points (int), X, Y, Z (float) for each point</li>
+ * <li>{@link #BLOCK_POINTS_2D} : number of points (int), U, V (float) for each point</li>
+ * <li>{@link #BLOCK_TEXTURE} : name (string), image length (int), JPG or PNG image bytes</li>
+ * <li>{@link #BLOCK_TEXTURE_PIXELS} : name (string), width (int), height (int), pixels length
+ * (int), pixels in RGBA, one byte per component (Version 2)</li>
+ * <li>{@link #BLOCK_TEXTURE_LEVELS} : name (string), format (int : 0 for RGBA, 1 for ETC1), width
+ * (int), height (int), number of levels (int), then for each level, from biggest to 1x1 : level
+ * length (int), level data (Version 3)</li>
+ * <li>{@link #BLOCK_MATERIAL} : name (string), alpha (float), diffuse red, green, blue, alpha
+ * (float), texture name (string)</li>
+ * <li>{@link #BLOCK_NODE} : parent index (int), type (int), name (string), cloned name (string),
+ * material name (string), x, y, z, angleX, angleY, angleZ, scaleX, scaleY, scaleZ (float), double
+ * face (byte), number of triangles (int), number of points indexes (int), points indexes (int),
+ * number of UVs indexes (int), UVs indexes (int)</li>
+ * <li>{@link #BLOCK_ANIMATION} : node name (string), FPS (int), number of frames (int), then for
+ * each frame : frame number (int), x, y, z, angleX, angleY, angleZ, scaleX, scaleY, scaleZ
+ * (float)</li>
+ * </ul>
+ * Blocks are in the same order as {@link SceneHandler} receives them
+ *
+ * @author JHelp
+ */
+final class SceneBinaryFormat
+{
+    /**
+     * Block : animation
+     */
+    static final int BLOCK_ANIMATION      = 6;
+    /**
+     * Block : end of blocks list
+     */
+    static final int BLOCK_END            = 0;
+    /**
+     * Block : material
+     */
+    static final int BLOCK_MATERIAL       = 4;
+    /**
+     * Block : node
+     */
+    static final int BLOCK_NODE           = 5;
+    /**
+     * Block : 2D points
+     */
+    static final int BLOCK_POINTS_2D      = 2;
+    /**
+     * Block : 3D points
+     */
+    static final int BLOCK_POINTS_3D      = 1;
+    /**
+     * Block : texture
+     */
+    static final int BLOCK_TEXTURE        = 3;
+    /**
+     * Block : texture mipmap chain, may be compressed
+     */
+    static final int BLOCK_TEXTURE_LEVELS = 8;
+    /**
+     * Block : decoded texture
+     */
+    static final int BLOCK_TEXTURE_PIXELS = 7;
+    /**
+     * Header size in bytes
+     */
+    static final int HEADER_SIZE          = 8;
+    /**
+     * File magic number : "JHS3" in little endian
+     */
+    static final int MAGIC                = 0x3353484A;
+    /**
+     * Node type in file : clone
+     */
+    static final int TYPE_CLONE           = 2;
+    /**
+     * Node type in file : node
+     */
+    static final int TYPE_NODE            = 0;
+    /**
+     * Node type in file : object
+     */
+    static final int TYPE_OBJECT          = 1;
+    /**
+     * Current format version
+     */
+    static final int VERSION              = 3;
+
+    /**
+     * Indicates if the first bytes of a stream are the binary format magic number
+     *
+     * @param header Stream first bytes
+     * @param length Number of bytes read
+     * @return {@code true} if stream is in binary format
+     */
+    static boolean isBinary(final byte[] header, final int length)
+    {
+        if (length < 4)
+        {
+            return false;
+        }
+
+        return ((header[0] & 0xFF) | ((header[1] & 0xFF) << 8) | ((header[2] & 0xFF) << 16) | ((header[3] & 0xFF) << 24)) == SceneBinaryFormat.MAGIC;
+    }
+
+    /**
+     * Indicates if the first bytes of a stream are a binary format header of current version
+     *
+     * @param header Stream first bytes
+     * @param length Number of bytes read
+     * @return {@code true} if stream is in binary format of current version
+     */
+    static boolean isCurrentVersion(final byte[] header, final int length)
+    {
+        if ((length < SceneBinaryFormat.HEADER_SIZE) || (SceneBinaryFormat.isBinary(header, length) == false))
+        {
+            return false;
+        }
+
+        return ((header[4] & 0xFF) | ((header[5] & 0xFF) << 8) | ((header[6] & 0xFF) << 16) | ((header[7] & 0xFF) << 24)) == SceneBinaryFormat.VERSION;
+    }
+
+    /**
+     * Convert a node type to its file value
+     *
+     * @param type Node type : R.id.NODE_3D_TYPE_NODE, R.id.NODE_3D_TYPE_OBJECT or
+     *             R.id.NODE_3D_TYPE_CLONE
+     * @return File value
+     */
+    static int toFileType(final int type)
+    {
+        switch (type)
+        {
+            case R.id.NODE_3D_TYPE_CLONE:
+                return SceneBinaryFormat.TYPE_CLONE;
+            case R.id.NODE_3D_TYPE_OBJECT:
+                return SceneBinaryFormat.TYPE_OBJECT;
+            default:
+                return SceneBinaryFormat.TYPE_NODE;
+        }
+    }
+
+    /**
+     * Convert a file value to node type
+     *
+     * @param type File value
+     * @return Node type : R.id.NODE_3D_TYPE_NODE, R.id.NODE_3D_TYPE_OBJECT or
+     * R.id.NODE_3D_TYPE_CLONE
+     */
+    static int toNodeType(final int type)
+    {
+        switch (type)
+        {
+            case SceneBinaryFormat.TYPE_CLONE:
+                return R.id.NODE_3D_TYPE_CLONE;
+            case SceneBinaryFormat.TYPE_OBJECT:
+                return R.id.NODE_3D_TYPE_OBJECT;
+            default:
+                return R.id.NODE_3D_TYPE_NODE;
+        }
+    }
+
+    /**
+     * To avoid instance
+     */
+    private SceneBinaryFormat()
+    {
+    }
+}
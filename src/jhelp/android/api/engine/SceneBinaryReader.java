@@ -0,0 +1,288 @@
+package jhelp.android.api.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jhelp.android.api.engine.util.ArrayInt;
+import jhelp.android.api.engine.util.ByteBufferInputStream;
+
+/**
+ * Read a scene in binary format (See {@link SceneBinaryFormat}) and give its elements to a
+ * {@link SceneHandler}.<br>
+ * The buffer can be a memory mapped file : points, indexes and images are read directly from it,
+ * decoded textures pixels and levels are used directly from it
+ *
+ * @author JHelp
+ */
+class SceneBinaryReader
+{
+    /**
+     * Buffer to read
+     */
+    private final ByteBuffer   byteBuffer;
+    /**
+     * Coordinates read buffer
+     */
+    private float[]            coordinates;
+    /**
+     * Handler that receives read elements
+     */
+    private final SceneHandler sceneHandler;
+
+    /**
+     * Create a new instance of SceneBinaryReader that creates the scene in {@link Scene3D#SCENE3D}
+     *
+     * @param byteBuffer Buffer to read. Its position is not modified
+     * @throws Exception On reading issue
+     */
+    SceneBinaryReader(final ByteBuffer byteBuffer)
+            throws Exception
+    {
+        this(byteBuffer, new SceneCreator());
+    }
+
+    /**
+     * Create a new instance of SceneBinaryReader
+     *
+     * @param byteBuffer   Buffer to read. Its position is not modified
+     * @param sceneHandler Handler that receives read elements
+     * @throws Exception On reading issue
+     */
+    SceneBinaryReader(final ByteBuffer byteBuffer, final SceneHandler sceneHandler)
+            throws Exception
+    {
+        if (byteBuffer == null)
+        {
+            throw new NullPointerException("byteBuffer musn't be null");
+        }
+
+        if (sceneHandler == null)
+        {
+            throw new NullPointerException("sceneHandler musn't be null");
+        }
+
+        this.byteBuffer = byteBuffer.duplicate()
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+        this.sceneHandler = sceneHandler;
+        this.coordinates = new float[3072];
+
+        if (this.byteBuffer.remaining() < SceneBinaryFormat.HEADER_SIZE)
+        {
+            throw new IllegalArgumentException("Not a binary scene : too short");
+        }
+
+        if (this.byteBuffer.getInt() != SceneBinaryFormat.MAGIC)
+        {
+            throw new IllegalArgumentException("Not a binary scene : wrong magic number");
+        }
+
+        final int version = this.byteBuffer.getInt();
+
+        if ((version < 1) || (version > SceneBinaryFormat.VERSION))
+        {
+            throw new IllegalArgumentException("Unsupported binary scene version " + version);
+        }
+
+        this.sceneHandler.startScene();
+
+        int type = this.readBlock();
+
+        while (type != SceneBinaryFormat.BLOCK_END)
+        {
+            type = this.readBlock();
+        }
+
+        this.sceneHandler.endScene();
+    }
+
+    /**
+     * Read one block and give it to the handler.<br>
+     * Unknown blocks are skipped
+     *
+     * @return Block type
+     * @throws Exception On reading or handling issue
+     */
+    private int readBlock() throws Exception
+    {
+        if (this.byteBuffer.remaining() < 8)
+        {
+            throw new IllegalArgumentException("Binary scene truncated : no end block");
+        }
+
+        final int type   = this.byteBuffer.getInt();
+        final int length = this.byteBuffer.getInt();
+        final int end    = this.byteBuffer.position() + length;
+
+        if ((length < 0) || (end > this.byteBuffer.limit()))
+        {
+            throw new IllegalArgumentException("Binary scene truncated : block " + type + " of " + length + " bytes");
+        }
+
+        int    numberOfPoints;
+        String name;
+
+        switch (type)
+        {
+            case SceneBinaryFormat.BLOCK_POINTS_3D:
+                numberOfPoints = this.byteBuffer.getInt();
+                this.readCoordinates(numberOfPoints * 3);
+                this.sceneHandler.points3D(this.coordinates, numberOfPoints);
+                break;
+            case SceneBinaryFormat.BLOCK_POINTS_2D:
+                numberOfPoints = this.byteBuffer.getInt();
+                this.readCoordinates(numberOfPoints << 1);
+                this.sceneHandler.points2D(this.coordinates, numberOfPoints);
+                break;
+            case SceneBinaryFormat.BLOCK_TEXTURE:
+                name = this.readString();
+                final int imageLength = this.byteBuffer.getInt();
+                final ByteBuffer image = this.byteBuffer.slice();
+                image.limit(imageLength);
+                this.sceneHandler.texture(name, new ByteBufferInputStream(image));
+                break;
+            case SceneBinaryFormat.BLOCK_TEXTURE_PIXELS:
+                name = this.readString();
+                final int width = this.byteBuffer.getInt();
+                final int height = this.byteBuffer.getInt();
+                final int pixelsLength = this.byteBuffer.getInt();
+                final ByteBuffer pixels = this.byteBuffer.slice();
+                pixels.limit(pixelsLength);
+                this.sceneHandler.texturePixels(name, width, height, pixels);
+                break;
+            case SceneBinaryFormat.BLOCK_TEXTURE_LEVELS:
+                name = this.readString();
+                final int format = this.byteBuffer.getInt();
+                final int levelsWidth = this.byteBuffer.getInt();
+                final int levelsHeight = this.byteBuffer.getInt();
+                final ByteBuffer[] levels = new ByteBuffer[this.byteBuffer.getInt()];
+
+                for (int level = 0; level < levels.length; level++)
+                {
+                    final int levelLength = this.byteBuffer.getInt();
+                    levels[level] = this.byteBuffer.slice();
+                    levels[level].limit(levelLength);
+                    this.byteBuffer.position(this.byteBuffer.position() + levelLength);
+                }
+
+                this.sceneHandler.textureLevels(name, format, levelsWidth, levelsHeight, levels);
+                break;
+            case SceneBinaryFormat.BLOCK_MATERIAL:
+                name = this.readString();
+                final float alpha = this.byteBuffer.getFloat();
+                final Color4f diffuse = new Color4f(this.byteBuffer.getFloat(), this.byteBuffer.getFloat(),
+                                                    this.byteBuffer.getFloat(), this.byteBuffer.getFloat());
+                this.sceneHandler.material(name, alpha, diffuse, this.readString());
+                break;
+            case SceneBinaryFormat.BLOCK_NODE:
+                final int parent = this.byteBuffer.getInt();
+                final int nodeType = SceneBinaryFormat.toNodeType(this.byteBuffer.getInt());
+                name = this.readString();
+                final String cloned = this.readString();
+                final String materialName = this.readString();
+                final Position3D position = this.readPosition();
+                final boolean doubleFace = this.byteBuffer.get() != 0;
+                final int numberOfTriangles = this.byteBuffer.getInt();
+                final ArrayInt indexPoint = this.readIntegers();
+                final ArrayInt indexUV = this.readIntegers();
+                this.sceneHandler.node(parent, nodeType, name, cloned, materialName, position, doubleFace,
+                                       numberOfTriangles, indexPoint, indexUV);
+                break;
+            case SceneBinaryFormat.BLOCK_ANIMATION:
+                name = this.readString();
+                final int fps = this.byteBuffer.getInt();
+                final int numberOfFrames = this.byteBuffer.getInt();
+                final int[] frames = new int[numberOfFrames];
+                final Position3D[] positions = new Position3D[numberOfFrames];
+
+                for (int i = 0; i < numberOfFrames; i++)
+                {
+                    frames[i] = this.byteBuffer.getInt();
+                    positions[i] = this.readPosition();
+                }
+
+                this.sceneHandler.animation(name, fps, frames, positions, numberOfFrames);
+                break;
+            default:
+                // Unknown block, skipped
+                break;
+        }
+
+        this.byteBuffer.position(end);
+        return type;
+    }
+
+    /**
+     * Read coordinates
+     *
+     * @param length Number of floats to read
+     */
+    private void readCoordinates(final int length)
+    {
+        if (this.coordinates.length < length)
+        {
+            this.coordinates = new float[length];
+        }
+
+        this.byteBuffer.asFloatBuffer()
+                       .get(this.coordinates, 0, length);
+        this.byteBuffer.position(this.byteBuffer.position() + (length << 2));
+    }
+
+    /**
+     * Read integers array : length followed by integers
+     *
+     * @return Read integers
+     */
+    private ArrayInt readIntegers()
+    {
+        final int      length   = this.byteBuffer.getInt();
+        final ArrayInt arrayInt = new ArrayInt(Math.max(length, 1));
+
+        for (int i = 0; i < length; i++)
+        {
+            arrayInt.add(this.byteBuffer.getInt());
+        }
+
+        return arrayInt;
+    }
+
+    /**
+     * Read a position
+     *
+     * @return Read position
+     */
+    private Position3D readPosition()
+    {
+        final Position3D position = new Position3D();
+        position.x = this.byteBuffer.getFloat();
+        position.y = this.byteBuffer.getFloat();
+        position.z = this.byteBuffer.getFloat();
+        position.angleX = this.byteBuffer.getFloat();
+        position.angleY = this.byteBuffer.getFloat();
+        position.angleZ = this.byteBuffer.getFloat();
+        position.scaleX = this.byteBuffer.getFloat();
+        position.scaleY = this.byteBuffer.getFloat();
+        position.scaleZ = this.byteBuffer.getFloat();
+        return position;
+    }
+
+    /**
+     * Read a string
+     *
+     * @return Read string, may be {@code null}
+     * @throws Exception If UTF-8 not supported
+     */
+    private String readString() throws Exception
+    {
+        final int length = this.byteBuffer.getInt();
+
+        if (length < 0)
+        {
+            return null;
+        }
+
+        final byte[] utf8 = new byte[length];
+        this.byteBuffer.get(utf8);
+        return new String(utf8, "UTF-8");
+    }
+}
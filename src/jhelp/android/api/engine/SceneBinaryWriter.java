@@ -0,0 +1,513 @@
+package jhelp.android.api.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jhelp.android.api.engine.util.ArrayInt;
+
+/**
+ * Scene handler that writes the scene in binary format (See {@link SceneBinaryFormat}).<br>
+ * Textures can be written as images or as decoded pixels : decoded pixels take more space but
+ * nothing to decode at loading.<br>
+ * The stream is not closed at the end
+ *
+ * @author JHelp
+ */
+class SceneBinaryWriter
+        implements SceneHandler
+{
+    /**
+     * Current block payload
+     */
+    private ByteBuffer         block;
+    /**
+     * Indicates if textures are written decoded
+     */
+    private final boolean      decodeTextures;
+    /**
+     * Indicates if header is already written
+     */
+    private boolean            headerWritten;
+    /**
+     * Stream where write
+     */
+    private final OutputStream outputStream;
+
+    /**
+     * Create a new instance of SceneBinaryWriter that writes textures as images
+     *
+     * @param outputStream Stream where write
+     */
+    SceneBinaryWriter(final OutputStream outputStream)
+    {
+        this(outputStream, false);
+    }
+
+    /**
+     * Create a new instance of SceneBinaryWriter
+     *
+     * @param outputStream   Stream where write
+     * @param decodeTextures Indicates if textures are written decoded, as mipmap chains. Opaque
+     *                       ones are compressed in ETC1
+     */
+    SceneBinaryWriter(final OutputStream outputStream, final boolean decodeTextures)
+    {
+        if (outputStream == null)
+        {
+            throw new NullPointerException("outputStream musn't be null");
+        }
+
+        this.outputStream = outputStream;
+        this.decodeTextures = decodeTextures;
+        this.headerWritten = false;
+        this.block = ByteBuffer.allocate(4096)
+                               .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Write the current block in the stream
+     *
+     * @param type Block type
+     * @throws IOException On writing issue
+     */
+    private void endBlock(final int type) throws IOException
+    {
+        this.writeHeader();
+        final ByteBuffer header = ByteBuffer.allocate(8)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(type);
+        header.putInt(this.block.position());
+        this.outputStream.write(header.array(), 0, 8);
+        this.outputStream.write(this.block.array(), 0, this.block.position());
+    }
+
+    /**
+     * Expand, if need, the block capacity
+     *
+     * @param more Number of bytes at least need
+     */
+    private void expand(final int more)
+    {
+        if (this.block.remaining() < more)
+        {
+            final ByteBuffer temp = ByteBuffer.allocate(Math.max(this.block.capacity() << 1,
+                                                                 this.block.position() + more + 1024))
+                                              .order(ByteOrder.LITTLE_ENDIAN);
+            this.block.flip();
+            temp.put(this.block);
+            this.block = temp;
+        }
+    }
+
+    /**
+     * Start a new block
+     */
+    private void startBlock()
+    {
+        this.block.clear();
+    }
+
+    /**
+     * Write floats in current block
+     *
+     * @param floats Floats to write
+     * @param length Number of floats to write
+     */
+    private void writeFloats(final float[] floats, final int length)
+    {
+        this.expand(length << 2);
+        this.block.asFloatBuffer()
+                  .put(floats, 0, length);
+        this.block.position(this.block.position() + (length << 2));
+    }
+
+    /**
+     * Write the header, if not already done.<br>
+     * Texture may be read before scene description, so the header is written before the first block
+     *
+     * @throws IOException On writing issue
+     */
+    private void writeHeader() throws IOException
+    {
+        if (this.headerWritten == true)
+        {
+            return;
+        }
+
+        this.headerWritten = true;
+        final ByteBuffer header = ByteBuffer.allocate(SceneBinaryFormat.HEADER_SIZE)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(SceneBinaryFormat.MAGIC);
+        header.putInt(SceneBinaryFormat.VERSION);
+        this.outputStream.write(header.array());
+    }
+
+    /**
+     * Write integers array in current block : length followed by integers
+     *
+     * @param arrayInt Integers to write, {@code null} is write as empty
+     */
+    private void writeIntegers(final ArrayInt arrayInt)
+    {
+        if (arrayInt == null)
+        {
+            this.expand(4);
+            this.block.putInt(0);
+            return;
+        }
+
+        final int length = arrayInt.getSize();
+        this.expand((length + 1) << 2);
+        this.block.putInt(length);
+        this.block.asIntBuffer()
+                  .put(arrayInt.toArray(), 0, length);
+        this.block.position(this.block.position() + (length << 2));
+    }
+
+    /**
+     * Write a position in current block
+     *
+     * @param position Position to write
+     */
+    private void writePosition(final Position3D position)
+    {
+        this.expand(36);
+        this.block.putFloat(position.x);
+        this.block.putFloat(position.y);
+        this.block.putFloat(position.z);
+        this.block.putFloat(position.angleX);
+        this.block.putFloat(position.angleY);
+        this.block.putFloat(position.angleZ);
+        this.block.putFloat(position.scaleX);
+        this.block.putFloat(position.scaleY);
+        this.block.putFloat(position.scaleZ);
+    }
+
+    /**
+     * Write a string in current block
+     *
+     * @param string String to write, may be {@code null}
+     * @throws UnsupportedEncodingException If UTF-8 not supported
+     */
+    private void writeString(final String string) throws UnsupportedEncodingException
+    {
+        if (string == null)
+        {
+            this.expand(4);
+            this.block.putInt(-1);
+            return;
+        }
+
+        final byte[] utf8 = string.getBytes("UTF-8");
+        this.expand(utf8.length + 4);
+        this.block.putInt(utf8.length);
+        this.block.put(utf8);
+    }
+
+    /**
+     * Write an animation <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param nodeName       Animated node name
+     * @param fps            Animation FPS
+     * @param frames         Frames numbers
+     * @param positions      Frames positions
+     * @param numberOfFrames Number of frames
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#animation(String, int, int[], Position3D[], int)
+     */
+    public void animation(final String nodeName, final int fps, final int[] frames, final Position3D[] positions,
+                          final int numberOfFrames) throws IOException
+    {
+        this.startBlock();
+        this.writeString(nodeName);
+        this.expand(8);
+        this.block.putInt(fps);
+        this.block.putInt(numberOfFrames);
+
+        for (int i = 0; i < numberOfFrames; i++)
+        {
+            this.expand(4);
+            this.block.putInt(frames[i]);
+            this.writePosition(positions[i]);
+        }
+
+        this.endBlock(SceneBinaryFormat.BLOCK_ANIMATION);
+    }
+
+    /**
+     * Write the end block <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#endScene()
+     */
+    public void endScene() throws IOException
+    {
+        this.startBlock();
+        this.endBlock(SceneBinaryFormat.BLOCK_END);
+        this.outputStream.flush();
+    }
+
+    /**
+     * Write a material <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name        Material name
+     * @param alpha       Material alpha
+     * @param diffuse     Diffuse color
+     * @param textureName Texture name, {@code null} if no texture
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#material(String, float, Color4f, String)
+     */
+    public void material(final String name, final float alpha, final Color4f diffuse, final String textureName)
+            throws IOException
+    {
+        this.startBlock();
+        this.writeString(name);
+        this.expand(20);
+        this.block.putFloat(alpha);
+        this.block.putFloat(diffuse.red);
+        this.block.putFloat(diffuse.green);
+        this.block.putFloat(diffuse.blue);
+        this.block.putFloat(diffuse.alpha);
+        this.writeString(textureName);
+        this.endBlock(SceneBinaryFormat.BLOCK_MATERIAL);
+    }
+
+    /**
+     * Write a node <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param parent            Parent node index or {@link #ROOT}
+     * @param type              Node type
+     * @param name              Node name
+     * @param cloned            Cloned object name
+     * @param materialName      Material name
+     * @param position          Node position
+     * @param doubleFace        Indicates if object is double face
+     * @param numberOfTriangles Number of triangles
+     * @param indexPoint        Points indexes
+     * @param indexUV           UVs indexes
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#node(int, int, String, String, String, Position3D,
+     * boolean, int, ArrayInt, ArrayInt)
+     */
+    public void node(final int parent, final int type, final String name, final String cloned,
+                     final String materialName, final Position3D position, final boolean doubleFace,
+                     final int numberOfTriangles, final ArrayInt indexPoint, final ArrayInt indexUV)
+            throws IOException
+    {
+        this.startBlock();
+        this.expand(8);
+        this.block.putInt(parent);
+        this.block.putInt(SceneBinaryFormat.toFileType(type));
+        this.writeString(name);
+        this.writeString(cloned);
+        this.writeString(materialName);
+        this.writePosition(position);
+        this.expand(5);
+        this.block.put(doubleFace == true
+                       ? (byte) 1
+                       : (byte) 0);
+        this.block.putInt(numberOfTriangles);
+        this.writeIntegers(indexPoint);
+        this.writeIntegers(indexUV);
+        this.endBlock(SceneBinaryFormat.BLOCK_NODE);
+    }
+
+    /**
+     * Write 2D points <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param coordinates    Coordinates : U, V for each point
+     * @param numberOfPoints Number of points
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#points2D(float[], int)
+     */
+    public void points2D(final float[] coordinates, final int numberOfPoints) throws IOException
+    {
+        this.startBlock();
+        this.expand(4);
+        this.block.putInt(numberOfPoints);
+        this.writeFloats(coordinates, numberOfPoints << 1);
+        this.endBlock(SceneBinaryFormat.BLOCK_POINTS_2D);
+    }
+
+    /**
+     * Write 3D points <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param coordinates    Coordinates : X, Y, Z for each point
+     * @param numberOfPoints Number of points
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#points3D(float[], int)
+     */
+    public void points3D(final float[] coordinates, final int numberOfPoints) throws IOException
+    {
+        this.startBlock();
+        this.expand(4);
+        this.block.putInt(numberOfPoints);
+        this.writeFloats(coordinates, numberOfPoints * 3);
+        this.endBlock(SceneBinaryFormat.BLOCK_POINTS_3D);
+    }
+
+    /**
+     * Write the header <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#startScene()
+     */
+    public void startScene() throws IOException
+    {
+        this.writeHeader();
+    }
+
+    /**
+     * Write a texture image <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name        Texture name
+     * @param inputStream Stream on image data
+     * @throws IOException On reading or writing issue
+     * @see jhelp.android.api.engine.SceneHandler#texture(String, InputStream)
+     */
+    public void texture(final String name, final InputStream inputStream) throws IOException
+    {
+        if (this.decodeTextures == true)
+        {
+            final Texture      texture = new Texture(inputStream);
+            final int          width   = texture.getWidth();
+            final int          height  = texture.getHeight();
+            final ByteBuffer   pixels  = texture.getPixels();
+            final ByteBuffer[] levels  = TextureLevels.mipmaps(pixels, width, height);
+
+            if (TextureLevels.isOpaque(pixels, width, height) == true)
+            {
+                this.textureLevels(name, TextureLevels.FORMAT_ETC1, width, height,
+                                   TextureLevels.compressEtc1(levels, width, height));
+            }
+            else
+            {
+                this.textureLevels(name, TextureLevels.FORMAT_RGBA, width, height, levels);
+            }
+
+            texture.releasePixels();
+            return;
+        }
+
+        final ByteArrayOutputStream image  = new ByteArrayOutputStream();
+        final byte[]                buffer = new byte[8192];
+        int                         read   = inputStream.read(buffer);
+
+        while (read >= 0)
+        {
+            image.write(buffer, 0, read);
+            read = inputStream.read(buffer);
+        }
+
+        this.startBlock();
+        this.writeString(name);
+        this.expand(image.size() + 4);
+        this.block.putInt(image.size());
+        this.block.put(image.toByteArray());
+        this.endBlock(SceneBinaryFormat.BLOCK_TEXTURE);
+    }
+
+    /**
+     * Write a decoded texture <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name   Texture name
+     * @param width  Texture width
+     * @param height Texture height
+     * @param pixels Pixels in RGBA, one byte per component
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#texturePixels(String, int, int, ByteBuffer)
+     */
+    public void texturePixels(final String name, final int width, final int height, final ByteBuffer pixels)
+            throws IOException
+    {
+        final ByteBuffer data   = pixels.duplicate();
+        data.position(0);
+        final int        length = Math.min(data.limit(), (width * height) << 2);
+        data.limit(length);
+
+        this.startBlock();
+        this.writeString(name);
+        this.expand(length + 12);
+        this.block.putInt(width);
+        this.block.putInt(height);
+        this.block.putInt(length);
+        this.block.put(data);
+        this.endBlock(SceneBinaryFormat.BLOCK_TEXTURE_PIXELS);
+    }
+
+    /**
+     * Write a texture mipmap chain <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name   Texture name
+     * @param format Levels format
+     * @param width  First level width
+     * @param height First level height
+     * @param levels Levels
+     * @throws IOException On writing issue
+     * @see jhelp.android.api.engine.SceneHandler#textureLevels(String, int, int, int, ByteBuffer[])
+     */
+    public void textureLevels(final String name, final int format, final int width, final int height,
+                              final ByteBuffer[] levels) throws IOException
+    {
+        int length = 16;
+
+        for (final ByteBuffer level : levels)
+        {
+            length += level.limit() + 4;
+        }
+
+        this.startBlock();
+        this.writeString(name);
+        this.expand(length);
+        this.block.putInt(format);
+        this.block.putInt(width);
+        this.block.putInt(height);
+        this.block.putInt(levels.length);
+        ByteBuffer data;
+
+        for (final ByteBuffer level : levels)
+        {
+            data = level.duplicate();
+            data.position(0);
+            this.block.putInt(data.limit());
+            this.block.put(data);
+        }
+
+        this.endBlock(SceneBinaryFormat.BLOCK_TEXTURE_LEVELS);
+    }
+}
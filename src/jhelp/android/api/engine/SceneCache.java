@@ -0,0 +1,431 @@
+package jhelp.android.api.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import jhelp.android.api.engine.util.Debug;
+
+/**
+ * Cache on disk of prepared scenes.<br>
+ * A scene zip is converted once in binary format (See {@link SceneBinaryFormat}) with textures
+ * already decoded, and stored in cache directory with the hash of the zip as name. Next loads of
+ * the same zip only memory map the prepared file : no XML parsing, no number parsing, no image
+ * decoding.<br>
+ * Cache size is limited : least recently used entries are removed first. Entries of an other
+ * format version, not used since a long time and unfinished writes are removed on clean up (See
+ * {@link #cleanUp()}).<br>
+ * Give it to {@link Scene3D#setSceneCache(SceneCache)} to use it for scene loading
+ *
+ * @author JHelp
+ */
+public final class SceneCache
+{
+    /**
+     * Compare files by last modification date, oldest first
+     *
+     * @author JHelp
+     */
+    static class OldestFirst
+            implements Comparator<File>
+    {
+        /**
+         * Create a new instance of OldestFirst
+         */
+        OldestFirst()
+        {
+        }
+
+        /**
+         * Compare files by last modification date <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @param file1 First file
+         * @param file2 Second file
+         * @return Comparison result
+         * @see java.util.Comparator#compare(Object, Object)
+         */
+        public int compare(final File file1, final File file2)
+        {
+            final long date1 = file1.lastModified();
+            final long date2 = file2.lastModified();
+
+            if (date1 < date2)
+            {
+                return -1;
+            }
+
+            if (date1 > date2)
+            {
+                return 1;
+            }
+
+            return 0;
+        }
+    }
+
+    /**
+     * Cache entry file extension
+     */
+    private static final String EXTENSION_ENTRY = ".scene";
+    /**
+     * Temporary file extension
+     */
+    private static final String EXTENSION_TEMP  = ".tmp";
+    /**
+     * Algorithm used to hash zip content
+     */
+    private static final String HASH_ALGORITHM  = "SHA-1";
+    /**
+     * Hexadecimal digits
+     */
+    private static final char[] HEXADECIMAL     = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Cache directory
+     */
+    private final File directory;
+    /**
+     * Maximum time, in milliseconds, an entry can stay not used
+     */
+    private final long maximumAge;
+    /**
+     * Maximum cache size in bytes
+     */
+    private final long maximumSize;
+
+    /**
+     * Create a new instance of SceneCache
+     *
+     * @param directory   Cache directory. Created if not exists. Should be used only by the cache
+     * @param maximumSize Maximum cache size in bytes
+     * @param maximumAge  Maximum time, in milliseconds, an entry can stay not used
+     */
+    public SceneCache(final File directory, final long maximumSize, final long maximumAge)
+    {
+        if (directory == null)
+        {
+            throw new NullPointerException("directory musn't be null");
+        }
+
+        if (maximumSize <= 0)
+        {
+            throw new IllegalArgumentException("maximumSize MUST be >0 not " + maximumSize);
+        }
+
+        if (maximumAge <= 0)
+        {
+            throw new IllegalArgumentException("maximumAge MUST be >0 not " + maximumAge);
+        }
+
+        if ((directory.exists() == false) && (directory.mkdirs() == false))
+        {
+            throw new IllegalArgumentException("Can't create cache directory " + directory.getAbsolutePath());
+        }
+
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+        this.maximumAge = maximumAge;
+    }
+
+    /**
+     * Indicates if a file is an entry of current format version
+     *
+     * @param file File to test
+     * @return {@code true} if file is an entry of current format version
+     */
+    private boolean isCurrentVersion(final File file)
+    {
+        try
+        {
+            final InputStream inputStream = new FileInputStream(file);
+
+            try
+            {
+                final byte[] header = new byte[SceneBinaryFormat.HEADER_SIZE];
+                return SceneBinaryFormat.isCurrentVersion(header, inputStream.read(header));
+            }
+            finally
+            {
+                inputStream.close();
+            }
+        }
+        catch (final Exception exception)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Memory map an entry
+     *
+     * @param entry Entry to map
+     * @return Mapped entry
+     * @throws Exception On mapping issue
+     */
+    private ByteBuffer map(final File entry) throws Exception
+    {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(entry, "r");
+
+        try
+        {
+            final FileChannel fileChannel = randomAccessFile.getChannel();
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+        }
+        finally
+        {
+            // Mapping stays valid after close
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Get prepared scene from cache, prepare it if not in cache yet
+     *
+     * @param hash Zip hash
+     * @param zip  Zip content, read only if scene not in cache yet
+     * @return Memory mapped prepared scene
+     * @throws Exception On reading, converting or mapping issue
+     */
+    private ByteBuffer prepare(final byte[] hash, final InputStream zip) throws Exception
+    {
+        final StringBuilder name = new StringBuilder((hash.length << 1) + SceneCache.EXTENSION_ENTRY.length());
+
+        for (final byte value : hash)
+        {
+            name.append(SceneCache.HEXADECIMAL[(value >> 4) & 0xF]);
+            name.append(SceneCache.HEXADECIMAL[value & 0xF]);
+        }
+
+        name.append(SceneCache.EXTENSION_ENTRY);
+        final File entry = new File(this.directory, name.toString());
+
+        if ((entry.exists() == true) && (this.isCurrentVersion(entry) == true))
+        {
+            // Mark as recently used
+            entry.setLastModified(System.currentTimeMillis());
+            return this.map(entry);
+        }
+
+        // Convert the zip, then publish the entry in one move, so that an entry is never partial
+        final File         temporary   = File.createTempFile("scene", SceneCache.EXTENSION_TEMP, this.directory);
+        final OutputStream sceneStream = new BufferedOutputStream(new FileOutputStream(temporary));
+
+        try
+        {
+            new LoaderScene(zip, new SceneBinaryWriter(sceneStream, true));
+        }
+        catch (final Exception exception)
+        {
+            sceneStream.close();
+            temporary.delete();
+            throw exception;
+        }
+
+        sceneStream.close();
+        entry.delete();
+
+        if (temporary.renameTo(entry) == false)
+        {
+            temporary.delete();
+            throw new IllegalStateException("Can't create cache entry " + entry.getAbsolutePath());
+        }
+
+        final ByteBuffer scene = this.map(entry);
+        this.cleanUp();
+        return scene;
+    }
+
+    /**
+     * Get prepared scene from cache, prepare it if not in cache yet
+     *
+     * @param zip Scene zip file
+     * @return Memory mapped prepared scene
+     * @throws Exception On reading, converting or mapping issue
+     */
+    ByteBuffer prepare(final File zip) throws Exception
+    {
+        final MessageDigest messageDigest = MessageDigest.getInstance(SceneCache.HASH_ALGORITHM);
+        final byte[]        buffer        = new byte[8192];
+        InputStream         inputStream   = new FileInputStream(zip);
+
+        try
+        {
+            int read = inputStream.read(buffer);
+
+            while (read >= 0)
+            {
+                messageDigest.update(buffer, 0, read);
+                read = inputStream.read(buffer);
+            }
+        }
+        finally
+        {
+            inputStream.close();
+        }
+
+        inputStream = new BufferedInputStream(new FileInputStream(zip));
+
+        try
+        {
+            return this.prepare(messageDigest.digest(), inputStream);
+        }
+        finally
+        {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Get prepared scene from cache, prepare it if not in cache yet.<br>
+     * Zip is kept in memory the time to know if it is in cache
+     *
+     * @param inputStream Stream on scene zip. Not closed
+     * @return Memory mapped prepared scene
+     * @throws Exception On reading, converting or mapping issue
+     */
+    ByteBuffer prepare(final InputStream inputStream) throws Exception
+    {
+        final MessageDigest         messageDigest = MessageDigest.getInstance(SceneCache.HASH_ALGORITHM);
+        final ByteArrayOutputStream zip           = new ByteArrayOutputStream(Math.max(inputStream.available(),
+                                                                                       8192));
+        final byte[]                buffer        = new byte[8192];
+        int                         read          = inputStream.read(buffer);
+
+        while (read >= 0)
+        {
+            messageDigest.update(buffer, 0, read);
+            zip.write(buffer, 0, read);
+            read = inputStream.read(buffer);
+        }
+
+        return this.prepare(messageDigest.digest(), new ByteArrayInputStream(zip.toByteArray()));
+    }
+
+    /**
+     * Remove from cache : unfinished writes, entries of an other format version, entries not used
+     * since maximum age, then least recently used entries while cache is too big
+     */
+    public synchronized void cleanUp()
+    {
+        final File[] files = this.directory.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final File[] entries = new File[files.length];
+        int numberOfEntries = 0;
+        long size = 0;
+        String name;
+
+        for (final File file : files)
+        {
+            name = file.getName();
+
+            if (name.endsWith(SceneCache.EXTENSION_TEMP) == true)
+            {
+                // Unfinished write, only removed if old enough to not be an other load in progress
+                if ((now - file.lastModified()) > 60000L)
+                {
+                    file.delete();
+                }
+            }
+            else if (name.endsWith(SceneCache.EXTENSION_ENTRY) == true)
+            {
+                if (((now - file.lastModified()) > this.maximumAge) || (this.isCurrentVersion(file) == false))
+                {
+                    file.delete();
+                }
+                else
+                {
+                    entries[numberOfEntries++] = file;
+                    size += file.length();
+                }
+            }
+        }
+
+        if (size <= this.maximumSize)
+        {
+            return;
+        }
+
+        Arrays.sort(entries, 0, numberOfEntries, new OldestFirst());
+
+        for (int i = 0; (i < numberOfEntries) && (size > this.maximumSize); i++)
+        {
+            size -= entries[i].length();
+
+            if (entries[i].delete() == false)
+            {
+                Debug.printWarning("Can't remove cache entry ", entries[i].getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public synchronized void clear()
+    {
+        final File[] files = this.directory.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        for (final File file : files)
+        {
+            if (file.getName()
+                    .endsWith(SceneCache.EXTENSION_ENTRY) == true)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Current cache size in bytes
+     *
+     * @return Current cache size in bytes
+     */
+    public long getSize()
+    {
+        final File[] files = this.directory.listFiles();
+
+        if (files == null)
+        {
+            return 0;
+        }
+
+        long size = 0;
+
+        for (final File file : files)
+        {
+            if (file.getName()
+                    .endsWith(SceneCache.EXTENSION_ENTRY) == true)
+            {
+                size += file.length();
+            }
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,62 @@
+package jhelp.android.api.engine;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Convert a scene zip with XML description to binary scene.<br>
+ * Binary scene loads faster : no XML parsing, no number parsing and files can be memory mapped (See
+ * {@link Scene3D#loadScene(java.io.File)})
+ *
+ * @author JHelp
+ */
+public final class SceneConverter
+{
+    /**
+     * Convert a scene zip with XML description to binary scene.<br>
+     * Zip stream is closed at the end, binary stream is not
+     *
+     * @param zipStream    Stream on zip with XML description
+     * @param binaryStream Stream where write the binary scene
+     * @throws Exception On reading or writing issue
+     */
+    public static void convert(final InputStream zipStream, final OutputStream binaryStream) throws Exception
+    {
+        SceneConverter.convert(zipStream, binaryStream, false);
+    }
+
+    /**
+     * Convert a scene zip with XML description to binary scene.<br>
+     * Prepared textures are decoded, with their mipmap chain, opaque ones compressed in ETC1 : the
+     * scene loads faster and takes less video memory, but the file is bigger and can only be used on
+     * Android (Preparation uses Android image decoder).<br>
+     * Zip stream is closed at the end, binary stream is not
+     *
+     * @param zipStream       Stream on zip with XML description
+     * @param binaryStream    Stream where write the binary scene
+     * @param prepareTextures Indicates if textures are prepared or kept as images
+     * @throws Exception On reading or writing issue
+     */
+    public static void convert(final InputStream zipStream, final OutputStream binaryStream,
+                               final boolean prepareTextures) throws Exception
+    {
+        if (zipStream == null)
+        {
+            throw new NullPointerException("zipStream musn't be null");
+        }
+
+        if (binaryStream == null)
+        {
+            throw new NullPointerException("binaryStream musn't be null");
+        }
+
+        new LoaderScene(zipStream, new SceneBinaryWriter(binaryStream, prepareTextures));
+    }
+
+    /**
+     * To avoid instance
+     */
+    private SceneConverter()
+    {
+    }
+}
@@ -0,0 +1,593 @@
+package jhelp.android.api.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Semaphore;
+
+import jhelp.android.api.R;
+import jhelp.android.api.engine.util.ArrayInt;
+import jhelp.android.api.engine.util.Debug;
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Scene handler that creates the scene in {@link Scene3D#SCENE3D}.<br>
+ * Textures are decoded in parallel by asset decoding jobs (See {@link JobSystem}) while the scene
+ * description continues to be read. The number of textures waiting or decoding in jobs is limited
+ * (See {@link Scene3D#setTextureDecoders(int)}), to cap memory peak : when the limit is reached,
+ * the texture is decoded by the loading itself. Textures are given to their materials as soon as
+ * they are decoded.<br>
+ * The scene ends in a job that depends on decoding jobs, so loading never blocks waiting them. If
+ * textures are packed (See {@link Scene3D#setTextureAtlasPageSize(int)}), the scene is added to the
+ * root only at scene end, after textures packing
+ *
+ * @author JHelp
+ */
+class SceneCreator
+        implements SceneHandler
+{
+    /**
+     * Decode a texture and give it to its materials
+     *
+     * @author JHelp
+     */
+    class DecodeTexture
+            implements Runnable
+    {
+        /**
+         * Image data
+         */
+        private final byte[] image;
+        /**
+         * Texture name
+         */
+        private final String name;
+
+        /**
+         * Create a new instance of DecodeTexture
+         *
+         * @param name  Texture name
+         * @param image Image data
+         */
+        DecodeTexture(final String name, final byte[] image)
+        {
+            this.name = name;
+            this.image = image;
+        }
+
+        /**
+         * Decode the texture <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @see Runnable#run()
+         */
+        public void run()
+        {
+            try
+            {
+                SceneCreator.this.decode(this.name, this.image);
+            }
+            finally
+            {
+                SceneCreator.this.decoding.release();
+            }
+        }
+    }
+
+    /**
+     * Pack textures, add the scene to the root if need, then free loading information
+     *
+     * @author JHelp
+     */
+    class FinishScene
+            implements Runnable
+    {
+        /**
+         * Create a new instance of FinishScene
+         */
+        FinishScene()
+        {
+        }
+
+        /**
+         * Finish the scene <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @see Runnable#run()
+         */
+        public void run()
+        {
+            SceneCreator.this.finishScene();
+        }
+    }
+
+    /**
+     * Texture decoding jobs not waited yet by scene end. Only used by loading
+     */
+    private final ArrayList<Job>                     decodeJobs;
+    /**
+     * Limits the number of textures waiting or decoding in jobs
+     */
+    private final Semaphore                          decoding;
+    /**
+     * Job system that decodes textures and finishes the scene
+     */
+    private final JobSystem                          jobSystem;
+    /**
+     * Materials list
+     */
+    private final HashMap<String, Material>          materials;
+    /**
+     * Nodes by creation order
+     */
+    private final ArrayList<Node3D>                  nodes;
+    /**
+     * Nodes by name
+     */
+    private final HashMap<String, Node3D>            nodesByName;
+    /**
+     * Nodes to add to the scene root when the scene ends, once textures are packed. Empty if
+     * textures are not packed, nodes are added immediately
+     */
+    private final ArrayList<Node3D>                  roots;
+    /**
+     * Texture atlas page size, 0 if textures are not packed
+     */
+    private final int                                textureAtlasPageSize;
+    /**
+     * Textures list
+     */
+    private final HashMap<String, Texture>           textures;
+    /**
+     * Textures, materials association
+     */
+    private final HashMap<String, ArrayList<String>> texturesMaterials;
+
+    /**
+     * Create a new instance of SceneCreator
+     */
+    SceneCreator()
+    {
+        this(Scene3D.SCENE3D.getTextureDecoders(), Scene3D.SCENE3D.getJobSystem());
+    }
+
+    /**
+     * Create a new instance of SceneCreator
+     *
+     * @param textureDecoders Maximum number of textures waiting or decoding in jobs
+     * @param jobSystem       Job system that decodes textures and finishes the scene
+     */
+    SceneCreator(final int textureDecoders, final JobSystem jobSystem)
+    {
+        if (textureDecoders < 1)
+        {
+            throw new IllegalArgumentException("textureDecoders MUST be >0 not " + textureDecoders);
+        }
+
+        if (jobSystem == null)
+        {
+            throw new NullPointerException("jobSystem musn't be null");
+        }
+
+        this.jobSystem = jobSystem;
+
+        this.decoding = new Semaphore(textureDecoders);
+        this.decodeJobs = new ArrayList<Job>();
+        this.materials = new HashMap<String, Material>();
+        this.texturesMaterials = new HashMap<String, ArrayList<String>>();
+        this.nodes = new ArrayList<Node3D>();
+        this.nodesByName = new HashMap<String, Node3D>();
+        this.roots = new ArrayList<Node3D>();
+        this.textureAtlasPageSize = Scene3D.SCENE3D.getTextureAtlasPageSize();
+        this.textures = new HashMap<String, Texture>();
+    }
+
+    /**
+     * Decode a texture and give it to its materials
+     *
+     * @param name  Texture name
+     * @param image Image data
+     */
+    private void decode(final String name, final byte[] image)
+    {
+        try
+        {
+            this.bindTexture(name, new Texture(new ByteArrayInputStream(image)));
+        }
+        catch (final Exception exception)
+        {
+            Debug.printException(exception, "Decoding texture failed ! ", name);
+        }
+    }
+
+    /**
+     * Give a texture to materials that wait it
+     *
+     * @param name    Texture name
+     * @param texture Texture
+     */
+    void bindTexture(final String name, final Texture texture)
+    {
+        synchronized (this.textures)
+        {
+            this.textures.put(name, texture);
+
+            final ArrayList<String> materialList = this.texturesMaterials.get(name);
+
+            if (materialList != null)
+            {
+                for (final String mat : materialList)
+                {
+                    this.materials.get(mat).texture = texture;
+                }
+            }
+        }
+
+        Scene3D.SCENE3D.requestRender();
+    }
+
+    /**
+     * Pack textures and add the scene to the root if need, then free loading information.<br>
+     * Called when all textures are decoded
+     */
+    void finishScene()
+    {
+        if ((this.textureAtlasPageSize > 0) && (this.roots.isEmpty() == false))
+        {
+            // Nodes are not in the scene yet, so nothing is draw or send to video memory while packing
+            final TextureAtlas textureAtlas = new TextureAtlas(this.textureAtlasPageSize);
+            textureAtlas.pack(this.roots);
+            Debug.printVerbose("Textures packed : ", textureAtlas.getNumberOfPackedTextures(), " in ",
+                               textureAtlas.getNumberOfPages(), " pages, occupancy ", textureAtlas.getOccupancy(),
+                               " ; not packed : ", textureAtlas.getNumberOfRejectedTextures());
+
+            final Node3D root = Scene3D.SCENE3D.getRoot();
+
+            for (final Node3D node : this.roots)
+            {
+                root.addChild(node);
+            }
+        }
+
+        this.materials.clear();
+        this.textures.clear();
+        this.texturesMaterials.clear();
+        this.nodes.clear();
+        this.nodesByName.clear();
+        this.roots.clear();
+    }
+
+    /**
+     * Create and play an animation <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param nodeName       Animated node name
+     * @param fps            Animation FPS
+     * @param frames         Frames numbers
+     * @param positions      Frames positions
+     * @param numberOfFrames Number of frames
+     * @see jhelp.android.api.engine.SceneHandler#animation(String, int, int[], Position3D[], int)
+     */
+    public void animation(final String nodeName, final int fps, final int[] frames, final Position3D[] positions,
+                          final int numberOfFrames)
+    {
+        final Node3D node = this.nodesByName.get(nodeName);
+
+        if (node == null)
+        {
+            return;
+        }
+
+        final Animation animation = new Animation(node, fps);
+
+        for (int i = 0; i < numberOfFrames; i++)
+        {
+            animation.addFrame(frames[i], positions[i]);
+        }
+
+        Scene3D.SCENE3D.playAnimation(animation);
+    }
+
+    /**
+     * Finish the scene in a job that waits textures decoding (See {@link #finishScene()}) <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @see jhelp.android.api.engine.SceneHandler#endScene()
+     */
+    public void endScene()
+    {
+        final Job[] decodeJobs = this.decodeJobs.toArray(new Job[this.decodeJobs.size()]);
+        this.decodeJobs.clear();
+        this.jobSystem.submit(JobPriority.ASSET_LOADING, new FinishScene(), decodeJobs);
+    }
+
+    /**
+     * Create a material <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name        Material name
+     * @param alpha       Material alpha
+     * @param diffuse     Diffuse color
+     * @param textureName Texture name, {@code null} if no texture
+     * @see jhelp.android.api.engine.SceneHandler#material(String, float, Color4f, String)
+     */
+    public void material(final String name, final float alpha, final Color4f diffuse, final String textureName)
+    {
+        final Material material = new Material();
+        material.alpha = alpha;
+        material.diffuseColor = diffuse;
+
+        synchronized (this.textures)
+        {
+            this.materials.put(name, material);
+
+            if (textureName != null)
+            {
+                material.texture = this.textures.get(textureName);
+
+                ArrayList<String> materialList = this.texturesMaterials.get(textureName);
+
+                if (materialList == null)
+                {
+                    materialList = new ArrayList<String>();
+                    this.texturesMaterials.put(textureName, materialList);
+                }
+
+                materialList.add(name);
+            }
+        }
+    }
+
+    /**
+     * Create a node <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param parent            Parent node index or {@link #ROOT}
+     * @param type              Node type
+     * @param name              Node name
+     * @param cloned            Cloned object name
+     * @param materialName      Material name
+     * @param position          Node position
+     * @param doubleFace        Indicates if object is double face
+     * @param numberOfTriangles Number of triangles
+     * @param indexPoint        Points indexes
+     * @param indexUV           UVs indexes
+     * @see jhelp.android.api.engine.SceneHandler#node(int, int, String, String, String, Position3D,
+     * boolean, int, ArrayInt, ArrayInt)
+     */
+    public void node(final int parent, final int type, final String name, final String cloned,
+                     final String materialName, final Position3D position, final boolean doubleFace,
+                     final int numberOfTriangles, final ArrayInt indexPoint, final ArrayInt indexUV)
+    {
+        final Node3D node;
+
+        switch (type)
+        {
+            case R.id.NODE_3D_TYPE_CLONE:
+                node = new Clone3D((Object3D) this.nodesByName.get(cloned));
+
+                if (materialName != null)
+                {
+                    synchronized (this.textures)
+                    {
+                        ((Clone3D) node).material = this.materials.get(materialName);
+                    }
+                }
+                break;
+            case R.id.NODE_3D_TYPE_OBJECT:
+                final Object3D object3D = new Object3D();
+
+                if (materialName != null)
+                {
+                    synchronized (this.textures)
+                    {
+                        object3D.material = this.materials.get(materialName);
+                    }
+                }
+
+                object3D.numberOfTriangles = numberOfTriangles;
+                object3D.doubleFace = doubleFace;
+                object3D.indexPoint = indexPoint;
+                object3D.indexUV = indexUV;
+                object3D.compact();
+
+                node = object3D;
+                break;
+            default:
+                node = new Node3D();
+                break;
+        }
+
+        node.position.x = position.x;
+        node.position.y = position.y;
+        node.position.z = position.z;
+        node.position.angleX = position.angleX;
+        node.position.angleY = position.angleY;
+        node.position.angleZ = position.angleZ;
+        node.position.scaleX = position.scaleX;
+        node.position.scaleY = position.scaleY;
+        node.position.scaleZ = position.scaleZ;
+
+        if ((parent == SceneHandler.ROOT) && (this.textureAtlasPageSize > 0))
+        {
+            // Added to the scene once textures are packed
+            this.roots.add(node);
+        }
+        else if (parent == SceneHandler.ROOT)
+        {
+            Scene3D.SCENE3D.getRoot()
+                           .addChild(node);
+        }
+        else
+        {
+            this.nodes.get(parent)
+                      .addChild(node);
+        }
+
+        this.nodes.add(node);
+        this.nodesByName.put(name, node);
+    }
+
+    /**
+     * Add 2D points to {@link PoolPoints} <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param coordinates    Coordinates : U, V for each point
+     * @param numberOfPoints Number of points
+     * @see jhelp.android.api.engine.SceneHandler#points2D(float[], int)
+     */
+    public void points2D(final float[] coordinates, final int numberOfPoints)
+    {
+        final int length = numberOfPoints << 1;
+
+        for (int i = 0; i < length; i += 2)
+        {
+            PoolPoints.storePoint2D(coordinates[i], coordinates[i + 1]);
+        }
+    }
+
+    /**
+     * Add 3D points to {@link PoolPoints} <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param coordinates    Coordinates : X, Y, Z for each point
+     * @param numberOfPoints Number of points
+     * @see jhelp.android.api.engine.SceneHandler#points3D(float[], int)
+     */
+    public void points3D(final float[] coordinates, final int numberOfPoints)
+    {
+        final int length = numberOfPoints * 3;
+
+        for (int i = 0; i < length; i += 3)
+        {
+            PoolPoints.storePoint3D(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+        }
+    }
+
+    /**
+     * Empty the current scene <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @see jhelp.android.api.engine.SceneHandler#startScene()
+     */
+    public void startScene()
+    {
+        Scene3D.SCENE3D.destroy();
+        PoolPoints.clear();
+    }
+
+    /**
+     * Buffer the image and decode it in a job.<br>
+     * If too many textures already wait or decode in jobs, decode it here <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name        Texture name
+     * @param inputStream Stream on image data
+     * @throws Exception On reading issue
+     * @see jhelp.android.api.engine.SceneHandler#texture(String, InputStream)
+     */
+    public void texture(final String name, final InputStream inputStream) throws Exception
+    {
+        final ByteArrayOutputStream image  = new ByteArrayOutputStream(Math.max(inputStream.available(), 8192));
+        final byte[]                buffer = new byte[8192];
+        int                         read   = inputStream.read(buffer);
+
+        while (read >= 0)
+        {
+            image.write(buffer, 0, read);
+            read = inputStream.read(buffer);
+        }
+
+        if (this.decoding.tryAcquire() == true)
+        {
+            this.decodeJobs.add(this.jobSystem.submit(JobPriority.ASSET_DECODING,
+                                                      new DecodeTexture(name, image.toByteArray())));
+        }
+        else
+        {
+            // Enough textures wait decoding jobs, decoding here keeps memory peak limited
+            this.decode(name, image.toByteArray());
+        }
+    }
+
+    /**
+     * Create a texture from decoded pixels <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name   Texture name
+     * @param width  Texture width
+     * @param height Texture height
+     * @param pixels Pixels in RGBA, one byte per component
+     * @see jhelp.android.api.engine.SceneHandler#texturePixels(String, int, int, ByteBuffer)
+     */
+    public void texturePixels(final String name, final int width, final int height, final ByteBuffer pixels)
+    {
+        ByteBuffer direct = pixels;
+
+        if (direct.isDirect() == false)
+        {
+            // Open GL needs a direct buffer
+            direct = UtilBuffer.createByteBuffer(pixels.remaining());
+            direct.put(pixels);
+            direct.position(0);
+        }
+
+        this.bindTexture(name, new Texture(width, height, direct));
+    }
+
+    /**
+     * Create a texture from prepared levels <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param name   Texture name
+     * @param format Levels format
+     * @param width  First level width
+     * @param height First level height
+     * @param levels Levels
+     * @see jhelp.android.api.engine.SceneHandler#textureLevels(String, int, int, int, ByteBuffer[])
+     */
+    public void textureLevels(final String name, final int format, final int width, final int height,
+                              final ByteBuffer[] levels)
+    {
+        for (int level = 0; level < levels.length; level++)
+        {
+            if (levels[level].isDirect() == false)
+            {
+                // Open GL needs a direct buffer
+                final ByteBuffer direct = UtilBuffer.createByteBuffer(levels[level].remaining());
+                direct.put(levels[level]);
+                direct.position(0);
+                levels[level] = direct;
+            }
+        }
+
+        this.bindTexture(name, new Texture(width, height, format, levels));
+    }
+}
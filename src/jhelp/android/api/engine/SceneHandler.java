@@ -0,0 +1,137 @@
+package jhelp.android.api.engine;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import jhelp.android.api.engine.util.ArrayInt;
+
+/**
+ * Receives the elements of a scene, in the order they are read.<br>
+ * Scene readers ({@link LoaderScene} for XML zip, {@link SceneBinaryReader} for binary format)
+ * give elements to a handler that can create the scene ({@link SceneCreator}) or write it in an
+ * other format ({@link SceneBinaryWriter}).<br>
+ * Nodes are identified by their creation order : first node given to
+ * {@link #node(int, int, String, String, String, Position3D, boolean, int, ArrayInt, ArrayInt)}
+ * is 0, second is 1, ...
+ *
+ * @author JHelp
+ */
+interface SceneHandler
+{
+    /**
+     * Parent index for nodes directly under scene root
+     */
+    public static final int ROOT = -1;
+
+    /**
+     * An animation to play
+     *
+     * @param nodeName       Animated node name
+     * @param fps            Animation FPS
+     * @param frames         Frames numbers
+     * @param positions      Frames positions
+     * @param numberOfFrames Number of frames
+     * @throws Exception On handling issue
+     */
+    public void animation(String nodeName, int fps, int[] frames, Position3D[] positions, int numberOfFrames)
+            throws Exception;
+
+    /**
+     * Scene is complete
+     *
+     * @throws Exception On handling issue
+     */
+    public void endScene() throws Exception;
+
+    /**
+     * A material
+     *
+     * @param name        Material name
+     * @param alpha       Material alpha
+     * @param diffuse     Diffuse color
+     * @param textureName Texture name, {@code null} if no texture
+     * @throws Exception On handling issue
+     */
+    public void material(String name, float alpha, Color4f diffuse, String textureName) throws Exception;
+
+    /**
+     * A node
+     *
+     * @param parent            Parent node index or {@link #ROOT}
+     * @param type              Node type : R.id.NODE_3D_TYPE_NODE, R.id.NODE_3D_TYPE_OBJECT or
+     *                          R.id.NODE_3D_TYPE_CLONE
+     * @param name              Node name
+     * @param cloned            Cloned object name (For clone only)
+     * @param materialName      Material name, may be {@code null}
+     * @param position          Node position
+     * @param doubleFace        Indicates if object is double face (For object only)
+     * @param numberOfTriangles Number of triangles (For object only)
+     * @param indexPoint        Points indexes (For object only)
+     * @param indexUV           UVs indexes (For object only)
+     * @throws Exception On handling issue
+     */
+    public void node(int parent, int type, String name, String cloned, String materialName, Position3D position,
+                     boolean doubleFace, int numberOfTriangles, ArrayInt indexPoint, ArrayInt indexUV)
+            throws Exception;
+
+    /**
+     * 2D points (UVs) to add to {@link PoolPoints}.<br>
+     * Coordinates array is reused by the reader after the call, so must not be kept
+     *
+     * @param coordinates    Coordinates : U, V for each point
+     * @param numberOfPoints Number of points
+     * @throws Exception On handling issue
+     */
+    public void points2D(float[] coordinates, int numberOfPoints) throws Exception;
+
+    /**
+     * 3D points to add to {@link PoolPoints}.<br>
+     * Coordinates array is reused by the reader after the call, so must not be kept
+     *
+     * @param coordinates    Coordinates : X, Y, Z for each point
+     * @param numberOfPoints Number of points
+     * @throws Exception On handling issue
+     */
+    public void points3D(float[] coordinates, int numberOfPoints) throws Exception;
+
+    /**
+     * Scene starts
+     *
+     * @throws Exception On handling issue
+     */
+    public void startScene() throws Exception;
+
+    /**
+     * A texture image (JPG or PNG)
+     *
+     * @param name        Texture name
+     * @param inputStream Stream on image data. Stream must not be closed
+     * @throws Exception On handling issue
+     */
+    public void texture(String name, InputStream inputStream) throws Exception;
+
+    /**
+     * A texture already decoded
+     *
+     * @param name   Texture name
+     * @param width  Texture width
+     * @param height Texture height
+     * @param pixels Pixels in RGBA, one byte per component. Buffer can be kept, it is not reused
+     * @throws Exception On handling issue
+     */
+    public void texturePixels(String name, int width, int height, ByteBuffer pixels) throws Exception;
+
+    /**
+     * A texture already prepared for video memory : mipmap chain, may be compressed
+     *
+     * @param name   Texture name
+     * @param format Levels format : {@link TextureLevels#FORMAT_RGBA} or
+     *               {@link TextureLevels#FORMAT_ETC1}
+     * @param width  First level width
+     * @param height First level height
+     * @param levels Levels, from biggest to 1x1. Buffers can be kept, they are not reused
+     * @throws Exception On handling issue
+     */
+    public void textureLevels(String name, int format, int width, int height, ByteBuffer[] levels)
+            throws Exception;
+}
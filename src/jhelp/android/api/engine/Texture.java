@@ -6,13 +6,20 @@ import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.microedition.khronos.opengles.GL10;
 
+import jhelp.android.api.engine.util.Alignment;
 import jhelp.android.api.engine.util.Debug;
+import jhelp.android.api.engine.util.Font;
+import jhelp.android.api.engine.util.TextPosition;
 import jhelp.android.api.engine.util.UtilBuffer;
 import jhelp.android.api.engine.util.UtilMath;
 
@@ -21,7 +28,8 @@ import jhelp.android.api.engine.util.UtilMath;
  * The texture can be mutable or not.<br>
  * Mutable texture can change during time (Draw on it with canvs give by {@link #getCanvas()},
  * paint {@link #getPaint()} or directly on embed bitmap {@link #getBitmap()} and don't forget to
- * refresh {@link #refresh()} to see modification.<br>
+ * refresh {@link #refresh()} to see modification. If only a part changed, refresh only this part
+ * {@link #refresh(int, int, int, int)}, only changed parts are then send to video memory.<br>
  * Mutable texture take more memory in RAM, that's why you can at any moment make mutable texture
  * to immutable {@link #makeImmutable()}, beware reverse operation not possible
  *
@@ -51,10 +59,33 @@ public class Texture
      */
     public static Texture createTexture(InputStream inputStream, boolean mutable)
     {
+        // Image is decoded several times (Bounds, then in place or not), so read the stream once
+        final byte[] data;
+
+        try
+        {
+            final ByteArrayOutputStream image  = new ByteArrayOutputStream(Math.max(inputStream.available(), 8192));
+            final byte[]                buffer = new byte[8192];
+            int                         read   = inputStream.read(buffer);
+
+            while (read >= 0)
+            {
+                image.write(buffer, 0, read);
+                read = inputStream.read(buffer);
+            }
+
+            data = image.toByteArray();
+        }
+        catch (final IOException exception)
+        {
+            Debug.printException(exception, "Can't read image !");
+            return null;
+        }
+
         Options options = new Options();
         options.inScaled = false;
         options.inJustDecodeBounds = true;
-        BitmapFactory.decodeStream(inputStream, null, options);
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
         int width      = options.outWidth;
         int log2Width  = UtilMath.log2(width);
         int height     = options.outHeight;
@@ -68,7 +99,36 @@ public class Texture
             options.inSampleSize = 1 << (log2 - 9);
         }
 
-        Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+        final BitmapPool bitmapPool = Scene3D.SCENE3D.getBitmapPool();
+        options.inMutable = true;
+
+        if (options.inSampleSize == 1)
+        {
+            // Decode in place only possible for same size
+            options.inBitmap = bitmapPool.obtainBitmap(width, height);
+        }
+
+        Bitmap bitmap;
+
+        try
+        {
+            bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+        catch (final IllegalArgumentException exception)
+        {
+            // Image format not decodable in place
+            bitmapPool.release(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+
+        if (bitmap == null)
+        {
+            Debug.printWarning("Can't decode image !");
+            bitmapPool.release(options.inBitmap);
+            return null;
+        }
+
         width = options.outWidth;
         log2Width = UtilMath.log2(width);
         int finalWidth = 1 << log2Width;
@@ -78,18 +138,75 @@ public class Texture
 
         if (width != finalWidth || height != finalHeight)
         {
-            Bitmap sample = Bitmap.createScaledBitmap(bitmap, finalWidth, finalHeight, false);
-            bitmap.recycle();
+            Bitmap sample = bitmapPool.obtainBitmap(finalWidth, finalHeight);
+            sample.eraseColor(0);
+            new Canvas(sample).drawBitmap(bitmap, null, new Rect(0, 0, finalWidth, finalHeight), null);
+            bitmapPool.release(bitmap);
             bitmap = sample;
         }
 
         return new Texture(bitmap, mutable);
     }
 
+    /**
+     * Multiply a color component by alpha, rounded like Android does for premultiplied bitmaps
+     *
+     * @param component Color component
+     * @param alpha     Alpha
+     * @return Premultiplied component
+     */
+    private static int premultiply(final int component, final int alpha)
+    {
+        final int product = (component * alpha) + 128;
+        return (product + (product >> 8)) >> 8;
+    }
+
+    /**
+     * Maximum number of dirty rectangles kept, more are merged
+     */
+    private static final int           MAXIMUM_DIRTY = 8;
+    /**
+     * Next texture sort key
+     */
+    private static final AtomicInteger NEXT_SORT_KEY = new AtomicInteger(0);
+
+    /**
+     * Dirty rectangles (x, y, width, height), for mutable texture
+     */
+    private final int[] dirty = new int[Texture.MAXIMUM_DIRTY << 2];
+    /**
+     * Number of dirty rectangles
+     */
+    private int        dirtyCount;
+    /**
+     * Dirty rectangle pixels read buffer
+     */
+    private int[]      dirtyPixels;
+    /**
+     * Indicates if texture was removed from video memory
+     */
+    private boolean    evicted;
+    /**
+     * Levels format, if texture created from levels
+     */
+    private int        format;
     /**
      * Texture height
      */
     private int        height;
+    /**
+     * Frame of last use (See {@link TextureManager})
+     */
+    private int        lastUse;
+    /**
+     * Prepared levels (See {@link TextureLevels}), {@code null} if texture not created from levels
+     * or levels not kept
+     */
+    private ByteBuffer[] levels;
+    /**
+     * Indicates if levels are kept after send to video memory
+     */
+    private boolean    levelsKept;
     /**
      * Indicates if texture need to be refresh
      */
@@ -98,10 +215,39 @@ public class Texture
      * Texture pixel
      */
     private ByteBuffer pixels;
+    /**
+     * Indicates if pixels buffer comes from bitmap pool, so can go back in it
+     */
+    private boolean    pixelsPooled;
+    /**
+     * Link in texture manager while in video memory, {@code null} if not tracked
+     */
+    private TextureManager.Resident resident;
+    /**
+     * Pixels kept to send again the texture after removed from video memory. Only read only pixels
+     * (Memory mapped scenes) are kept, since they not take memory
+     */
+    private ByteBuffer source;
+    /**
+     * Indicates if video memory storage is allocated
+     */
+    private boolean    storageAllocated;
+    /**
+     * Bounds of text drawn directly, for mutable texture
+     */
+    private final Rect textBounds = new Rect();
+    /**
+     * Pixels of text drawn directly, for mutable texture
+     */
+    private int[]      textPixels;
     /**
      * Video memory ID
      */
     private int        videoMemoryId;
+    /**
+     * Estimated video memory used in bytes, 0 if not in video memory
+     */
+    private long       videoMemorySize;
     /**
      * Texture width
      */
@@ -122,6 +268,10 @@ public class Texture
      * Paint for draw on texture, if mutable
      */
     private Paint      paint;
+    /**
+     * Key used to sort draws by texture
+     */
+    final int          sortKey = Texture.NEXT_SORT_KEY.getAndIncrement();
 
     /**
      * Create texture from good size bitmap
@@ -136,6 +286,55 @@ public class Texture
         this.setBitMap(bitmap, mutable);
     }
 
+    /**
+     * Create a new instance of not mutable Texture from already decoded pixels.<br>
+     * Pixels buffer is used as is (Not copied), so it can be a memory mapped file. Read only pixels
+     * are kept to send again the texture if removed from video memory (See {@link TextureManager})
+     *
+     * @param width  Texture width
+     * @param height Texture height
+     * @param pixels Pixels in RGBA, one byte per component. Must be a direct buffer
+     */
+    Texture(final int width, final int height, final ByteBuffer pixels)
+    {
+        this.videoMemoryId = -1;
+        this.needToRefresh = true;
+        this.mutable = false;
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+
+        if (pixels.isReadOnly() == true)
+        {
+            // Memory mapped scene : pixels can be read again for free
+            this.source = pixels;
+        }
+    }
+
+    /**
+     * Create a new instance of not mutable Texture from prepared levels (See {@link TextureLevels}).<br>
+     * Levels are used as is (Not copied), so they can be in a memory mapped file. Read only levels
+     * are kept to send again the texture if removed from video memory (See {@link TextureManager})
+     *
+     * @param width  First level width
+     * @param height First level height
+     * @param format Levels format : {@link TextureLevels#FORMAT_RGBA} or
+     *               {@link TextureLevels#FORMAT_ETC1}
+     * @param levels Levels, from biggest to 1x1. Must be direct buffers
+     */
+    Texture(final int width, final int height, final int format, final ByteBuffer[] levels)
+    {
+        this.videoMemoryId = -1;
+        this.needToRefresh = true;
+        this.mutable = false;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.levels = levels;
+        // Memory mapped scene : levels can be read again for free
+        this.levelsKept = levels[0].isReadOnly();
+    }
+
     /**
      * Create a new instance of Texture : 512x512 mutable
      */
@@ -167,7 +366,10 @@ public class Texture
         log2 = UtilMath.log2(height);
         height = 1 << Math.min(log2, 9);
 
-        this.setBitMap(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888), true);
+        final Bitmap bitmap = Scene3D.SCENE3D.getBitmapPool()
+                                             .obtainBitmap(width, height);
+        bitmap.eraseColor(0);
+        this.setBitMap(bitmap, true);
     }
 
     /**
@@ -197,6 +399,8 @@ public class Texture
 
         final Options options = new Options();
         options.inScaled = false;
+        // Mutable bitmap can go in bitmap pool after
+        options.inMutable = true;
 
         this.setBitMap(BitmapFactory.decodeStream(inputStream, null, options), mutable);
     }
@@ -230,8 +434,32 @@ public class Texture
 
         final Options options = new Options();
         options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resourceID, options);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        final BitmapPool bitmapPool = Scene3D.SCENE3D.getBitmapPool();
+
+        if ((options.outWidth > 0) && (options.outHeight > 0))
+        {
+            options.inBitmap = bitmapPool.obtainBitmap(options.outWidth, options.outHeight);
+        }
+
+        Bitmap bitmap;
+
+        try
+        {
+            bitmap = BitmapFactory.decodeResource(resources, resourceID, options);
+        }
+        catch (final IllegalArgumentException exception)
+        {
+            // Image format not decodable in place
+            bitmapPool.release(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeResource(resources, resourceID, options);
+        }
 
-        this.setBitMap(BitmapFactory.decodeResource(resources, resourceID, options), mutable);
+        this.setBitMap(bitmap, mutable);
     }
 
     /**
@@ -260,16 +488,18 @@ public class Texture
             return;
         }
 
+        final BitmapPool bitmapPool = Scene3D.SCENE3D.getBitmapPool();
         this.mutable = mutable;
         this.width = bitmap.getWidth();
         this.height = bitmap.getHeight();
-        this.pixels = UtilBuffer.createByteBuffer((this.width * this.height) << 2);
+        this.pixels = bitmapPool.obtainBuffer((this.width * this.height) << 2);
+        this.pixelsPooled = true;
 
         if (this.mutable == false)
         {
             bitmap.copyPixelsToBuffer(this.pixels);
             this.pixels.position(0);
-            bitmap.recycle();
+            bitmapPool.release(bitmap);
         }
         else
         {
@@ -279,26 +509,162 @@ public class Texture
             }
             else
             {
-                int width = bitmap.getWidth();
-                int height = bitmap.getHeight();
-                this.bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-                final int pixels[] = new int[width * height];
-                bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-                this.bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-                bitmap.recycle();
+                this.bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+                bitmapPool.release(bitmap);
             }
         }
 
-        System.gc();
         this.needToRefresh = true;
     }
 
     /**
-     * Apply texture to Open GL
+     * Add a dirty rectangle, clipped to texture.<br>
+     * Rectangles inside an other one are ignored, if too many rectangles, they are merged in one
+     *
+     * @param x      Rectangle X
+     * @param y      Rectangle Y
+     * @param width  Rectangle width
+     * @param height Rectangle height
+     */
+    private void addDirty(int x, int y, int width, int height)
+    {
+        int right  = Math.min(this.width, x + width);
+        int bottom = Math.min(this.height, y + height);
+        x = Math.max(0, x);
+        y = Math.max(0, y);
+
+        if ((x >= right) || (y >= bottom))
+        {
+            return;
+        }
+
+        synchronized (this.dirty)
+        {
+            int index;
+
+            for (int rectangle = this.dirtyCount - 1; rectangle >= 0; rectangle--)
+            {
+                index = rectangle << 2;
+
+                if ((this.dirty[index] <= x) && (this.dirty[index + 1] <= y)
+                        && ((this.dirty[index] + this.dirty[index + 2]) >= right)
+                        && ((this.dirty[index + 1] + this.dirty[index + 3]) >= bottom))
+                {
+                    // Already dirty
+                    return;
+                }
+
+                if ((x <= this.dirty[index]) && (y <= this.dirty[index + 1])
+                        && (right >= (this.dirty[index] + this.dirty[index + 2]))
+                        && (bottom >= (this.dirty[index + 1] + this.dirty[index + 3])))
+                {
+                    // Covered by the new one
+                    this.dirtyCount--;
+                    System.arraycopy(this.dirty, this.dirtyCount << 2, this.dirty, index, 4);
+                }
+            }
+
+            if (this.dirtyCount == Texture.MAXIMUM_DIRTY)
+            {
+                for (int rectangle = this.dirtyCount - 1; rectangle >= 0; rectangle--)
+                {
+                    index = rectangle << 2;
+                    right = Math.max(right, this.dirty[index] + this.dirty[index + 2]);
+                    bottom = Math.max(bottom, this.dirty[index + 1] + this.dirty[index + 3]);
+                    x = Math.min(x, this.dirty[index]);
+                    y = Math.min(y, this.dirty[index + 1]);
+                }
+
+                this.dirtyCount = 0;
+            }
+
+            index = this.dirtyCount << 2;
+            this.dirty[index] = x;
+            this.dirty[index + 1] = y;
+            this.dirty[index + 2] = right - x;
+            this.dirty[index + 3] = bottom - y;
+            this.dirtyCount++;
+        }
+    }
+
+    /**
+     * Send dirty rectangles to video memory.<br>
+     * Texture must be bound
      *
      * @param gl Open GL link
      */
-    void bind(final GL10 gl)
+    private void uploadDirty(final GL10 gl)
+    {
+        int x;
+        int y;
+        int width;
+        int height;
+        int size;
+        int color;
+        int alpha;
+
+        while (true)
+        {
+            synchronized (this.dirty)
+            {
+                if (this.dirtyCount == 0)
+                {
+                    return;
+                }
+
+                this.dirtyCount--;
+                final int index = this.dirtyCount << 2;
+                x = this.dirty[index];
+                y = this.dirty[index + 1];
+                width = this.dirty[index + 2];
+                height = this.dirty[index + 3];
+            }
+
+            size = width * height;
+
+            if ((this.dirtyPixels == null) || (this.dirtyPixels.length < size))
+            {
+                this.dirtyPixels = new int[size];
+            }
+
+            // Bitmap gives not premultiplied ARGB, video memory has premultiplied RGBA
+            this.bitmap.getPixels(this.dirtyPixels, 0, width, x, y, width, height);
+            this.pixels.clear();
+
+            for (int pixel = 0; pixel < size; pixel++)
+            {
+                color = this.dirtyPixels[pixel];
+                alpha = color >>> 24;
+                this.pixels.put((byte) Texture.premultiply((color >> 16) & 0xFF, alpha));
+                this.pixels.put((byte) Texture.premultiply((color >> 8) & 0xFF, alpha));
+                this.pixels.put((byte) Texture.premultiply(color & 0xFF, alpha));
+                this.pixels.put((byte) alpha);
+            }
+
+            this.pixels.position(0);
+            gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, x, y, width, height, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE,
+                               this.pixels);
+        }
+    }
+
+    /**
+     * Texture pixels in RGBA, one byte per component.<br>
+     * Available only before the texture is send to video memory, or if texture is mutable
+     *
+     * @return Texture pixels or {@code null} if not available
+     */
+    ByteBuffer getPixels()
+    {
+        return this.pixels;
+    }
+
+    /**
+     * Apply texture to Open GL
+     *
+     * @param gl      Open GL link
+     * @param glState State tracker that filters redundant bind. {@code null} for always bind
+     */
+    void bind(final GL10 gl, final GLState glState)
     {
         // If no video memory ID, create it
         if (this.videoMemoryId < 0)
@@ -311,37 +677,212 @@ public class Texture
             this.videoMemoryId = UtilBuffer.TEMPORARY_INT_BUFFER.get();
         }
 
+        // If mutable texture already in video memory, only changed parts are send
+        if ((this.storageAllocated == true) && (this.mutable == true))
+        {
+            if (this.dirtyCount > 0)
+            {
+                gl.glBindTexture(GL10.GL_TEXTURE_2D, this.videoMemoryId);
+
+                if (glState != null)
+                {
+                    glState.textureBound(this.videoMemoryId);
+                }
+
+                this.uploadDirty(gl);
+            }
+        }
         // If the texture need to be refresh
-        if ((this.needToRefresh == true) && (this.pixels != null))
+        else if ((this.needToRefresh == true)
+                && ((this.pixels != null) || (this.levels != null) || (this.mutable == true)))
         {
             if (this.mutable == true)
             {
+                if (this.pixels == null)
+                {
+                    // Freed when removed from video memory
+                    this.pixels = Scene3D.SCENE3D.getBitmapPool()
+                                                 .obtainBuffer((this.width * this.height) << 2);
+                    this.pixelsPooled = true;
+                }
+
                 this.pixels.clear();
                 this.bitmap.copyPixelsToBuffer(this.pixels);
             }
 
-            this.pixels.position(0);
-
             // Push pixels in video memory
             gl.glBindTexture(GL10.GL_TEXTURE_2D, this.videoMemoryId);
+
+            if (glState != null)
+            {
+                glState.textureBound(this.videoMemoryId);
+            }
+
             gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MAG_FILTER, GL10.GL_LINEAR);
-            gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, GL10.GL_LINEAR);
             gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_S, GL10.GL_REPEAT);
             gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_T, GL10.GL_REPEAT);
-            gl.glTexImage2D(GL10.GL_TEXTURE_2D, 0, GL10.GL_RGBA, this.width, this.height, 0,
-                            GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, this.pixels);
+            final long videoMemorySize;
 
-            if (this.mutable == false)
+            if (this.levels != null)
             {
-                this.pixels.clear();
-                this.pixels = null;
+                videoMemorySize = TextureLevels.upload(gl, this.format, this.width, this.height, this.levels);
+
+                if (this.levelsKept == false)
+                {
+                    this.levels = null;
+                }
+            }
+            else
+            {
+                this.pixels.position(0);
+                gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, GL10.GL_LINEAR);
+                gl.glTexImage2D(GL10.GL_TEXTURE_2D, 0, GL10.GL_RGBA, this.width, this.height, 0,
+                                GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, this.pixels);
+                videoMemorySize = (this.width * this.height) << 2;
+            }
+
+            this.storageAllocated = true;
+            Scene3D.SCENE3D.getTextureManager()
+                           .allocated(this, this.videoMemoryId, videoMemorySize, this.evicted);
+            this.evicted = false;
+
+            synchronized (this.dirty)
+            {
+                // All is up to date
+                this.dirtyCount = 0;
+            }
+
+            if ((this.mutable == false) && (this.pixels != null))
+            {
+                this.releasePixels();
             }
         }
+
+        this.lastUse = Scene3D.SCENE3D.getTextureManager()
+                                      .getFrame();
+
         // Draw the texture
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, this.videoMemoryId);
+        if (glState != null)
+        {
+            glState.bindTexture(gl, this.videoMemoryId);
+        }
+        else
+        {
+            gl.glBindTexture(GL10.GL_TEXTURE_2D, this.videoMemoryId);
+        }
+
         this.needToRefresh = false;
     }
 
+    /**
+     * Remove the texture from video memory.<br>
+     * It will be send again at next draw. Must be called by render thread
+     *
+     * @param gl Open GL link
+     */
+    void evict(final GL10 gl)
+    {
+        if (this.videoMemoryId >= 0)
+        {
+            UtilBuffer.TEMPORARY_INT_BUFFER.rewind();
+            UtilBuffer.TEMPORARY_INT_BUFFER.put(this.videoMemoryId);
+            UtilBuffer.TEMPORARY_INT_BUFFER.rewind();
+            gl.glDeleteTextures(1, UtilBuffer.TEMPORARY_INT_BUFFER);
+        }
+
+        this.videoMemoryId = -1;
+        this.videoMemorySize = 0;
+        this.storageAllocated = false;
+        this.needToRefresh = true;
+        this.evicted = true;
+
+        if (this.mutable == true)
+        {
+            // Bitmap is the reference, pixels buffer is created again when need
+            this.releasePixels();
+        }
+        else if (this.source != null)
+        {
+            this.pixels = this.source.duplicate();
+        }
+    }
+
+    /**
+     * Frame of last use (See {@link TextureManager})
+     *
+     * @return Frame of last use
+     */
+    int getLastUse()
+    {
+        return this.lastUse;
+    }
+
+    /**
+     * Estimated video memory used
+     *
+     * @return Estimated video memory used in bytes, 0 if not in video memory
+     */
+    long getVideoMemorySize()
+    {
+        return this.videoMemorySize;
+    }
+
+    /**
+     * Link in texture manager while in video memory (See {@link TextureManager})
+     *
+     * @return Link in texture manager or {@code null} if not tracked
+     */
+    TextureManager.Resident getResident()
+    {
+        return this.resident;
+    }
+
+    /**
+     * Indicates if texture can be removed from video memory, because it can rebuild its pixels
+     *
+     * @return {@code true} if texture can be removed from video memory
+     */
+    boolean isEvictable()
+    {
+        return (this.mutable == true) || (this.source != null) || (this.levelsKept == true);
+    }
+
+    /**
+     * Release pixels buffer : it goes back in bitmap pool, if it comes from it.<br>
+     * Pixels must not be used after
+     */
+    void releasePixels()
+    {
+        if (this.pixelsPooled == true)
+        {
+            Scene3D.SCENE3D.getBitmapPool()
+                           .release(this.pixels);
+        }
+
+        this.pixels = null;
+        this.pixelsPooled = false;
+    }
+
+    /**
+     * Change link in texture manager
+     *
+     * @param resident Link in texture manager or {@code null} if not tracked
+     */
+    void setResident(final TextureManager.Resident resident)
+    {
+        this.resident = resident;
+    }
+
+    /**
+     * Change estimated video memory used
+     *
+     * @param videoMemorySize Estimated video memory used in bytes
+     */
+    void setVideoMemorySize(final long videoMemorySize)
+    {
+        this.videoMemorySize = videoMemorySize;
+    }
+
     /**
      * Texture width
      *
@@ -432,13 +973,82 @@ public class Texture
 
     /**
      * Refresh last change to see them.<br>
-     * Do nothing if texture not mutable
+     * Do nothing if texture not mutable.<br>
+     * If only a part of the texture changed, prefer {@link #refresh(int, int, int, int)}
      */
     public void refresh()
+    {
+        this.refresh(0, 0, this.width, this.height);
+    }
+
+    /**
+     * Refresh last change of a part of the texture to see them.<br>
+     * Only changed parts are send to video memory, so it is faster than refresh all texture when
+     * little parts changed. Can be called several times before next draw.<br>
+     * Do nothing if texture not mutable
+     *
+     * @param x      Changed part X
+     * @param y      Changed part Y
+     * @param width  Changed part width
+     * @param height Changed part height
+     */
+    public void refresh(final int x, final int y, final int width, final int height)
     {
         if (this.mutable == true)
         {
+            this.addDirty(x, y, width, height);
             this.needToRefresh = true;
+            Scene3D.SCENE3D.requestRender();
+        }
+    }
+
+    /**
+     * Draw a string directly in texture pixels, without Canvas, then refresh only the text part.<br>
+     * Characters pixels are replaced by the color (Not blend) and text is not anti-aliased. Faster
+     * than draw with {@link Font#drawString(String, int, int, Alignment, TextPosition, Canvas, Paint, Rect)}
+     * on {@link #getCanvas()} then {@link #refresh()}.<br>
+     * Do nothing if texture not mutable
+     *
+     * @param font         Font to use
+     * @param text         Text to draw
+     * @param x            Text X, meaning depends on text position
+     * @param y            Text Y, meaning depends on text position
+     * @param alignment    Lines alignment
+     * @param textPosition Text position relative to (x, y)
+     * @param color        Text color in ARGB
+     */
+    public void drawString(final Font font, final String text, final int x, final int y,
+                           final Alignment alignment, final TextPosition textPosition, final int color)
+    {
+        if (this.mutable == false)
+        {
+            return;
+        }
+
+        synchronized (this.textBounds)
+        {
+            font.textBounds(text, x, y, textPosition, this.textBounds);
+            final int left   = Math.max(0, this.textBounds.left);
+            final int top    = Math.max(0, this.textBounds.top);
+            final int width  = Math.min(this.width, this.textBounds.right) - left;
+            final int height = Math.min(this.height, this.textBounds.bottom) - top;
+
+            if ((width <= 0) || (height <= 0))
+            {
+                return;
+            }
+
+            if ((this.textPixels == null) || (this.textPixels.length < (width * height)))
+            {
+                this.textPixels = new int[width * height];
+            }
+
+            // Only the text part go through the bitmap, drawn with text origin moved to part origin
+            this.bitmap.getPixels(this.textPixels, 0, width, left, top, width, height);
+            font.drawString(text, x - left, y - top, alignment, textPosition, color, this.textPixels, width,
+                            height, null);
+            this.bitmap.setPixels(this.textPixels, 0, width, left, top, width, height);
+            this.refresh(left, top, width, height);
         }
     }
 
@@ -454,13 +1064,23 @@ public class Texture
         }
 
         this.mutable = false;
+
+        final BitmapPool bitmapPool = Scene3D.SCENE3D.getBitmapPool();
+
+        if (this.pixels == null)
+        {
+            // Freed when removed from video memory
+            this.pixels = bitmapPool.obtainBuffer((this.width * this.height) << 2);
+            this.pixelsPooled = true;
+        }
+
+        this.pixels.clear();
         this.bitmap.copyPixelsToBuffer(this.pixels);
         this.pixels.position(0);
-        this.bitmap.recycle();
+        bitmapPool.release(this.bitmap);
         this.bitmap = null;
         this.canvas = null;
         this.paint = null;
-        System.gc();
         this.needToRefresh = true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,665 @@
+package jhelp.android.api.engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Atlas of textures.<br>
+ * Small textures of a scene are packed in shared pages (512x512 or 1024x1024), then materials use
+ * the page and objects UVs are transformed to point to the texture place in the page. So objects
+ * that differ only by their texture share the same Open GL texture, and are draw without texture
+ * change.<br>
+ * A texture is packed only if :
+ * <ul>
+ * <li>It is not mutable and not already send to video memory</li>
+ * <li>It is at most the half of the page size</li>
+ * <li>All objects that use it have their UVs inside [0, 1] (Atlas can't repeat a texture)</li>
+ * <li>Objects that use it use no other texture (Clones included)</li>
+ * <li>Meshes of objects that use it are not shared outside the hierarchy : a clone of an object
+ * outside, or an object with clones outside, keeps its texture</li>
+ * <li>Its materials are plain {@link Material}</li>
+ * </ul>
+ * Nodes of the hierarchy draw with a packed texture get a copy of their material that uses the page.
+ * Original materials are not changed, so nodes outside the hierarchy that share them are not
+ * affected.<br>
+ * Packed textures are surrounded by a one pixel border that repeats their edges, to avoid
+ * neighbor textures bleed when filtering
+ *
+ * @author JHelp
+ */
+public final class TextureAtlas
+{
+    /**
+     * Atlas page
+     *
+     * @author JHelp
+     */
+    static final class Page
+    {
+        /**
+         * Top of used space for each column (Skyline)
+         */
+        private final int[]   heights;
+        /**
+         * Page pixels in RGBA
+         */
+        final ByteBuffer      pixels;
+        /**
+         * Page size
+         */
+        final int             size;
+        /**
+         * Number of pixels used by textures
+         */
+        int                   usedPixels;
+        /**
+         * Page texture, {@code null} while packing
+         */
+        Texture               texture;
+
+        /**
+         * Create a new instance of Page
+         *
+         * @param size Page size
+         */
+        Page(final int size)
+        {
+            this.size = size;
+            this.heights = new int[size];
+            this.pixels = UtilBuffer.createByteBuffer((size * size) << 2);
+            this.usedPixels = 0;
+        }
+
+        /**
+         * Find a place for a rectangle : the lowest place on the skyline, then the most left
+         *
+         * @param width  Rectangle width
+         * @param height Rectangle height
+         * @param place  Array where write the place X, Y
+         * @return {@code true} if place found
+         */
+        boolean find(final int width, final int height, final int[] place)
+        {
+            int bestY = Integer.MAX_VALUE;
+            int top;
+
+            for (int x = this.size - width; x >= 0; x--)
+            {
+                top = 0;
+
+                for (int column = x + width - 1; column >= x; column--)
+                {
+                    top = Math.max(top, this.heights[column]);
+                }
+
+                if (((top + height) <= this.size) && (top <= bestY))
+                {
+                    bestY = top;
+                    place[0] = x;
+                    place[1] = top;
+                }
+            }
+
+            return bestY != Integer.MAX_VALUE;
+        }
+
+        /**
+         * Copy a texture in the page, with its border
+         *
+         * @param source Texture pixels in RGBA
+         * @param width  Texture width
+         * @param height Texture height
+         * @param x      Place X (Border included)
+         * @param y      Place Y (Border included)
+         */
+        void put(final ByteBuffer source, final int width, final int height, final int x, final int y)
+        {
+            // Duplicates have same byte order, so pixels are copied as is
+            final ByteBuffer from = source.duplicate();
+            final ByteBuffer to   = this.pixels.duplicate();
+            int              sourceY;
+            int              sourceX;
+
+            for (int line = -TextureAtlas.BORDER; line < (height + TextureAtlas.BORDER); line++)
+            {
+                sourceY = Math.max(0, Math.min(height - 1, line));
+
+                for (int column = -TextureAtlas.BORDER; column < (width + TextureAtlas.BORDER); column++)
+                {
+                    sourceX = Math.max(0, Math.min(width - 1, column));
+                    to.putInt(((((y + TextureAtlas.BORDER + line) * this.size) + x + TextureAtlas.BORDER + column) << 2),
+                              from.getInt(((sourceY * width) + sourceX) << 2));
+                }
+            }
+
+            final int right = x + width + (TextureAtlas.BORDER << 1);
+            final int top   = y + height + (TextureAtlas.BORDER << 1);
+
+            for (int column = x; column < right; column++)
+            {
+                this.heights[column] = top;
+            }
+
+            this.usedPixels += width * height;
+        }
+    }
+
+    /**
+     * Objects and materials that use a texture
+     *
+     * @author JHelp
+     */
+    static final class Users
+    {
+        /**
+         * Materials that use the texture
+         */
+        final ArrayList<Material> materials;
+        /**
+         * Nodes (Objects or clones) draw with the texture
+         */
+        final ArrayList<Node3D>   nodes;
+        /**
+         * Objects draw with the texture
+         */
+        final ArrayList<Object3D> objects;
+        /**
+         * Texture
+         */
+        final Texture             texture;
+
+        /**
+         * Create a new instance of Users
+         *
+         * @param texture Texture
+         */
+        Users(final Texture texture)
+        {
+            this.texture = texture;
+            this.materials = new ArrayList<Material>();
+            this.nodes = new ArrayList<Node3D>();
+            this.objects = new ArrayList<Object3D>();
+        }
+    }
+
+    /**
+     * Border size around each texture, in pixels
+     */
+    static final int          BORDER     = 1;
+    /**
+     * Tolerance on UVs limits
+     */
+    private static final float UV_EPSILON = 1e-3f;
+
+    /**
+     * Number of packed textures
+     */
+    private int                    numberOfPackedTextures;
+    /**
+     * Number of textures that can't be packed
+     */
+    private int                    numberOfRejectedTextures;
+    /**
+     * Atlas pages
+     */
+    private final ArrayList<Page> pages;
+    /**
+     * Page size
+     */
+    private final int              pageSize;
+
+    /**
+     * Create a new instance of TextureAtlas
+     *
+     * @param pageSize Page size : 512 or 1024
+     */
+    public TextureAtlas(final int pageSize)
+    {
+        if ((pageSize != 512) && (pageSize != 1024))
+        {
+            throw new IllegalArgumentException("pageSize MUST be 512 or 1024 not " + pageSize);
+        }
+
+        this.pageSize = pageSize;
+        this.pages = new ArrayList<Page>();
+        this.numberOfPackedTextures = 0;
+        this.numberOfRejectedTextures = 0;
+    }
+
+    /**
+     * Collect textures used by objects of a hierarchy
+     *
+     * @param node3d    Hierarchy root
+     * @param visited   Nodes already visited
+     * @param users     Textures users
+     * @param objects   Texture used by each object
+     * @param conflicts Objects that use several textures
+     * @param clones    Number of clones in the hierarchy of each object
+     */
+    private void collect(final Node3D node3d, final IdentityHashMap<Node3D, Node3D> visited,
+                         final IdentityHashMap<Texture, Users> users, final IdentityHashMap<Object3D, Texture> objects,
+                         final IdentityHashMap<Object3D, Object3D> conflicts,
+                         final IdentityHashMap<Object3D, int[]> clones)
+    {
+        if (visited.put(node3d, node3d) != null)
+        {
+            return;
+        }
+
+        if (node3d instanceof Object3D)
+        {
+            final Object3D object3D = (Object3D) node3d;
+            this.register(node3d, object3D, object3D.material, users, objects, conflicts);
+        }
+        else if (node3d instanceof Clone3D)
+        {
+            final Clone3D  clone3D  = (Clone3D) node3d;
+            final Object3D object3D = clone3D.getClonedObject();
+            int[]          count    = clones.get(object3D);
+
+            if (count == null)
+            {
+                count = new int[1];
+                clones.put(object3D, count);
+            }
+
+            count[0]++;
+            this.register(node3d, object3D, clone3D.material, users, objects, conflicts);
+        }
+
+        for (final Node3D child : node3d.getChildren())
+        {
+            this.collect(child, visited, users, objects, conflicts, clones);
+        }
+    }
+
+    /**
+     * Copy of a material that uses a page. Nodes that shared a material share its copy
+     *
+     * @param material Material to copy
+     * @param texture  Page texture
+     * @param copies   Copies already done
+     * @return Material copy
+     */
+    private Material copy(final Material material, final Texture texture,
+                          final IdentityHashMap<Material, Material> copies)
+    {
+        Material copy = copies.get(material);
+
+        if (copy == null)
+        {
+            copy = new Material();
+            copy.alpha = material.alpha;
+            copy.diffuseColor = material.diffuseColor;
+            copy.texture = texture;
+            copies.put(material, copy);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Indicates if a texture can be packed
+     *
+     * @param users     Texture users
+     * @param conflicts Objects that use several textures
+     * @param visited   Nodes of the hierarchy
+     * @param clones    Number of clones in the hierarchy of each object
+     * @param bounds    Array for compute UVs bounds
+     * @return {@code true} if texture can be packed
+     */
+    private boolean isPackable(final Users users, final IdentityHashMap<Object3D, Object3D> conflicts,
+                               final IdentityHashMap<Node3D, Node3D> visited,
+                               final IdentityHashMap<Object3D, int[]> clones, final float[] bounds)
+    {
+        final Texture texture = users.texture;
+        final int     maximum = this.pageSize >> 1;
+
+        if ((texture.isMutable() == true) || (texture.getPixels() == null) || (texture.getWidth() > maximum)
+                || (texture.getHeight() > maximum))
+        {
+            return false;
+        }
+
+        for (final Material material : users.materials)
+        {
+            if (material.getClass() != Material.class)
+            {
+                // Copy would lose what the sub-class adds
+                return false;
+            }
+        }
+
+        int[] count;
+
+        for (final Object3D object3D : users.objects)
+        {
+            if (conflicts.containsKey(object3D) == true)
+            {
+                return false;
+            }
+
+            count = clones.get(object3D);
+
+            // Mesh drawn outside the hierarchy, by the object itself or one of its clones
+            if ((visited.containsKey(object3D) == false)
+                    || (object3D.getNumberOfClones() > (count == null ? 0 : count[0])))
+            {
+                return false;
+            }
+
+            if ((object3D.uvBounds(bounds) == true)
+                    && ((bounds[0] < -TextureAtlas.UV_EPSILON) || (bounds[1] < -TextureAtlas.UV_EPSILON)
+                    || (bounds[2] > (1 + TextureAtlas.UV_EPSILON)) || (bounds[3] > (1 + TextureAtlas.UV_EPSILON))))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Register that an object is draw with a material
+     *
+     * @param node      Node that draws : the object or one of its clones
+     * @param object3D  Object
+     * @param material  Material
+     * @param users     Textures users
+     * @param objects   Texture used by each object
+     * @param conflicts Objects that use several textures
+     */
+    private void register(final Node3D node, final Object3D object3D, final Material material,
+                          final IdentityHashMap<Texture, Users> users, final IdentityHashMap<Object3D, Texture> objects,
+                          final IdentityHashMap<Object3D, Object3D> conflicts)
+    {
+        if ((material == null) || (material.texture == null))
+        {
+            // UVs not used without texture
+            return;
+        }
+
+        final Texture texture  = material.texture;
+        final Texture previous = objects.put(object3D, texture);
+
+        if ((previous != null) && (previous != texture))
+        {
+            conflicts.put(object3D, object3D);
+        }
+
+        Users textureUsers = users.get(texture);
+
+        if (textureUsers == null)
+        {
+            textureUsers = new Users(texture);
+            users.put(texture, textureUsers);
+        }
+
+        if (textureUsers.materials.contains(material) == false)
+        {
+            textureUsers.materials.add(material);
+        }
+
+        if (textureUsers.objects.contains(object3D) == false)
+        {
+            textureUsers.objects.add(object3D);
+        }
+
+        textureUsers.nodes.add(node);
+    }
+
+    /**
+     * Pack the textures of objects in hierarchies
+     *
+     * @param roots Hierarchies roots
+     */
+    void pack(final List<Node3D> roots)
+    {
+        final IdentityHashMap<Texture, Users>     users     = new IdentityHashMap<Texture, Users>();
+        final IdentityHashMap<Object3D, Object3D> conflicts = new IdentityHashMap<Object3D, Object3D>();
+        final IdentityHashMap<Node3D, Node3D>     visited   = new IdentityHashMap<Node3D, Node3D>();
+        final IdentityHashMap<Object3D, Texture>  objects   = new IdentityHashMap<Object3D, Texture>();
+        final IdentityHashMap<Object3D, int[]>    clones    = new IdentityHashMap<Object3D, int[]>();
+
+        for (final Node3D root : roots)
+        {
+            this.collect(root, visited, users, objects, conflicts, clones);
+        }
+
+        final ArrayList<Users> packables = new ArrayList<Users>();
+        final float[]          bounds    = new float[4];
+
+        for (final Users textureUsers : users.values())
+        {
+            if (this.isPackable(textureUsers, conflicts, visited, clones, bounds) == true)
+            {
+                packables.add(textureUsers);
+            }
+            else
+            {
+                this.numberOfRejectedTextures++;
+            }
+        }
+
+        // Tallest first pack better
+        Collections.sort(packables, new Comparator<Users>()
+        {
+            /**
+             * Compare textures by height, then width, descending <br>
+             * <br>
+             * <b>Parent documentation:</b><br>
+             * {@inheritDoc}
+             *
+             * @param users1 First texture users
+             * @param users2 Second texture users
+             * @return Comparison result
+             * @see java.util.Comparator#compare(Object, Object)
+             */
+            public int compare(final Users users1, final Users users2)
+            {
+                final int comparison = users2.texture.getHeight() - users1.texture.getHeight();
+
+                if (comparison != 0)
+                {
+                    return comparison;
+                }
+
+                return users2.texture.getWidth() - users1.texture.getWidth();
+            }
+        });
+
+        final int              firstPage = this.pages.size();
+        final int[]            place     = new int[2];
+        final ArrayList<Page>  placed    = new ArrayList<Page>();
+        final ArrayList<int[]> places    = new ArrayList<int[]>();
+        ByteBuffer             pixels;
+        int                    width;
+        int                    height;
+        Page                   page;
+
+        for (final Users textureUsers : packables)
+        {
+            pixels = textureUsers.texture.getPixels();
+
+            if (pixels == null)
+            {
+                // Send to video memory meanwhile
+                this.numberOfRejectedTextures++;
+                placed.add(null);
+                places.add(null);
+                continue;
+            }
+
+            width = textureUsers.texture.getWidth();
+            height = textureUsers.texture.getHeight();
+            page = null;
+
+            for (int index = firstPage; index < this.pages.size(); index++)
+            {
+                if (this.pages.get(index)
+                              .find(width + (TextureAtlas.BORDER << 1), height + (TextureAtlas.BORDER << 1),
+                                    place) == true)
+                {
+                    page = this.pages.get(index);
+                    break;
+                }
+            }
+
+            if (page == null)
+            {
+                page = new Page(this.pageSize);
+                this.pages.add(page);
+                page.find(width + (TextureAtlas.BORDER << 1), height + (TextureAtlas.BORDER << 1), place);
+            }
+
+            page.put(pixels, width, height, place[0], place[1]);
+            placed.add(page);
+            places.add(new int[]{place[0], place[1]});
+        }
+
+        for (int index = firstPage; index < this.pages.size(); index++)
+        {
+            page = this.pages.get(index);
+            page.texture = new Texture(this.pageSize, this.pageSize, page.pixels);
+        }
+
+        final float                               pageSize = this.pageSize;
+        final IdentityHashMap<Material, Material> copies   = new IdentityHashMap<Material, Material>();
+        Users                                     textureUsers;
+        int[]                                     position;
+
+        for (int index = packables.size() - 1; index >= 0; index--)
+        {
+            page = placed.get(index);
+
+            if (page == null)
+            {
+                continue;
+            }
+
+            textureUsers = packables.get(index);
+            position = places.get(index);
+            width = textureUsers.texture.getWidth();
+            height = textureUsers.texture.getHeight();
+
+            for (final Object3D object3D : textureUsers.objects)
+            {
+                object3D.transformUV((position[0] + TextureAtlas.BORDER) / pageSize,
+                                     (position[1] + TextureAtlas.BORDER) / pageSize, width / pageSize,
+                                     height / pageSize);
+            }
+
+            for (final Node3D node : textureUsers.nodes)
+            {
+                if (node instanceof Object3D)
+                {
+                    ((Object3D) node).material = this.copy(((Object3D) node).material, page.texture, copies);
+                }
+                else
+                {
+                    ((Clone3D) node).material = this.copy(((Clone3D) node).material, page.texture, copies);
+                }
+            }
+
+            this.numberOfPackedTextures++;
+        }
+
+        Scene3D.SCENE3D.requestRender();
+    }
+
+    /**
+     * Number of packed textures
+     *
+     * @return Number of packed textures
+     */
+    public int getNumberOfPackedTextures()
+    {
+        return this.numberOfPackedTextures;
+    }
+
+    /**
+     * Number of pages
+     *
+     * @return Number of pages
+     */
+    public int getNumberOfPages()
+    {
+        return this.pages.size();
+    }
+
+    /**
+     * Number of textures that can't be packed
+     *
+     * @return Number of textures that can't be packed
+     */
+    public int getNumberOfRejectedTextures()
+    {
+        return this.numberOfRejectedTextures;
+    }
+
+    /**
+     * Part of all pages used by textures
+     *
+     * @return Part used in [0, 1]
+     */
+    public float getOccupancy()
+    {
+        if (this.pages.isEmpty() == true)
+        {
+            return 0;
+        }
+
+        long used = 0;
+
+        for (final Page page : this.pages)
+        {
+            used += page.usedPixels;
+        }
+
+        return (float) used / (float) (this.pages.size() * this.pageSize * this.pageSize);
+    }
+
+    /**
+     * Part of a page used by textures
+     *
+     * @param page Page index
+     * @return Part used in [0, 1]
+     */
+    public float getOccupancy(final int page)
+    {
+        return (float) this.pages.get(page).usedPixels / (float) (this.pageSize * this.pageSize);
+    }
+
+    /**
+     * Page size
+     *
+     * @return Page size
+     */
+    public int getPageSize()
+    {
+        return this.pageSize;
+    }
+
+    /**
+     * Pack the textures of objects in a hierarchy.<br>
+     * Nodes draw with packed textures get a copy of their material that uses the page texture, and
+     * objects UVs are transformed. Can be called several times, new pages are created each time
+     *
+     * @param root Hierarchy root
+     */
+    public void pack(final Node3D root)
+    {
+        if (root == null)
+        {
+            throw new NullPointerException("root musn't be null");
+        }
+
+        this.pack(Collections.singletonList(root));
+    }
+}
@@ -0,0 +1,294 @@
+package jhelp.android.api.engine;
+
+import android.opengl.ETC1;
+
+import java.nio.ByteBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Texture levels : mipmap chain generation, ETC1 compression and send to video memory.<br>
+ * Mipmaps are box filtered : each pixel of a level is the average of 4 pixels of previous level.
+ * ETC1 takes 4 bits per pixel against 32 for RGBA, but has no alpha, so only opaque textures are
+ * compressed. If device not supports ETC1, compressed levels are decoded in RGB 565 when send to
+ * video memory
+ *
+ * @author JHelp
+ */
+final class TextureLevels
+{
+    /**
+     * ETC1 support : not supported
+     */
+    private static final int ETC1_NO      = 2;
+    /**
+     * ETC1 support : not known yet
+     */
+    private static final int ETC1_UNKNOWN = 0;
+    /**
+     * ETC1 support : supported
+     */
+    private static final int ETC1_YES     = 1;
+    /**
+     * Levels format : ETC1 compressed
+     */
+    static final int         FORMAT_ETC1  = 1;
+    /**
+     * Levels format : RGBA, one byte per component
+     */
+    static final int         FORMAT_RGBA  = 0;
+    /**
+     * Indicates if device supports ETC1, only used by render thread
+     */
+    private static int       etc1Support  = TextureLevels.ETC1_UNKNOWN;
+
+    /**
+     * Average of 4 components, rounded
+     *
+     * @param pixels Pixels
+     * @param index1 First component index
+     * @param index2 Second component index
+     * @param index3 Third component index
+     * @param index4 Fourth component index
+     * @return Average
+     */
+    private static byte average(final ByteBuffer pixels, final int index1, final int index2, final int index3,
+                                final int index4)
+    {
+        return (byte) (((pixels.get(index1) & 0xFF) + (pixels.get(index2) & 0xFF) + (pixels.get(index3) & 0xFF)
+                + (pixels.get(index4) & 0xFF) + 2) >> 2);
+    }
+
+    /**
+     * Indicates if device supports ETC1
+     *
+     * @param gl Open GL link
+     * @return {@code true} if device supports ETC1
+     */
+    private static boolean isEtc1Supported(final GL10 gl)
+    {
+        if (TextureLevels.etc1Support == TextureLevels.ETC1_UNKNOWN)
+        {
+            final String extensions = gl.glGetString(GL10.GL_EXTENSIONS);
+
+            if ((extensions != null) && (extensions.contains("GL_OES_compressed_ETC1_RGB8_texture") == true))
+            {
+                TextureLevels.etc1Support = TextureLevels.ETC1_YES;
+            }
+            else
+            {
+                TextureLevels.etc1Support = TextureLevels.ETC1_NO;
+            }
+        }
+
+        return TextureLevels.etc1Support == TextureLevels.ETC1_YES;
+    }
+
+    /**
+     * Compute next mipmap level
+     *
+     * @param pixels Level pixels in RGBA
+     * @param width  Level width
+     * @param height Level height
+     * @return Next level pixels in RGBA
+     */
+    private static ByteBuffer nextLevel(final ByteBuffer pixels, final int width, final int height)
+    {
+        final int        nextWidth  = Math.max(1, width >> 1);
+        final int        nextHeight = Math.max(1, height >> 1);
+        final ByteBuffer next       = UtilBuffer.createByteBuffer((nextWidth * nextHeight) << 2);
+        int              y0;
+        int              y1;
+        int              x0;
+        int              x1;
+        int              index      = 0;
+
+        for (int y = 0; y < nextHeight; y++)
+        {
+            // Odd or 1 pixel sizes : last pixel is repeated
+            y0 = Math.min(y << 1, height - 1) * width;
+            y1 = Math.min((y << 1) + 1, height - 1) * width;
+
+            for (int x = 0; x < nextWidth; x++)
+            {
+                x0 = Math.min(x << 1, width - 1);
+                x1 = Math.min((x << 1) + 1, width - 1);
+
+                for (int component = 0; component < 4; component++)
+                {
+                    next.put(index++, TextureLevels.average(pixels, ((y0 + x0) << 2) + component,
+                                                            ((y0 + x1) << 2) + component,
+                                                            ((y1 + x0) << 2) + component,
+                                                            ((y1 + x1) << 2) + component));
+                }
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * Compress levels in ETC1
+     *
+     * @param levels Levels in RGBA
+     * @param width  First level width
+     * @param height First level height
+     * @return Compressed levels
+     */
+    static ByteBuffer[] compressEtc1(final ByteBuffer[] levels, final int width, final int height)
+    {
+        final ByteBuffer[] compressed = new ByteBuffer[levels.length];
+        int                levelWidth;
+        int                levelHeight;
+        int                size;
+        ByteBuffer         rgb;
+
+        for (int level = 0; level < levels.length; level++)
+        {
+            levelWidth = Math.max(1, width >> level);
+            levelHeight = Math.max(1, height >> level);
+            size = levelWidth * levelHeight;
+            rgb = UtilBuffer.createByteBuffer(size * 3);
+
+            for (int pixel = 0; pixel < size; pixel++)
+            {
+                rgb.put(levels[level].get(pixel << 2));
+                rgb.put(levels[level].get((pixel << 2) + 1));
+                rgb.put(levels[level].get((pixel << 2) + 2));
+            }
+
+            rgb.position(0);
+            compressed[level] = UtilBuffer.createByteBuffer(ETC1.getEncodedDataSize(levelWidth, levelHeight));
+            ETC1.encodeImage(rgb, levelWidth, levelHeight, 3, levelWidth * 3, compressed[level]);
+            compressed[level].position(0);
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Indicates if pixels are all opaque
+     *
+     * @param pixels Pixels in RGBA
+     * @param width  Width
+     * @param height Height
+     * @return {@code true} if pixels are all opaque
+     */
+    static boolean isOpaque(final ByteBuffer pixels, final int width, final int height)
+    {
+        for (int index = ((width * height) << 2) - 1; index > 0; index -= 4)
+        {
+            if (pixels.get(index) != (byte) 0xFF)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compute the mipmap chain, down to 1x1
+     *
+     * @param pixels Pixels in RGBA, first level of the chain
+     * @param width  Width
+     * @param height Height
+     * @return Levels in RGBA
+     */
+    static ByteBuffer[] mipmaps(final ByteBuffer pixels, final int width, final int height)
+    {
+        int numberOfLevels = 1;
+
+        while ((Math.max(width, height) >> numberOfLevels) > 0)
+        {
+            numberOfLevels++;
+        }
+
+        final ByteBuffer[] levels = new ByteBuffer[numberOfLevels];
+        levels[0] = pixels.duplicate();
+        levels[0].position(0);
+
+        for (int level = 1; level < numberOfLevels; level++)
+        {
+            levels[level] = TextureLevels.nextLevel(levels[level - 1], Math.max(1, width >> (level - 1)),
+                                                    Math.max(1, height >> (level - 1)));
+        }
+
+        return levels;
+    }
+
+    /**
+     * Send levels to video memory.<br>
+     * Texture must be bound
+     *
+     * @param gl     Open GL link
+     * @param format Levels format : {@link #FORMAT_RGBA} or {@link #FORMAT_ETC1}
+     * @param width  First level width
+     * @param height First level height
+     * @param levels Levels
+     * @return Estimated video memory used in bytes
+     */
+    static long upload(final GL10 gl, final int format, final int width, final int height,
+                       final ByteBuffer[] levels)
+    {
+        gl.glTexParameterx(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER,
+                           levels.length > 1 ? GL10.GL_LINEAR_MIPMAP_LINEAR : GL10.GL_LINEAR);
+        final boolean etc1   = (format == TextureLevels.FORMAT_ETC1) && (TextureLevels.isEtc1Supported(gl) == true);
+        long          size   = 0;
+        int           levelWidth;
+        int           levelHeight;
+        ByteBuffer    data;
+
+        if ((format == TextureLevels.FORMAT_ETC1) && (etc1 == false))
+        {
+            // Decoded rows of 1 pixel in 565 are not 4 bytes aligned
+            gl.glPixelStorei(GL10.GL_UNPACK_ALIGNMENT, 1);
+        }
+
+        for (int level = 0; level < levels.length; level++)
+        {
+            levelWidth = Math.max(1, width >> level);
+            levelHeight = Math.max(1, height >> level);
+            data = levels[level].duplicate();
+            data.position(0);
+
+            if (format == TextureLevels.FORMAT_RGBA)
+            {
+                gl.glTexImage2D(GL10.GL_TEXTURE_2D, level, GL10.GL_RGBA, levelWidth, levelHeight, 0, GL10.GL_RGBA,
+                                GL10.GL_UNSIGNED_BYTE, data);
+                size += (levelWidth * levelHeight) << 2;
+            }
+            else if (etc1 == true)
+            {
+                gl.glCompressedTexImage2D(GL10.GL_TEXTURE_2D, level, ETC1.ETC1_RGB8_OES, levelWidth, levelHeight, 0,
+                                          data.remaining(), data);
+                size += data.remaining();
+            }
+            else
+            {
+                final ByteBuffer decoded = UtilBuffer.createByteBuffer((levelWidth * levelHeight) << 1);
+                ETC1.decodeImage(data, decoded, levelWidth, levelHeight, 2, levelWidth << 1);
+                decoded.position(0);
+                gl.glTexImage2D(GL10.GL_TEXTURE_2D, level, GL10.GL_RGB, levelWidth, levelHeight, 0, GL10.GL_RGB,
+                                GL10.GL_UNSIGNED_SHORT_5_6_5, decoded);
+                size += (levelWidth * levelHeight) << 1;
+            }
+        }
+
+        if ((format == TextureLevels.FORMAT_ETC1) && (etc1 == false))
+        {
+            gl.glPixelStorei(GL10.GL_UNPACK_ALIGNMENT, 4);
+        }
+
+        return size;
+    }
+
+    /**
+     * To avoid instance
+     */
+    private TextureLevels()
+    {
+    }
+}
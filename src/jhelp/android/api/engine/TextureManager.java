@@ -0,0 +1,423 @@
+package jhelp.android.api.engine;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Manager of textures in video memory.<br>
+ * It tracks the estimated video memory used by each texture. When a budget is set (See
+ * {@link #setBudget(long)}) and exceeded, textures not used since the longest time are removed
+ * from video memory at the end of the frame. A removed texture is send again to video memory the
+ * next time it is draw.<br>
+ * Only textures that can rebuild their pixels are removed : mutable ones (From their bitmap) and
+ * ones with read only pixels in a memory mapped file (Like textures of binary scenes). Others stay in video
+ * memory, but are counted in resident size.<br>
+ * Textures are tracked through weak references, so tracking never keeps a texture no more used : when
+ * it is garbage collected, its video memory is freed at the end of the frame. When the scene is
+ * destroyed, textures not draw anymore are removed from video memory the same way.<br>
+ * Get it with {@link Scene3D#getTextureManager()}
+ *
+ * @author JHelp
+ */
+public final class TextureManager
+{
+    /**
+     * Compare textures by last use, oldest first
+     *
+     * @author JHelp
+     */
+    static class OldestUseFirst
+            implements Comparator<Texture>
+    {
+        /**
+         * Create a new instance of OldestUseFirst
+         */
+        OldestUseFirst()
+        {
+        }
+
+        /**
+         * Compare textures by last use <br>
+         * <br>
+         * <b>Parent documentation:</b><br>
+         * {@inheritDoc}
+         *
+         * @param texture1 First texture
+         * @param texture2 Second texture
+         * @return Comparison result
+         * @see java.util.Comparator#compare(Object, Object)
+         */
+        public int compare(final Texture texture1, final Texture texture2)
+        {
+            return texture1.getLastUse() - texture2.getLastUse();
+        }
+    }
+
+    /**
+     * Weak link to a texture in video memory
+     *
+     * @author JHelp
+     */
+    static final class Resident
+            extends WeakReference<Texture>
+    {
+        /**
+         * Context generation where texture was send
+         */
+        int  contextGeneration;
+        /**
+         * Estimated video memory used in bytes
+         */
+        long size;
+        /**
+         * Texture ID in video memory
+         */
+        int  videoMemoryId;
+
+        /**
+         * Create a new instance of Resident
+         *
+         * @param texture        Texture in video memory
+         * @param referenceQueue Queue where resident is put when texture is garbage collected
+         */
+        Resident(final Texture texture, final ReferenceQueue<Texture> referenceQueue)
+        {
+            super(texture, referenceQueue);
+        }
+    }
+
+    /**
+     * Video memory budget in bytes, 0 for no limit
+     */
+    private volatile long                 budget;
+    /**
+     * Textures candidates to removal, only used by render thread
+     */
+    private final ArrayList<Texture>      candidates;
+    /**
+     * Current frame
+     */
+    private int                           frame;
+    /**
+     * Number of textures removed from video memory
+     */
+    private volatile int                  numberOfEvictions;
+    /**
+     * Number of textures send again to video memory after removed
+     */
+    private volatile int                  numberOfReuploads;
+    /**
+     * Number of textures in video memory
+     */
+    private volatile int                  numberOfResidentTextures;
+    /**
+     * Comparator of textures by last use
+     */
+    private final OldestUseFirst          oldestUseFirst;
+    /**
+     * Queue of residents which texture is garbage collected
+     */
+    private final ReferenceQueue<Texture> referenceQueue;
+    /**
+     * Indicates if textures not used by current frame have to be removed at frame end
+     */
+    private volatile boolean              releaseUnused;
+    /**
+     * Residents which texture is garbage collected, their video memory is freed by render thread.
+     * Synchronized on residents
+     */
+    private final ArrayList<Resident>     released;
+    /**
+     * Textures in video memory. Synchronized on it
+     */
+    private final ArrayList<Resident>     residents;
+    /**
+     * Estimated video memory used by textures in bytes
+     */
+    private volatile long                 residentSize;
+
+    /**
+     * Create a new instance of TextureManager
+     */
+    TextureManager()
+    {
+        this.residents = new ArrayList<Resident>();
+        this.released = new ArrayList<Resident>();
+        this.referenceQueue = new ReferenceQueue<Texture>();
+        this.candidates = new ArrayList<Texture>();
+        this.oldestUseFirst = new OldestUseFirst();
+        this.budget = 0;
+        this.frame = 0;
+    }
+
+    /**
+     * Remove residents which texture is garbage collected, their video memory will be freed at frame
+     * end. Called with residents lock
+     */
+    private void purge()
+    {
+        Resident resident = (Resident) this.referenceQueue.poll();
+
+        while (resident != null)
+        {
+            if (this.residents.remove(resident) == true)
+            {
+                this.residentSize -= resident.size;
+                this.released.add(resident);
+            }
+
+            resident = (Resident) this.referenceQueue.poll();
+        }
+
+        this.numberOfResidentTextures = this.residents.size();
+    }
+
+    /**
+     * Called by render thread when a texture is send to video memory
+     *
+     * @param texture       Texture send
+     * @param videoMemoryId Texture ID in video memory
+     * @param size          Estimated video memory used in bytes
+     * @param reload        Indicates if texture was removed before
+     */
+    void allocated(final Texture texture, final int videoMemoryId, final long size, final boolean reload)
+    {
+        synchronized (this.residents)
+        {
+            Resident resident = texture.getResident();
+
+            if (resident != null)
+            {
+                // Replace its previous storage
+                this.residentSize -= resident.size;
+            }
+            else
+            {
+                resident = new Resident(texture, this.referenceQueue);
+                texture.setResident(resident);
+                this.residents.add(resident);
+            }
+
+            resident.contextGeneration = GLCapabilities.getContextGeneration();
+            resident.size = size;
+            resident.videoMemoryId = videoMemoryId;
+            texture.setVideoMemorySize(size);
+            this.residentSize += size;
+            this.purge();
+        }
+
+        if (reload == true)
+        {
+            this.numberOfReuploads++;
+        }
+    }
+
+    /**
+     * Forget all textures : new Open GL context where previous video memory is lost
+     */
+    void clear()
+    {
+        synchronized (this.residents)
+        {
+            Texture texture;
+
+            for (final Resident resident : this.residents)
+            {
+                texture = resident.get();
+
+                if (texture != null)
+                {
+                    texture.setResident(null);
+                    texture.setVideoMemorySize(0);
+                }
+            }
+
+            this.residents.clear();
+            this.released.clear();
+            this.residentSize = 0;
+            this.numberOfResidentTextures = 0;
+
+            while (this.referenceQueue.poll() != null)
+            {
+                // Already forgotten
+            }
+        }
+    }
+
+    /**
+     * Called by render thread at the end of each frame, to free video memory of garbage collected
+     * textures, and remove textures if budget exceeded or scene destroyed
+     *
+     * @param gl Open GL link
+     */
+    void endFrame(final GL10 gl)
+    {
+        final long    budget        = this.budget;
+        final boolean releaseUnused = this.releaseUnused;
+        this.releaseUnused = false;
+
+        synchronized (this.residents)
+        {
+            this.purge();
+
+            if (this.released.isEmpty() == false)
+            {
+                final int   contextGeneration = GLCapabilities.getContextGeneration();
+                final int[] ids               = new int[this.released.size()];
+                int         count             = 0;
+
+                for (final Resident resident : this.released)
+                {
+                    // Textures of a previous context are already lost
+                    if (resident.contextGeneration == contextGeneration)
+                    {
+                        ids[count] = resident.videoMemoryId;
+                        count++;
+                    }
+                }
+
+                if (count > 0)
+                {
+                    gl.glDeleteTextures(count, ids, 0);
+                }
+
+                this.released.clear();
+            }
+
+            if ((releaseUnused == true) || ((budget > 0) && (this.residentSize > budget)))
+            {
+                Texture texture;
+
+                for (final Resident resident : this.residents)
+                {
+                    texture = resident.get();
+
+                    if (texture != null)
+                    {
+                        this.candidates.add(texture);
+                    }
+                }
+
+                Collections.sort(this.candidates, this.oldestUseFirst);
+
+                for (int index = 0;
+                     (index < this.candidates.size()) && ((releaseUnused == true) || (this.residentSize > budget));
+                     index++)
+                {
+                    texture = this.candidates.get(index);
+
+                    if (texture.getLastUse() >= this.frame)
+                    {
+                        // All next textures are used by current frame
+                        break;
+                    }
+
+                    if (texture.isEvictable() == true)
+                    {
+                        this.residentSize -= texture.getVideoMemorySize();
+                        this.residents.remove(texture.getResident());
+                        texture.setResident(null);
+                        texture.evict(gl);
+                        this.numberOfEvictions++;
+                    }
+                }
+
+                this.candidates.clear();
+                this.numberOfResidentTextures = this.residents.size();
+            }
+        }
+
+        this.frame++;
+    }
+
+    /**
+     * Current frame
+     *
+     * @return Current frame
+     */
+    int getFrame()
+    {
+        return this.frame;
+    }
+
+    /**
+     * Remove from video memory, at next frame end, textures not draw by this frame : scene destroyed.<br>
+     * Textures that can't be send again stay until they are garbage collected
+     */
+    void releaseUnused()
+    {
+        this.releaseUnused = true;
+    }
+
+    /**
+     * Video memory budget
+     *
+     * @return Video memory budget in bytes, 0 for no limit
+     */
+    public long getBudget()
+    {
+        return this.budget;
+    }
+
+    /**
+     * Number of textures removed from video memory since start
+     *
+     * @return Number of textures removed
+     */
+    public int getNumberOfEvictions()
+    {
+        return this.numberOfEvictions;
+    }
+
+    /**
+     * Number of textures send again to video memory, after removed, since start
+     *
+     * @return Number of textures send again
+     */
+    public int getNumberOfReuploads()
+    {
+        return this.numberOfReuploads;
+    }
+
+    /**
+     * Number of textures in video memory
+     *
+     * @return Number of textures in video memory
+     */
+    public int getNumberOfResidentTextures()
+    {
+        return this.numberOfResidentTextures;
+    }
+
+    /**
+     * Estimated video memory used by textures
+     *
+     * @return Estimated video memory used in bytes
+     */
+    public long getResidentSize()
+    {
+        return this.residentSize;
+    }
+
+    /**
+     * Change video memory budget.<br>
+     * Textures used by current frame are never removed, so the budget can be exceeded if one frame
+     * needs more
+     *
+     * @param budget Video memory budget in bytes, 0 for no limit
+     */
+    public void setBudget(final long budget)
+    {
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("budget MUST be >=0 not " + budget);
+        }
+
+        this.budget = budget;
+    }
+}
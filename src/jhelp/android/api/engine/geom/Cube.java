@@ -1,7 +1,7 @@
 package jhelp.android.api.engine.geom;
 
-import java.util.concurrent.TimeUnit;
-
+import jhelp.android.api.engine.JobPriority;
+import jhelp.android.api.engine.MeshBuilder;
 import jhelp.android.api.engine.Object3D;
 import jhelp.android.api.engine.Scene3D;
 import jhelp.android.api.engine.util.Debug;
@@ -41,55 +41,57 @@ public class Cube
             final float u2 = 1;
             final float v2 = 1;
 
+            final MeshBuilder meshBuilder = new MeshBuilder();
+
             // FACE
-            Cube.this.addTriangle(x1, y1, z2, u1, v2,
-                                  x2, y1, z2, u2, v2,
-                                  x1, y2, z2, u1, v1);
-            Cube.this.addTriangle(x1, y2, z2, u1, v1,
-                                  x2, y1, z2, u2, v2,
-                                  x2, y2, z2, u2, v1);
+            meshBuilder.addTriangle(x1, y1, z2, u1, v2,
+                                    x2, y1, z2, u2, v2,
+                                    x1, y2, z2, u1, v1);
+            meshBuilder.addTriangle(x1, y2, z2, u1, v1,
+                                    x2, y1, z2, u2, v2,
+                                    x2, y2, z2, u2, v1);
 
             // BACK
-            Cube.this.addTriangle(x1, y1, z1, u1, v1,
-                                  x1, y2, z1, u1, v2,
-                                  x2, y1, z1, u2, v1);
-            Cube.this.addTriangle(x1, y2, z1, u1, v2,
-                                  x2, y2, z1, u2, v2,
-                                  x2, y1, z1, u2, v1);
+            meshBuilder.addTriangle(x1, y1, z1, u1, v1,
+                                    x1, y2, z1, u1, v2,
+                                    x2, y1, z1, u2, v1);
+            meshBuilder.addTriangle(x1, y2, z1, u1, v2,
+                                    x2, y2, z1, u2, v2,
+                                    x2, y1, z1, u2, v1);
 
             // BOTTOM
-            Cube.this.addTriangle(x1, y1, z1, u1, v2,
-                                  x2, y1, z1, u2, v2,
-                                  x1, y1, z2, u1, v1);
-            Cube.this.addTriangle(x2, y1, z1, u2, v2,
-                                  x2, y1, z2, u2, v1,
-                                  x1, y1, z2, u1, v1);
+            meshBuilder.addTriangle(x1, y1, z1, u1, v2,
+                                    x2, y1, z1, u2, v2,
+                                    x1, y1, z2, u1, v1);
+            meshBuilder.addTriangle(x2, y1, z1, u2, v2,
+                                    x2, y1, z2, u2, v1,
+                                    x1, y1, z2, u1, v1);
 
             // TOP
-            Cube.this.addTriangle(x1, y2, z1, u1, v1,
-                                  x1, y2, z2, u1, v2,
-                                  x2, y2, z1, u2, v1);
-            Cube.this.addTriangle(x2, y2, z2, u2, v2,
-                                  x2, y2, z1, u2, v1,
-                                  x1, y2, z2, u1, v2);
+            meshBuilder.addTriangle(x1, y2, z1, u1, v1,
+                                    x1, y2, z2, u1, v2,
+                                    x2, y2, z1, u2, v1);
+            meshBuilder.addTriangle(x2, y2, z2, u2, v2,
+                                    x2, y2, z1, u2, v1,
+                                    x1, y2, z2, u1, v2);
 
             // LEFT
-            Cube.this.addTriangle(x1, y1, z1, u1, v2,
-                                  x1, y1, z2, u2, v2,
-                                  x1, y2, z1, u1, v1);
-            Cube.this.addTriangle(x1, y1, z2, u2, v2,
-                                  x1, y2, z2, u2, v1,
-                                  x1, y2, z1, u1, v1);
+            meshBuilder.addTriangle(x1, y1, z1, u1, v2,
+                                    x1, y1, z2, u2, v2,
+                                    x1, y2, z1, u1, v1);
+            meshBuilder.addTriangle(x1, y1, z2, u2, v2,
+                                    x1, y2, z2, u2, v1,
+                                    x1, y2, z1, u1, v1);
 
             // RIGHT
-            Cube.this.addTriangle(x2, y1, z1, u2, v2,
-                                  x2, y2, z1, u2, v1,
-                                  x2, y1, z2, u1, v2);
-            Cube.this.addTriangle(x2, y1, z2, u1, v2,
-                                  x2, y2, z1, u2, v1,
-                                  x2, y2, z2, u1, v1);
-
-            Cube.this.compact();
+            meshBuilder.addTriangle(x2, y1, z1, u2, v2,
+                                    x2, y2, z1, u2, v1,
+                                    x2, y1, z2, u1, v2);
+            meshBuilder.addTriangle(x2, y1, z2, u1, v2,
+                                    x2, y2, z1, u2, v1,
+                                    x2, y2, z2, u1, v1);
+
+            meshBuilder.publish(Cube.this);
         }
     };
     /**
@@ -124,55 +126,57 @@ public class Cube
             final float v4 = 0.75f;
             final float v5 = 1;
 
+            final MeshBuilder meshBuilder = new MeshBuilder();
+
             // FACE
-            Cube.this.addTriangle(x1, y1, z2, u2, v3,
-                                  x2, y1, z2, u3, v3,
-                                  x1, y2, z2, u2, v2);
-            Cube.this.addTriangle(x1, y2, z2, u2, v2,
-                                  x2, y1, z2, u3, v3,
-                                  x2, y2, z2, u3, v2);
+            meshBuilder.addTriangle(x1, y1, z2, u2, v3,
+                                    x2, y1, z2, u3, v3,
+                                    x1, y2, z2, u2, v2);
+            meshBuilder.addTriangle(x1, y2, z2, u2, v2,
+                                    x2, y1, z2, u3, v3,
+                                    x2, y2, z2, u3, v2);
 
             // BACK
-            Cube.this.addTriangle(x1, y1, z1, u2, v4,
-                                  x1, y2, z1, u2, v5,
-                                  x2, y1, z1, u3, v4);
-            Cube.this.addTriangle(x1, y2, z1, u2, v5,
-                                  x2, y2, z1, u3, v5,
-                                  x2, y1, z1, u3, v4);
+            meshBuilder.addTriangle(x1, y1, z1, u2, v4,
+                                    x1, y2, z1, u2, v5,
+                                    x2, y1, z1, u3, v4);
+            meshBuilder.addTriangle(x1, y2, z1, u2, v5,
+                                    x2, y2, z1, u3, v5,
+                                    x2, y1, z1, u3, v4);
 
             // BOTTOM
-            Cube.this.addTriangle(x1, y1, z1, u2, v4,
-                                  x2, y1, z1, u3, v4,
-                                  x1, y1, z2, u2, v3);
-            Cube.this.addTriangle(x2, y1, z1, u3, v4,
-                                  x2, y1, z2, u3, v3,
-                                  x1, y1, z2, u2, v3);
+            meshBuilder.addTriangle(x1, y1, z1, u2, v4,
+                                    x2, y1, z1, u3, v4,
+                                    x1, y1, z2, u2, v3);
+            meshBuilder.addTriangle(x2, y1, z1, u3, v4,
+                                    x2, y1, z2, u3, v3,
+                                    x1, y1, z2, u2, v3);
 
             // TOP
-            Cube.this.addTriangle(x1, y2, z1, u2, v1,
-                                  x1, y2, z2, u2, v2,
-                                  x2, y2, z1, u3, v1);
-            Cube.this.addTriangle(x2, y2, z2, u3, v2,
-                                  x2, y2, z1, u3, v1,
-                                  x1, y2, z2, u2, v2);
+            meshBuilder.addTriangle(x1, y2, z1, u2, v1,
+                                    x1, y2, z2, u2, v2,
+                                    x2, y2, z1, u3, v1);
+            meshBuilder.addTriangle(x2, y2, z2, u3, v2,
+                                    x2, y2, z1, u3, v1,
+                                    x1, y2, z2, u2, v2);
 
             // LEFT
-            Cube.this.addTriangle(x1, y1, z1, u1, v3,
-                                  x1, y1, z2, u2, v3,
-                                  x1, y2, z1, u1, v2);
-            Cube.this.addTriangle(x1, y1, z2, u2, v3,
-                                  x1, y2, z2, u2, v2,
-                                  x1, y2, z1, u1, v2);
+            meshBuilder.addTriangle(x1, y1, z1, u1, v3,
+                                    x1, y1, z2, u2, v3,
+                                    x1, y2, z1, u1, v2);
+            meshBuilder.addTriangle(x1, y1, z2, u2, v3,
+                                    x1, y2, z2, u2, v2,
+                                    x1, y2, z1, u1, v2);
 
             // RIGHT
-            Cube.this.addTriangle(x2, y1, z1, u4, v3,
-                                  x2, y2, z1, u4, v2,
-                                  x2, y1, z2, u3, v3);
-            Cube.this.addTriangle(x2, y1, z2, u3, v3,
-                                  x2, y2, z1, u4, v2,
-                                  x2, y2, z2, u3, v2);
-
-            Cube.this.compact();
+            meshBuilder.addTriangle(x2, y1, z1, u4, v3,
+                                    x2, y2, z1, u4, v2,
+                                    x2, y1, z2, u3, v3);
+            meshBuilder.addTriangle(x2, y1, z2, u3, v3,
+                                    x2, y2, z1, u4, v2,
+                                    x2, y2, z2, u3, v2);
+
+            meshBuilder.publish(Cube.this);
         }
     };
 
@@ -188,13 +192,11 @@ public class Cube
     {
         if (cross == true)
         {
-            Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this.constructCross, 16,
-                                                                 TimeUnit.MILLISECONDS);
+            Scene3D.SCENE3D.getJobSystem().submit(JobPriority.FRAME_PREPARATION, this.constructCross);
         }
         else
         {
-            Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this.construct, 16,
-                                                                 TimeUnit.MILLISECONDS);
+            Scene3D.SCENE3D.getJobSystem().submit(JobPriority.FRAME_PREPARATION, this.construct);
         }
     }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package jhelp.android.api.engine.geom;
 
-import java.util.concurrent.TimeUnit;
-
+import jhelp.android.api.engine.JobPriority;
+import jhelp.android.api.engine.MeshBuilder;
 import jhelp.android.api.engine.Object3D;
 import jhelp.android.api.engine.Scene3D;
 
@@ -39,14 +39,16 @@ public class Plane
             final float u2 = 1;
             final float v2 = 1;
 
-            Plane.this.addTriangle(x1, y1, z2, u1, v1,
-                                   x2, y1, z2, u2, v1,
-                                   x1, y2, z2, u1, v2);
-            Plane.this.addTriangle(x1, y2, z2, u1, v2,
-                                   x2, y1, z2, u2, v1,
-                                   x2, y2, z2, u2, v2);
+            final MeshBuilder meshBuilder = new MeshBuilder();
+
+            meshBuilder.addTriangle(x1, y1, z2, u1, v1,
+                                    x2, y1, z2, u2, v1,
+                                    x1, y2, z2, u1, v2);
+            meshBuilder.addTriangle(x1, y2, z2, u1, v2,
+                                    x2, y1, z2, u2, v1,
+                                    x2, y2, z2, u2, v2);
 
-            Plane.this.compact();
+            meshBuilder.publish(Plane.this);
         }
     };
 
@@ -57,7 +59,6 @@ public class Plane
     {
         this.doubleFace = true;
 
-        Scene3D.SCENE3D.scheduledThreadPoolExecutor.schedule(this.construct, 16,
-                                                             TimeUnit.MILLISECONDS);
+        Scene3D.SCENE3D.getJobSystem().submit(JobPriority.FRAME_PREPARATION, this.construct);
     }
 }
\ No newline at end of file
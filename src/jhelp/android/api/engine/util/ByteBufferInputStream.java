@@ -0,0 +1,124 @@
+package jhelp.android.api.engine.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream that reads the remaining bytes of a {@link ByteBuffer}.<br>
+ * Reading consumes the buffer : its position moves
+ *
+ * @author JHelp
+ */
+public class ByteBufferInputStream
+        extends InputStream
+{
+    /**
+     * Buffer to read
+     */
+    private final ByteBuffer byteBuffer;
+
+    /**
+     * Create a new instance of ByteBufferInputStream
+     *
+     * @param byteBuffer Buffer to read
+     */
+    public ByteBufferInputStream(final ByteBuffer byteBuffer)
+    {
+        if (byteBuffer == null)
+        {
+            throw new NullPointerException("byteBuffer musn't be null");
+        }
+
+        this.byteBuffer = byteBuffer;
+    }
+
+    /**
+     * Number of bytes left <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @return Number of bytes left
+     * @see java.io.InputStream#available()
+     */
+    @Override
+    public int available()
+    {
+        return this.byteBuffer.remaining();
+    }
+
+    /**
+     * Read one byte <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @return Byte read or -1 if no more bytes
+     * @see java.io.InputStream#read()
+     */
+    @Override
+    public int read()
+    {
+        if (this.byteBuffer.hasRemaining() == false)
+        {
+            return -1;
+        }
+
+        return this.byteBuffer.get() & 0xFF;
+    }
+
+    /**
+     * Read several bytes <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param buffer Buffer to fill
+     * @param offset Where start to write in buffer
+     * @param length Maximum number of bytes to read
+     * @return Number of bytes read or -1 if no more bytes
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length)
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+
+        final int remaining = this.byteBuffer.remaining();
+
+        if (remaining == 0)
+        {
+            return -1;
+        }
+
+        final int read = Math.min(remaining, length);
+        this.byteBuffer.get(buffer, offset, read);
+        return read;
+    }
+
+    /**
+     * Skip bytes <br>
+     * <br>
+     * <b>Parent documentation:</b><br>
+     * {@inheritDoc}
+     *
+     * @param count Number of bytes to skip
+     * @return Number of bytes skipped
+     * @see java.io.InputStream#skip(long)
+     */
+    @Override
+    public long skip(final long count)
+    {
+        if (count <= 0)
+        {
+            return 0;
+        }
+
+        final int skip = (int) Math.min(this.byteBuffer.remaining(), count);
+        this.byteBuffer.position(this.byteBuffer.position() + skip);
+        return skip;
+    }
+}
@@ -5,6 +5,7 @@ import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.Rect;
 
+import java.util.Arrays;
 import java.util.StringTokenizer;
 
 /**
@@ -725,8 +726,16 @@ public class Font
     }
 
 
-    private final int scaleX;
-    private final int scaleY;
+    /**
+     * Glyphs already rasterized, created at first use
+     */
+    private GlyphAtlas glyphAtlas;
+    /**
+     * Anti-aliased glyphs already rasterized, created at first use
+     */
+    private GlyphAtlas glyphAtlasAntiAliased;
+    private final int  scaleX;
+    private final int  scaleY;
 
     public Font(int scaleX, int scaleY)
     {
@@ -760,9 +769,7 @@ public class Font
         return new Point((maximumLength * this.scaleX) << 3, (count * this.scaleY) << 3);
     }
 
-    public void drawString(String text, int x, int y, Alignment alignment,
-                           TextPosition textPosition,
-                           Canvas canvas, Paint paint, Rect boundsOut)
+    private String[] layout(String text, int x, int y, TextPosition textPosition, Rect bounds)
     {
         int             left            = 0;
         int             top             = 0;
@@ -782,7 +789,6 @@ public class Font
 
         right = (maximumLength * this.scaleX) << 3;
         bottom = (count * this.scaleY) << 3;
-        int width = right;
         int move;
 
         switch (textPosition)
@@ -864,186 +870,174 @@ public class Font
                 break;
         }
 
-        int xx;
-        int yy = top;
+        bounds.left = left;
+        bounds.top = top;
+        bounds.right = right;
+        bounds.bottom = bottom;
+        return lines;
+    }
 
-        for (String line : lines)
+    private int lineLeft(String line, Alignment alignment, Rect bounds)
+    {
+        int width = bounds.right - bounds.left;
+
+        switch (alignment)
         {
-            xx = left;
+            case CENTER:
+                return bounds.left + ((width - (line.length() * this.scaleX << 3)) >> 1);
+            case RIGHT:
+                return bounds.left + (width - (line.length() * this.scaleX << 3));
+            default:
+                return bounds.left;
+        }
+    }
 
-            switch (alignment)
-            {
-                case CENTER:
-                    xx = left + ((width - (line.length() * this.scaleX << 3)) >> 1);
-                    break;
-                case LEFT:
-                    xx = left;
-                    break;
-                case RIGHT:
-                    xx = left + (width - (line.length() * this.scaleX << 3));
-                    break;
-            }
+    private void drawText(String text, int x, int y, Alignment alignment,
+                          TextPosition textPosition,
+                          Canvas canvas, Paint paint, Rect boundsOut, GlyphAtlas glyphAtlas)
+    {
+        Rect     bounds = boundsOut != null ? boundsOut : new Rect();
+        String[] lines  = this.layout(text, x, y, textPosition, bounds);
+        int      xx;
+        int      yy     = bounds.top;
 
-            for (char character : line.toCharArray())
+        for (String line : lines)
+        {
+            xx = this.lineLeft(line, alignment, bounds);
+
+            for (int index = 0, length = line.length(); index < length; index++)
             {
-                Font.drawCharacter(character, xx, yy, this.scaleX, this.scaleY, canvas, paint);
+                glyphAtlas.draw(line.charAt(index), xx, yy, canvas, paint);
                 xx += this.scaleX << 3;
             }
 
             yy += this.scaleY << 3;
         }
-
-
-        if (boundsOut != null)
-        {
-            boundsOut.left = left;
-            boundsOut.top = top;
-            boundsOut.right = right;
-            boundsOut.bottom = bottom;
-        }
     }
 
-    public void drawStringAntiAliased(String text, int x, int y, Alignment alignment,
-                                      TextPosition textPosition,
-                                      Canvas canvas, Paint paint, Rect boundsOut)
+    /**
+     * Draw a character directly in pixels : each run of lit pixels of a glyph row is one array fill
+     *
+     * @param character Character to draw
+     * @param x         Character left
+     * @param y         Character top
+     * @param color     Color in ARGB
+     * @param pixels    Pixels in ARGB, line by line
+     * @param width     Pixels width
+     * @param height    Pixels height
+     */
+    private void rasterize(char character, int x, int y, int color, int[] pixels, int width, int height)
     {
-        int             left            = 0;
-        int             top             = 0;
-        int             right           = 0;
-        int             bottom          = 0;
-        StringTokenizer stringTokenizer = new StringTokenizer(text, "\n\r", false);
-        int             count           = stringTokenizer.countTokens();
-        String[]        lines           = new String[count];
-        int             maximumLength   = 0;
-
-
-        for (int index = 0; index < count; index++)
-        {
-            lines[index] = stringTokenizer.nextToken();
-            maximumLength = Math.max(maximumLength, lines[index].length());
-        }
-
-        right = (maximumLength * this.scaleX) << 3;
-        bottom = (count * this.scaleY) << 3;
-        int width = right;
-        int move;
+        long symbol = Font.obtainSymbol(character);
+        int  line, start, end, run, top, bottom, left, right;
 
-        switch (textPosition)
+        for (int row = 0, shift = 56; (symbol != 0) && (row < 8); row++, shift -= 8, y += this.scaleY)
         {
-            case TOP_LEFT:
-                left += x;
-                right += x;
-
-                top += y;
-                bottom += y;
-                break;
-            case TOP:
-                move = -right >> 1;
-                left = x + move;
-                right += x + move;
-
-                top += y;
-                bottom += y;
-                break;
-            case TOP_RIGHT:
-                move = -right;
-                left = x + move;
-                right += x + move;
-
-                top += y;
-                bottom += y;
-                break;
-            case LEFT:
-                left += x;
-                right += x;
-
-                move = -bottom >> 1;
-                top = y + move;
-                bottom += y + move;
-                break;
-            case CENTER:
-                move = -right >> 1;
-                left = x + move;
-                right += x + move;
-
-                move = -bottom >> 1;
-                top = y + move;
-                bottom += y + move;
-                break;
-            case RIGHT:
-                move = -right;
-                left = x + move;
-                right += x + move;
-
-                move = -bottom >> 1;
-                top = y + move;
-                bottom += y + move;
-                break;
-            case BOTTOM_LEFT:
-                left += x;
-                right += x;
-
-                move = -bottom;
-                top = y + move;
-                bottom += y + move;
-                break;
-            case BOTTOM:
-                move = -right >> 1;
-                left = x + move;
-                right += x + move;
-
-                move = -bottom;
-                top = y + move;
-                bottom += y + move;
-                break;
-            case BOTTOM_RIGHT:
-                move = -right;
-                left = x + move;
-                right += x + move;
-
-                move = -bottom;
-                top = y + move;
-                bottom += y + move;
-                break;
+            line = (int) ((symbol >>> shift) & 0xFF);
+            // Glyph rows are on top bits, so rows not drawn yet stay when done
+            symbol &= (1L << shift) - 1L;
+            top = Math.max(0, y);
+            bottom = Math.min(height, y + this.scaleY);
+
+            // Column 0 is the bit 0x80
+            while ((line != 0) && (top < bottom))
+            {
+                start = Integer.numberOfLeadingZeros(line) - 24;
+                run = Integer.numberOfLeadingZeros(~(line << (start + 24)));
+                end = start + run;
+                line &= 0xFF >> end;
+                left = Math.max(0, x + start * this.scaleX);
+                right = Math.min(width, x + end * this.scaleX);
+
+                if (left < right)
+                {
+                    for (int yy = top, offset = top * width; yy < bottom; yy++, offset += width)
+                    {
+                        Arrays.fill(pixels, offset + left, offset + right, color);
+                    }
+                }
+            }
         }
+    }
 
-        int xx;
-        int yy = top;
+    /**
+     * Draw a string directly in pixels, without Canvas.<br>
+     * Pixels of characters are replaced by the color (Not blend), others are not touched. Outside
+     * pixels are clipped. Only not anti-aliased text
+     *
+     * @param text         Text to draw
+     * @param x            Text X, meaning depends on text position
+     * @param y            Text Y, meaning depends on text position
+     * @param alignment    Lines alignment
+     * @param textPosition Text position relative to (x, y)
+     * @param color        Text color in ARGB
+     * @param pixels       Pixels in ARGB, line by line
+     * @param width        Pixels width
+     * @param height       Pixels height
+     * @param boundsOut    Filled with text bounds (Not clipped), may be {@code null}
+     */
+    public void drawString(String text, int x, int y, Alignment alignment,
+                           TextPosition textPosition, int color,
+                           int[] pixels, int width, int height, Rect boundsOut)
+    {
+        Rect     bounds = boundsOut != null ? boundsOut : new Rect();
+        String[] lines  = this.layout(text, x, y, textPosition, bounds);
+        int      xx;
+        int      yy     = bounds.top;
 
         for (String line : lines)
         {
-            xx = left;
+            xx = this.lineLeft(line, alignment, bounds);
 
-            switch (alignment)
+            for (int index = 0, length = line.length(); index < length; index++)
             {
-                case CENTER:
-                    xx = left + ((width - (line.length() * this.scaleX << 3)) >> 1);
-                    break;
-                case LEFT:
-                    xx = left;
-                    break;
-                case RIGHT:
-                    xx = left + (width - (line.length() * this.scaleX << 3));
-                    break;
-            }
-
-            for (char character : line.toCharArray())
-            {
-                Font.drawCharacterAntiAliased(character, xx, yy, this.scaleX,
-                                              this.scaleY, canvas, paint);
+                this.rasterize(line.charAt(index), xx, yy, color, pixels, width, height);
                 xx += this.scaleX << 3;
             }
 
             yy += this.scaleY << 3;
         }
+    }
+
+    /**
+     * Compute text bounds, as drawString draws it
+     *
+     * @param text         Text
+     * @param x            Text X, meaning depends on text position
+     * @param y            Text Y, meaning depends on text position
+     * @param textPosition Text position relative to (x, y)
+     * @param boundsOut    Filled with text bounds, may be {@code null}
+     * @return Text bounds
+     */
+    public Rect textBounds(String text, int x, int y, TextPosition textPosition, Rect boundsOut)
+    {
+        Rect bounds = boundsOut != null ? boundsOut : new Rect();
+        this.layout(text, x, y, textPosition, bounds);
+        return bounds;
+    }
+
+    public void drawString(String text, int x, int y, Alignment alignment,
+                           TextPosition textPosition,
+                           Canvas canvas, Paint paint, Rect boundsOut)
+    {
+        if (this.glyphAtlas == null)
+        {
+            this.glyphAtlas = new GlyphAtlas(this.scaleX, this.scaleY, false);
+        }
 
+        this.drawText(text, x, y, alignment, textPosition, canvas, paint, boundsOut, this.glyphAtlas);
+    }
 
-        if (boundsOut != null)
+    public void drawStringAntiAliased(String text, int x, int y, Alignment alignment,
+                                      TextPosition textPosition,
+                                      Canvas canvas, Paint paint, Rect boundsOut)
+    {
+        if (this.glyphAtlasAntiAliased == null)
         {
-            boundsOut.left = left;
-            boundsOut.top = top;
-            boundsOut.right = right;
-            boundsOut.bottom = bottom;
+            this.glyphAtlasAntiAliased = new GlyphAtlas(this.scaleX, this.scaleY, true);
         }
+
+        this.drawText(text, x, y, alignment, textPosition, canvas, paint, boundsOut,
+                      this.glyphAtlasAntiAliased);
     }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package jhelp.android.api.engine.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+
+/**
+ * Glyphs of {@link Font} already rasterized, for one scale and one anti-aliasing mode.<br>
+ * Each glyph is rasterized once in an alpha page, then drawn with one bitmap draw : the paint
+ * color is applied to the glyph alpha. Glyphs are found by their symbol, so accented characters
+ * that share a symbol share a glyph
+ *
+ * @author JHelp
+ */
+final class GlyphAtlas
+{
+    /**
+     * Number of glyphs per page row
+     */
+    private static final int PAGE_COLUMNS = 16;
+    /**
+     * Number of glyphs per page
+     */
+    private static final int PAGE_GLYPHS  = GlyphAtlas.PAGE_COLUMNS * GlyphAtlas.PAGE_ROWS;
+    /**
+     * Number of glyphs per page column
+     */
+    private static final int PAGE_ROWS    = 8;
+
+    /**
+     * Indicates if glyphs are anti-aliased
+     */
+    private final boolean           antiAliased;
+    /**
+     * Glyph cell height
+     */
+    private final int               cellHeight;
+    /**
+     * Glyph cell width
+     */
+    private final int               cellWidth;
+    /**
+     * Glyph place in pages, by symbol
+     */
+    private final HashLongInt       glyphs;
+    /**
+     * Number of rasterized glyphs
+     */
+    private int                     numberOfGlyphs;
+    /**
+     * Pages : alpha bitmaps with glyphs
+     */
+    private final ArrayList<Bitmap> pages;
+    /**
+     * Paint used to rasterize glyphs
+     */
+    private final Paint             rasterizer;
+    /**
+     * Font horizontal scale
+     */
+    private final int               scaleX;
+    /**
+     * Font vertical scale
+     */
+    private final int               scaleY;
+    /**
+     * Glyph in page
+     */
+    private final Rect              source;
+    /**
+     * Draw destination
+     */
+    private final Rect              target;
+
+    /**
+     * Create a new instance of GlyphAtlas
+     *
+     * @param scaleX      Font horizontal scale
+     * @param scaleY      Font vertical scale
+     * @param antiAliased Indicates if glyphs are anti-aliased
+     */
+    GlyphAtlas(final int scaleX, final int scaleY, final boolean antiAliased)
+    {
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.antiAliased = antiAliased;
+        this.cellWidth = scaleX << 3;
+        this.cellHeight = scaleY << 3;
+        this.glyphs = new HashLongInt(GlyphAtlas.PAGE_GLYPHS);
+        this.pages = new ArrayList<Bitmap>();
+        this.rasterizer = new Paint();
+        this.rasterizer.setColor(0xFF000000);
+        this.source = new Rect();
+        this.target = new Rect();
+        this.numberOfGlyphs = 0;
+    }
+
+    /**
+     * Rasterize a glyph in pages
+     *
+     * @param character Character to rasterize
+     * @return Glyph index
+     */
+    private int rasterize(final char character)
+    {
+        final int glyph = this.numberOfGlyphs++;
+        final int cell  = glyph % GlyphAtlas.PAGE_GLYPHS;
+
+        if (cell == 0)
+        {
+            this.pages.add(Bitmap.createBitmap(this.cellWidth * GlyphAtlas.PAGE_COLUMNS,
+                                               this.cellHeight * GlyphAtlas.PAGE_ROWS, Bitmap.Config.ALPHA_8));
+        }
+
+        final Canvas canvas = new Canvas(this.pages.get(this.pages.size() - 1));
+        final int    x      = (cell % GlyphAtlas.PAGE_COLUMNS) * this.cellWidth;
+        final int    y      = (cell / GlyphAtlas.PAGE_COLUMNS) * this.cellHeight;
+
+        if (this.antiAliased == true)
+        {
+            Font.drawCharacterAntiAliased(character, x, y, this.scaleX, this.scaleY, canvas, this.rasterizer);
+        }
+        else
+        {
+            Font.drawCharacter(character, x, y, this.scaleX, this.scaleY, canvas, this.rasterizer);
+        }
+
+        return glyph;
+    }
+
+    /**
+     * Draw a character
+     *
+     * @param character Character to draw
+     * @param x         Character left
+     * @param y         Character top
+     * @param canvas    Canvas where draw
+     * @param paint     Paint used : its color is the character color
+     */
+    synchronized void draw(final char character, final int x, final int y, final Canvas canvas, final Paint paint)
+    {
+        final long symbol = Font.obtainSymbol(character);
+
+        if (symbol == 0)
+        {
+            // Nothing to draw
+            return;
+        }
+
+        int glyph = this.glyphs.get(symbol, -1);
+
+        if (glyph < 0)
+        {
+            glyph = this.rasterize(character);
+            this.glyphs.put(symbol, glyph);
+        }
+
+        final int cell = glyph % GlyphAtlas.PAGE_GLYPHS;
+        this.source.left = (cell % GlyphAtlas.PAGE_COLUMNS) * this.cellWidth;
+        this.source.top = (cell / GlyphAtlas.PAGE_COLUMNS) * this.cellHeight;
+        this.source.right = this.source.left + this.cellWidth;
+        this.source.bottom = this.source.top + this.cellHeight;
+        this.target.left = x;
+        this.target.top = y;
+        this.target.right = x + this.cellWidth;
+        this.target.bottom = y + this.cellHeight;
+        canvas.drawBitmap(this.pages.get(glyph / GlyphAtlas.PAGE_GLYPHS), this.source, this.target, paint);
+    }
+}
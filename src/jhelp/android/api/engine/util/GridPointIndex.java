@@ -0,0 +1,333 @@
+package jhelp.android.api.engine.util;
+
+/**
+ * Index of points (2D or 3D) that find a point already stored in O(1) amortized.<br>
+ * Two points are considered equals if each coordinates are equals with {@link UtilMath#equals(float, float)}, like
+ * {@link jhelp.android.api.engine.Point3D#equals(Object)} does.<br>
+ * Points are put in a grid of cells of {@link #CELL_SIZE} side, so a point equals to an other one is in the same cell or
+ * in a neighbor cell. The cells are stored in an open addressing hash table of primitive integers.<br>
+ * Coordinates are stored in a primitive array, so no object is created per point
+ *
+ * @author JHelp
+ */
+public class GridPointIndex
+{
+    /**
+     * Grid cell size. Twice the epsilon, so two equals points are at most in neighbor cells
+     */
+    private static final float CELL_SIZE      = 2f * UtilMath.EPSILON;
+    /**
+     * Empty hash table slot
+     */
+    private static final int   EMPTY          = -1;
+    /**
+     * Minimum hash table capacity
+     */
+    private static final int   MINIMUM_TABLE  = 64;
+    /**
+     * Points coordinates : [x0, y0, (z0), x1, y1, (z1), ...]
+     */
+    private float[] coordinates;
+    /**
+     * Space dimension : 2 or 3
+     */
+    private final int dimension;
+    /**
+     * Hash table mask (Table length - 1)
+     */
+    private int     mask;
+    /**
+     * Number of stored points
+     */
+    private int     size;
+    /**
+     * Hash table : contains points index or {@link #EMPTY}
+     */
+    private int[]   table;
+
+    /**
+     * Create a new instance of GridPointIndex
+     *
+     * @param dimension Space dimension : 2 or 3
+     */
+    public GridPointIndex(final int dimension)
+    {
+        if ((dimension < 2) || (dimension > 3))
+        {
+            throw new IllegalArgumentException("dimension must be 2 or 3, not " + dimension);
+        }
+
+        this.dimension = dimension;
+        this.clear();
+    }
+
+    /**
+     * Compute a cell coordinate
+     *
+     * @param value Coordinate value
+     * @return Cell coordinate
+     */
+    private static long cell(final float value)
+    {
+        return (long) Math.floor(value / GridPointIndex.CELL_SIZE);
+    }
+
+    /**
+     * Compute cell hash
+     *
+     * @param cellX Cell X
+     * @param cellY Cell Y
+     * @param cellZ Cell Z
+     * @return Cell hash
+     */
+    private static int hash(final long cellX, final long cellY, final long cellZ)
+    {
+        long hash = (cellX * 0x9E3779B97F4A7C15L) ^ (cellY * 0xC2B2AE3D27D4EB4FL) ^ (cellZ * 0x165667B19E3779F9L);
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 32;
+
+        return (int) hash;
+    }
+
+    /**
+     * Insert a point index in hash table, without check if table have enough space
+     *
+     * @param index Point index
+     */
+    private void insertInTable(final int index)
+    {
+        final int offset = index * this.dimension;
+        final long cellZ = this.dimension == 3
+                           ? GridPointIndex.cell(this.coordinates[offset + 2])
+                           : 0;
+        int slot = GridPointIndex.hash(GridPointIndex.cell(this.coordinates[offset]),
+                                       GridPointIndex.cell(this.coordinates[offset + 1]), cellZ) & this.mask;
+
+        while (this.table[slot] != GridPointIndex.EMPTY)
+        {
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.table[slot] = index;
+    }
+
+    /**
+     * Indicates if a stored point is equals to given coordinates
+     *
+     * @param index Point index
+     * @param x     X
+     * @param y     Y
+     * @param z     Z (Ignored in 2D)
+     * @return {@code true} if equals
+     */
+    private boolean isEquals(final int index, final float x, final float y, final float z)
+    {
+        final int offset = index * this.dimension;
+
+        return (UtilMath.equals(this.coordinates[offset], x) == true)
+                && (UtilMath.equals(this.coordinates[offset + 1], y) == true)
+                && ((this.dimension == 2) || (UtilMath.equals(this.coordinates[offset + 2], z) == true));
+    }
+
+    /**
+     * Double the hash table capacity and re-insert all points
+     */
+    private void rehash()
+    {
+        this.table = new int[this.table.length << 1];
+        this.mask = this.table.length - 1;
+
+        for (int i = this.table.length - 1; i >= 0; i--)
+        {
+            this.table[i] = GridPointIndex.EMPTY;
+        }
+
+        for (int index = 0; index < this.size; index++)
+        {
+            this.insertInTable(index);
+        }
+    }
+
+    /**
+     * Add a point without check if already inside
+     *
+     * @param x X
+     * @param y Y
+     * @param z Z (Ignored in 2D)
+     * @return Point index
+     */
+    public int add(final float x, final float y, final float z)
+    {
+        final int offset = this.size * this.dimension;
+
+        if ((offset + this.dimension) > this.coordinates.length)
+        {
+            final float[] temp = new float[(this.coordinates.length << 1) + this.dimension];
+            System.arraycopy(this.coordinates, 0, temp, 0, offset);
+            this.coordinates = temp;
+        }
+
+        this.coordinates[offset] = x;
+        this.coordinates[offset + 1] = y;
+
+        if (this.dimension == 3)
+        {
+            this.coordinates[offset + 2] = z;
+        }
+
+        final int index = this.size;
+        this.size++;
+
+        if ((this.size << 1) > this.table.length)
+        {
+            this.rehash();
+        }
+        else
+        {
+            this.insertInTable(index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Remove all points
+     */
+    public void clear()
+    {
+        this.size = 0;
+        this.coordinates = new float[GridPointIndex.MINIMUM_TABLE * this.dimension];
+        this.table = new int[GridPointIndex.MINIMUM_TABLE];
+        this.mask = GridPointIndex.MINIMUM_TABLE - 1;
+
+        for (int i = GridPointIndex.MINIMUM_TABLE - 1; i >= 0; i--)
+        {
+            this.table[i] = GridPointIndex.EMPTY;
+        }
+    }
+
+    /**
+     * Copy a point coordinates inside an array
+     *
+     * @param index       Point index
+     * @param destination Array where write
+     * @param offset      Offset where start to write in array
+     */
+    public void copyPoint(final int index, final float[] destination, final int offset)
+    {
+        if ((index < 0) || (index >= this.size))
+        {
+            throw new IllegalArgumentException("index must be in [0, " + this.size + "[ not " + index);
+        }
+
+        System.arraycopy(this.coordinates, index * this.dimension, destination, offset, this.dimension);
+    }
+
+    /**
+     * Obtain a point coordinate
+     *
+     * @param index Point index
+     * @param axis  Axis : 0 for X, 1 for Y, 2 for Z
+     * @return Coordinate value
+     */
+    public float getCoordinate(final int index, final int axis)
+    {
+        if ((index < 0) || (index >= this.size))
+        {
+            throw new IllegalArgumentException("index must be in [0, " + this.size + "[ not " + index);
+        }
+
+        return this.coordinates[(index * this.dimension) + axis];
+    }
+
+    /**
+     * Space dimension : 2 or 3
+     *
+     * @return Space dimension
+     */
+    public int getDimension()
+    {
+        return this.dimension;
+    }
+
+    /**
+     * Number of stored points
+     *
+     * @return Number of stored points
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Index of the first stored point equals to given coordinates.<br>
+     * Same result as {@link java.util.List#indexOf(Object)} on a list of points, but in O(1) amortized
+     *
+     * @param x X
+     * @param y Y
+     * @param z Z (Ignored in 2D)
+     * @return Point index or -1 if not found
+     */
+    public int indexOf(final float x, final float y, final float z)
+    {
+        final long cellX = GridPointIndex.cell(x);
+        final long cellY = GridPointIndex.cell(y);
+        final long cellZ = this.dimension == 3
+                           ? GridPointIndex.cell(z)
+                           : 0;
+        final int  minZ  = this.dimension == 3
+                           ? -1
+                           : 0;
+        final int  maxZ  = -minZ;
+        int        found = -1;
+        int        slot;
+        int        index;
+
+        for (int dx = -1; dx <= 1; dx++)
+        {
+            for (int dy = -1; dy <= 1; dy++)
+            {
+                for (int dz = minZ; dz <= maxZ; dz++)
+                {
+                    slot = GridPointIndex.hash(cellX + dx, cellY + dy, cellZ + dz) & this.mask;
+                    index = this.table[slot];
+
+                    while (index != GridPointIndex.EMPTY)
+                    {
+                        if (((found < 0) || (index < found)) && (this.isEquals(index, x, y, z) == true))
+                        {
+                            found = index;
+                        }
+
+                        slot = (slot + 1) & this.mask;
+                        index = this.table[slot];
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Store a point if not already inside
+     *
+     * @param x X
+     * @param y Y
+     * @param z Z (Ignored in 2D)
+     * @return Point index
+     */
+    public int store(final float x, final float y, final float z)
+    {
+        final int index = this.indexOf(x, y, z);
+
+        if (index >= 0)
+        {
+            return index;
+        }
+
+        return this.add(x, y, z);
+    }
+}
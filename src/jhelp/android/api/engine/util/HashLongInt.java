@@ -0,0 +1,182 @@
+package jhelp.android.api.engine.util;
+
+/**
+ * Hash map of long keys to int values.<br>
+ * More optimized than {@link java.util.HashMap HashMap<Long, Integer>}, no object is created per
+ * entry. It uses open addressing with linear probing
+ *
+ * @author JHelp
+ */
+public class HashLongInt
+{
+    /**
+     * Minimum capacity
+     */
+    private static final int MINIMUM_CAPACITY = 64;
+    /**
+     * Keys
+     */
+    private long[]    keys;
+    /**
+     * Hash table mask (Capacity - 1)
+     */
+    private int       mask;
+    /**
+     * Number of entries
+     */
+    private int       size;
+    /**
+     * Indicates which slots are used
+     */
+    private boolean[] used;
+    /**
+     * Values
+     */
+    private int[]     values;
+
+    /**
+     * Create a new instance of HashLongInt
+     */
+    public HashLongInt()
+    {
+        this(HashLongInt.MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Create a new instance of HashLongInt
+     *
+     * @param expectedSize Expected number of entries
+     */
+    public HashLongInt(final int expectedSize)
+    {
+        int capacity = HashLongInt.MINIMUM_CAPACITY;
+
+        while (capacity < (expectedSize << 1))
+        {
+            capacity <<= 1;
+        }
+
+        this.allocate(capacity);
+    }
+
+    /**
+     * Compute key hash
+     *
+     * @param key Key
+     * @return Key hash
+     */
+    private static int hash(final long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+
+        return (int) hash;
+    }
+
+    /**
+     * Allocate empty table
+     *
+     * @param capacity Table capacity (power of 2)
+     */
+    private void allocate(final int capacity)
+    {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Slot where is the key, or where it should be if not inside
+     *
+     * @param key Key
+     * @return Slot
+     */
+    private int slot(final long key)
+    {
+        int slot = HashLongInt.hash(key) & this.mask;
+
+        while ((this.used[slot] == true) && (this.keys[slot] != key))
+        {
+            slot = (slot + 1) & this.mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear()
+    {
+        this.allocate(HashLongInt.MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Obtain value associated to a key
+     *
+     * @param key          Key
+     * @param defaultValue Value to return if key not inside
+     * @return Associated value or default value
+     */
+    public int get(final long key, final int defaultValue)
+    {
+        final int slot = this.slot(key);
+
+        if (this.used[slot] == false)
+        {
+            return defaultValue;
+        }
+
+        return this.values[slot];
+    }
+
+    /**
+     * Number of entries
+     *
+     * @return Number of entries
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Associate a value to a key
+     *
+     * @param key   Key
+     * @param value Value
+     */
+    public void put(final long key, final int value)
+    {
+        int slot = this.slot(key);
+
+        if (this.used[slot] == false)
+        {
+            if (((this.size + 1) << 1) > this.keys.length)
+            {
+                final long[]    keys   = this.keys;
+                final int[]     values = this.values;
+                final boolean[] used   = this.used;
+                this.allocate(this.keys.length << 1);
+
+                for (int i = keys.length - 1; i >= 0; i--)
+                {
+                    if (used[i] == true)
+                    {
+                        this.put(keys[i], values[i]);
+                    }
+                }
+
+                slot = this.slot(key);
+            }
+
+            this.used[slot] = true;
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        this.values[slot] = value;
+    }
+}
@@ -0,0 +1,380 @@
+package jhelp.android.api.engine.util;
+
+/**
+ * Read numbers separated by delimiters in a string, without creating intermediate strings.<br>
+ * Tokens are cut like {@link java.util.StringTokenizer} does. Common decimal numbers
+ * ([+]digits[.digits][(e|E)[+]digits]) are parsed directly from the characters, other forms (NaN,
+ * hexadecimal, ...) fall back to {@link Float#parseFloat(String)}.<br>
+ * Instance can be reused for several strings with {@link #reset(String)}, it is not thread safe
+ *
+ * @author JHelp
+ */
+public final class NumberScanner
+{
+	/** Half of the lost bits when double mantissa is rounded to float one */
+	private static final long		FLOAT_HALF		= 0x10000000L;
+	/** Bits of double mantissa lost when rounded to float one */
+	private static final long		FLOAT_LOST_BITS	= 0x1FFFFFFFL;
+	/** Maximum number of significant digits, so that mantissa is exact in a double */
+	private static final int		MAXIMUM_DIGITS	= 15;
+	/** Powers of ten exact in a double */
+	private static final double[]	POWERS_OF_TEN	= {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	/** Delimiters characters (Only ASCII ones are considered) */
+	private final boolean[]			delimiters;
+	/** Current read position */
+	private int							position;
+	/** String to read */
+	private String						text;
+	/** Indicates if last number read was valid */
+	private boolean					valid;
+
+	/**
+	 * Create a new instance of NumberScanner
+	 *
+	 * @param delimiters
+	 *           Characters that separate numbers
+	 */
+	public NumberScanner(final String delimiters)
+	{
+		if(delimiters == null)
+		{
+			throw new NullPointerException("delimiters musn't be null");
+		}
+
+		this.delimiters = new boolean[128];
+		final int length = delimiters.length();
+		char character;
+
+		for(int i = 0; i < length; i++)
+		{
+			character = delimiters.charAt(i);
+
+			if(character < 128)
+			{
+				this.delimiters[character] = true;
+			}
+		}
+
+		this.reset(null);
+	}
+
+	/**
+	 * Indicates if a character is a delimiter
+	 *
+	 * @param character
+	 *           Tested character
+	 * @return {@code true} if character is a delimiter
+	 */
+	private boolean isDelimiter(final char character)
+	{
+		return (character < 128) && (this.delimiters[character] == true);
+	}
+
+	/**
+	 * Parse a token with {@link Float#parseFloat(String)}, for the rare forms not parsed directly
+	 *
+	 * @param start
+	 *           Token start
+	 * @param end
+	 *           Token end (exclusive)
+	 * @param defaultValue
+	 *           Value to return if token is not a float
+	 * @return Parsed float
+	 */
+	private float parseToken(final int start, final int end, final float defaultValue)
+	{
+		try
+		{
+			final float value = Float.parseFloat(this.text.substring(start, end));
+			this.valid = true;
+			return value;
+		}
+		catch(final Exception exception)
+		{
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Go to the end of current token
+	 *
+	 * @return Token end (exclusive)
+	 */
+	private int tokenEnd()
+	{
+		final int length = this.text.length();
+
+		while((this.position < length) && (this.isDelimiter(this.text.charAt(this.position)) == false))
+		{
+			this.position++;
+		}
+
+		return this.position;
+	}
+
+	/**
+	 * Indicates if there are more numbers to read
+	 *
+	 * @return {@code true} if there are more numbers to read
+	 */
+	public boolean hasNext()
+	{
+		if(this.text == null)
+		{
+			return false;
+		}
+
+		final int length = this.text.length();
+
+		while((this.position < length) && (this.isDelimiter(this.text.charAt(this.position)) == true))
+		{
+			this.position++;
+		}
+
+		return this.position < length;
+	}
+
+	/**
+	 * Indicates if last number read was valid. If not, the default value was returned
+	 *
+	 * @return {@code true} if last number read was valid
+	 */
+	public boolean isValid()
+	{
+		return this.valid;
+	}
+
+	/**
+	 * Read next number as float
+	 *
+	 * @param defaultValue
+	 *           Value to return if there no more number or next token is not a float
+	 * @return Read float
+	 */
+	public float nextFloat(final float defaultValue)
+	{
+		this.valid = false;
+
+		if(this.hasNext() == false)
+		{
+			return defaultValue;
+		}
+
+		final int start = this.position;
+		final int end = this.tokenEnd();
+		final String text = this.text;
+		int index = start;
+
+		if(text.charAt(index) == '+')
+		{
+			index++;
+		}
+
+		// Digits after the maximum are still counted, mantissa is then wrong but not used
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean hasDigit = false;
+		char character;
+
+		// Integer part
+		while(index < end)
+		{
+			character = text.charAt(index);
+
+			if((character < '0') || (character > '9'))
+			{
+				break;
+			}
+
+			hasDigit = true;
+
+			if((mantissa > 0) || (character > '0'))
+			{
+				mantissa = (mantissa * 10) + (character - '0');
+				digits++;
+			}
+
+			index++;
+		}
+
+		// Fractional part
+		if((index < end) && (text.charAt(index) == '.'))
+		{
+			index++;
+
+			while(index < end)
+			{
+				character = text.charAt(index);
+
+				if((character < '0') || (character > '9'))
+				{
+					break;
+				}
+
+				hasDigit = true;
+
+				if((mantissa > 0) || (character > '0'))
+				{
+					mantissa = (mantissa * 10) + (character - '0');
+					digits++;
+				}
+
+				exponent--;
+				index++;
+			}
+		}
+
+		// Exponent part
+		if((hasDigit == true) && (index < end) && ((text.charAt(index) == 'e') || (text.charAt(index) == 'E')))
+		{
+			index++;
+
+			if((index < end) && (text.charAt(index) == '+'))
+			{
+				index++;
+			}
+
+			int power = 0;
+			boolean hasPower = false;
+
+			while(index < end)
+			{
+				character = text.charAt(index);
+
+				if((character < '0') || (character > '9'))
+				{
+					break;
+				}
+
+				hasPower = true;
+
+				if(power < 10000)
+				{
+					power = (power * 10) + (character - '0');
+				}
+
+				index++;
+			}
+
+			if(hasPower == false)
+			{
+				// "1e" is not a number
+				hasDigit = false;
+			}
+
+			exponent += power;
+		}
+
+		// Float suffix
+		if((index < end) && (index == (end - 1)))
+		{
+			character = text.charAt(index);
+
+			if((character == 'f') || (character == 'F') || (character == 'd') || (character == 'D'))
+			{
+				index++;
+			}
+		}
+
+		if((hasDigit == false) || (index < end) || (digits > NumberScanner.MAXIMUM_DIGITS) || (exponent < -22)
+				|| (exponent > 22))
+		{
+			// Not a common decimal number
+			return this.parseToken(start, end, defaultValue);
+		}
+
+		// Mantissa and power of ten are exact, so the double is correctly rounded
+		final double value;
+
+		if(exponent >= 0)
+		{
+			value = mantissa * NumberScanner.POWERS_OF_TEN[exponent];
+		}
+		else
+		{
+			value = mantissa / NumberScanner.POWERS_OF_TEN[-exponent];
+		}
+
+		if((Double.doubleToRawLongBits(value) & NumberScanner.FLOAT_LOST_BITS) == NumberScanner.FLOAT_HALF)
+		{
+			// Double is just between two floats : rounding it again may be wrong
+			return this.parseToken(start, end, defaultValue);
+		}
+
+		this.valid = true;
+		return (float) value;
+	}
+
+	/**
+	 * Read next number as integer
+	 *
+	 * @param defaultValue
+	 *           Value to return if there no more number or next token is not an integer
+	 * @return Read integer
+	 */
+	public int nextInt(final int defaultValue)
+	{
+		this.valid = false;
+
+		if(this.hasNext() == false)
+		{
+			return defaultValue;
+		}
+
+		final int start = this.position;
+		final int end = this.tokenEnd();
+		final String text = this.text;
+		int index = start;
+
+		if(text.charAt(index) == '+')
+		{
+			index++;
+		}
+
+		if(index >= end)
+		{
+			return defaultValue;
+		}
+
+		long value = 0;
+		char character;
+
+		while(index < end)
+		{
+			character = text.charAt(index);
+
+			if((character < '0') || (character > '9'))
+			{
+				return defaultValue;
+			}
+
+			value = (value * 10) + (character - '0');
+
+			if(value > Integer.MAX_VALUE)
+			{
+				return defaultValue;
+			}
+
+			index++;
+		}
+
+		this.valid = true;
+		return (int) value;
+	}
+
+	/**
+	 * Change the string to read. Reading restarts at its beginning
+	 *
+	 * @param text
+	 *           String to read, {@code null} for nothing to read
+	 */
+	public void reset(final String text)
+	{
+		this.text = text;
+		this.position = 0;
+		this.valid = false;
+	}
+}
@@ -5,6 +5,7 @@ import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 
 /**
  * Buffer utilities
@@ -78,4 +79,46 @@ public class UtilBuffer
         return UtilBuffer.createByteBuffer(size * 4)
                          .asFloatBuffer();
     }
+
+    /**
+     * Create an int buffer from an array
+     *
+     * @param array  Array to copy inside the buffer
+     * @param length Number of integers to copy
+     * @return Created buffer
+     */
+    public static IntBuffer createIntBuffer(final int[] array, final int length)
+    {
+        final IntBuffer intBuffer = UtilBuffer.createByteBuffer(length << 2)
+                                              .asIntBuffer();
+
+        intBuffer.put(array, 0, length);
+        intBuffer.position(0);
+
+        return intBuffer;
+    }
+
+    /**
+     * Create a short buffer from an array of integers.<br>
+     * Each integer is cast to short, so integers must be in [0, 65535] to be read back as unsigned
+     * shorts
+     *
+     * @param array  Array to copy inside the buffer
+     * @param length Number of integers to copy
+     * @return Created buffer
+     */
+    public static ShortBuffer createShortBuffer(final int[] array, final int length)
+    {
+        final ShortBuffer shortBuffer = UtilBuffer.createByteBuffer(length << 1)
+                                                  .asShortBuffer();
+
+        for (int i = 0; i < length; i++)
+        {
+            shortBuffer.put((short) array[i]);
+        }
+
+        shortBuffer.position(0);
+
+        return shortBuffer;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package jhelp.android.api.engine.util;
+
+/**
+ * Matrix utilities.<br>
+ * Matrices are 4x4 float arrays of 16 elements, in column order like Open GL does :
+ * <code>m[column * 4 + row]</code>.<br>
+ * No method allocates memory
+ *
+ * @author JHelp
+ */
+public class UtilMatrix
+{
+    /**
+     * Degree to radian conversion factor
+     */
+    private static final double DEGREE_TO_RADIAN = Math.PI / 180.0;
+
+    /**
+     * Copy a matrix
+     *
+     * @param destination Matrix where copy
+     * @param source      Matrix to copy
+     */
+    public static void copy(final float[] destination, final float[] source)
+    {
+        System.arraycopy(source, 0, destination, 0, 16);
+    }
+
+    /**
+     * Fill a matrix as Open GL glFrustumf does
+     *
+     * @param matrix Matrix to fill
+     * @param left   Left clipping plane
+     * @param right  Right clipping plane
+     * @param bottom Bottom clipping plane
+     * @param top    Top clipping plane
+     * @param near   Near clipping plane
+     * @param far    Far clipping plane
+     */
+    public static void frustum(final float[] matrix, final float left, final float right, final float bottom,
+                               final float top, final float near, final float far)
+    {
+        final float width  = right - left;
+        final float height = top - bottom;
+        final float depth  = far - near;
+
+        matrix[0] = (2 * near) / width;
+        matrix[1] = 0;
+        matrix[2] = 0;
+        matrix[3] = 0;
+
+        matrix[4] = 0;
+        matrix[5] = (2 * near) / height;
+        matrix[6] = 0;
+        matrix[7] = 0;
+
+        matrix[8] = (right + left) / width;
+        matrix[9] = (top + bottom) / height;
+        matrix[10] = -(far + near) / depth;
+        matrix[11] = -1;
+
+        matrix[12] = 0;
+        matrix[13] = 0;
+        matrix[14] = (-2 * far * near) / depth;
+        matrix[15] = 0;
+    }
+
+    /**
+     * Make a matrix identity
+     *
+     * @param matrix Matrix to fill
+     */
+    public static void identity(final float[] matrix)
+    {
+        for (int i = 0; i < 16; i++)
+        {
+            matrix[i] = (i % 5) == 0
+                        ? 1
+                        : 0;
+        }
+    }
+
+    /**
+     * Maximum scale factor of a matrix : the length of the longest axis
+     *
+     * @param matrix Matrix
+     * @return Maximum scale factor
+     */
+    public static float maximumScale(final float[] matrix)
+    {
+        final float scaleX = (matrix[0] * matrix[0]) + (matrix[1] * matrix[1]) + (matrix[2] * matrix[2]);
+        final float scaleY = (matrix[4] * matrix[4]) + (matrix[5] * matrix[5]) + (matrix[6] * matrix[6]);
+        final float scaleZ = (matrix[8] * matrix[8]) + (matrix[9] * matrix[9]) + (matrix[10] * matrix[10]);
+
+        return (float) Math.sqrt(Math.max(scaleX, Math.max(scaleY, scaleZ)));
+    }
+
+    /**
+     * Multiply two matrices : result = left * right.<br>
+     * Result must not be one of the operands
+     *
+     * @param result Matrix where write the result
+     * @param left   Left matrix
+     * @param right  Right matrix
+     */
+    public static void multiply(final float[] result, final float[] left, final float[] right)
+    {
+        int   offset;
+        float r0, r1, r2, r3;
+
+        for (int column = 0; column < 16; column += 4)
+        {
+            r0 = right[column];
+            r1 = right[column + 1];
+            r2 = right[column + 2];
+            r3 = right[column + 3];
+
+            for (int row = 0; row < 4; row++)
+            {
+                offset = column + row;
+                result[offset] = (left[row] * r0) + (left[row + 4] * r1) + (left[row + 8] * r2) + (left[row + 12] * r3);
+            }
+        }
+    }
+
+    /**
+     * Fill a matrix with the transformation applied by
+     * {@link jhelp.android.api.engine.Position3D#apply(javax.microedition.khronos.opengles.GL10)} :
+     * scale, then translate, then rotate around X, Y and Z
+     *
+     * @param matrix Matrix to fill
+     * @param x      X
+     * @param y      Y
+     * @param z      Z
+     * @param angleX Angle around X in degree
+     * @param angleY Angle around Y in degree
+     * @param angleZ Angle around Z in degree
+     * @param scaleX Scale X
+     * @param scaleY Scale Y
+     * @param scaleZ Scale Z
+     */
+    public static void position(final float[] matrix, final float x, final float y, final float z,
+                                final float angleX, final float angleY, final float angleZ,
+                                final float scaleX, final float scaleY, final float scaleZ)
+    {
+        final double ax = angleX * UtilMatrix.DEGREE_TO_RADIAN;
+        final double ay = angleY * UtilMatrix.DEGREE_TO_RADIAN;
+        final double az = angleZ * UtilMatrix.DEGREE_TO_RADIAN;
+        final float  cx = (float) Math.cos(ax);
+        final float  sx = (float) Math.sin(ax);
+        final float  cy = (float) Math.cos(ay);
+        final float  sy = (float) Math.sin(ay);
+        final float  cz = (float) Math.cos(az);
+        final float  sz = (float) Math.sin(az);
+
+        // Rotation Rx * Ry * Rz, each row multiplied by the scale of its axis
+        matrix[0] = scaleX * cy * cz;
+        matrix[4] = -scaleX * cy * sz;
+        matrix[8] = scaleX * sy;
+        matrix[12] = scaleX * x;
+
+        matrix[1] = scaleY * ((cx * sz) + (sx * sy * cz));
+        matrix[5] = scaleY * ((cx * cz) - (sx * sy * sz));
+        matrix[9] = -scaleY * sx * cy;
+        matrix[13] = scaleY * y;
+
+        matrix[2] = scaleZ * ((sx * sz) - (cx * sy * cz));
+        matrix[6] = scaleZ * ((sx * cz) + (cx * sy * sz));
+        matrix[10] = scaleZ * cx * cy;
+        matrix[14] = scaleZ * z;
+
+        matrix[3] = 0;
+        matrix[7] = 0;
+        matrix[11] = 0;
+        matrix[15] = 1;
+    }
+
+    /**
+     * Transform a point by a matrix
+     *
+     * @param matrix Matrix
+     * @param x      Point X
+     * @param y      Point Y
+     * @param z      Point Z
+     * @param result Array where write transformed X, Y, Z
+     * @param offset Offset in result array
+     */
+    public static void transform(final float[] matrix, final float x, final float y, final float z,
+                                 final float[] result, final int offset)
+    {
+        result[offset] = (matrix[0] * x) + (matrix[4] * y) + (matrix[8] * z) + matrix[12];
+        result[offset + 1] = (matrix[1] * x) + (matrix[5] * y) + (matrix[9] * z) + matrix[13];
+        result[offset + 2] = (matrix[2] * x) + (matrix[6] * y) + (matrix[10] * z) + matrix[14];
+    }
+}
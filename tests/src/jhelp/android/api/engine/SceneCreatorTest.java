@@ -0,0 +1,75 @@
+package jhelp.android.api.engine;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link SceneCreator} textures decoding
+ *
+ * @author JHelp
+ */
+public class SceneCreatorTest
+        extends TestCase
+{
+    /**
+     * 1x1 red PNG image
+     */
+    private static final byte[] IMAGE = {(byte) -119, 80, 78, 71, 13, 10, 26, 10, 0, 0, 0, 13, 73, 72, 68, 82, 0, 0,
+                                         0, 1, 0, 0, 0, 1, 8, 6, 0, 0, 0, 31, 21, (byte) -60, (byte) -119, 0, 0, 0,
+                                         13, 73, 68, 65, 84, 120, (byte) -100, 99, (byte) -8, (byte) -49, (byte) -64,
+                                         (byte) -16, 31, 0, 5, 0, 1, (byte) -1, (byte) -119, (byte) -103, 61, 29, 0,
+                                         0, 0, 0, 73, 69, 78, 68, (byte) -82, 66, 96, (byte) -126};
+
+    /**
+     * With 2 workers, the loading takes the only asset loading place : textures must still be
+     * decoded while the loading parses
+     *
+     * @throws Exception On test issue
+     */
+    public void testTexturesDecodeWhileParsing() throws Exception
+    {
+        final JobSystem    jobSystem    = new JobSystem(2);
+        final SceneCreator sceneCreator = new SceneCreator(4, jobSystem);
+        final int[]        decoded      = new int[]{-1};
+        final Exception[]  failure      = new Exception[1];
+
+        final Job parsing = jobSystem.submit(JobPriority.ASSET_LOADING, new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for (int index = 0; index < 3; index++)
+                    {
+                        sceneCreator.texture("texture" + index, new ByteArrayInputStream(SceneCreatorTest.IMAGE));
+                    }
+
+                    // Parsing continues, decoding jobs must end meanwhile
+                    final long end = System.currentTimeMillis() + 5000;
+
+                    while ((jobSystem.getNumberOfDoneJobs() < 3) && (System.currentTimeMillis() < end))
+                    {
+                        Thread.sleep(10);
+                    }
+
+                    decoded[0] = jobSystem.getNumberOfDoneJobs();
+                    sceneCreator.endScene();
+                }
+                catch (final Exception exception)
+                {
+                    failure[0] = exception;
+                }
+            }
+        });
+
+        parsing.waitFinished();
+
+        if (failure[0] != null)
+        {
+            throw failure[0];
+        }
+
+        assertEquals(3, decoded[0]);
+    }
+}
@@ -0,0 +1,154 @@
+package jhelp.android.api.engine;
+
+import junit.framework.TestCase;
+
+import jhelp.android.api.engine.util.UtilBuffer;
+
+/**
+ * Tests of {@link TextureAtlas} : what is shared with nodes outside the packed hierarchy must stay
+ * unchanged
+ *
+ * @author JHelp
+ */
+public class TextureAtlasTest
+        extends TestCase
+{
+    /**
+     * Create an object with one triangle that covers [0, 1] UVs
+     *
+     * @param material Object material
+     * @return Created object
+     */
+    private static Object3D createObject(final Material material)
+    {
+        final Object3D object3D = new Object3D();
+        object3D.addTriangle(0, 0, 0, 0, 0,
+                             1, 0, 0, 1, 0,
+                             0, 1, 0, 0, 1);
+        object3D.material = material;
+        return object3D;
+    }
+
+    /**
+     * Create a material with a small texture
+     *
+     * @return Created material
+     */
+    private static Material createMaterial()
+    {
+        final Material material = new Material();
+        material.texture = new Texture(16, 16, UtilBuffer.createByteBuffer(16 * 16 * 4));
+        return material;
+    }
+
+    /**
+     * Check object UVs are not transformed
+     *
+     * @param object3D Object to check
+     */
+    private static void assertUVUnchanged(final Object3D object3D)
+    {
+        final float[] bounds = new float[4];
+        assertTrue(object3D.uvBounds(bounds));
+        assertEquals(0, bounds[0], 1e-6f);
+        assertEquals(0, bounds[1], 1e-6f);
+        assertEquals(1, bounds[2], 1e-6f);
+        assertEquals(1, bounds[3], 1e-6f);
+    }
+
+    /**
+     * Clones and their object in the hierarchy : texture packed
+     */
+    public void testCloneInside()
+    {
+        final Material material = TextureAtlasTest.createMaterial();
+        final Node3D   root     = new Node3D();
+        final Object3D object3D = TextureAtlasTest.createObject(material);
+        final Clone3D  clone3D  = new Clone3D(object3D);
+        clone3D.material = material;
+        root.addChild(object3D);
+        root.addChild(clone3D);
+
+        final TextureAtlas textureAtlas = new TextureAtlas(512);
+        textureAtlas.pack(root);
+
+        assertEquals(1, textureAtlas.getNumberOfPackedTextures());
+        assertSame(object3D.material, clone3D.material);
+        assertNotSame(material, object3D.material);
+    }
+
+    /**
+     * Clone in the hierarchy of an object outside : the object mesh must not be transformed
+     */
+    public void testCloneOfObjectOutside()
+    {
+        final Material material = TextureAtlasTest.createMaterial();
+        final Texture  texture  = material.texture;
+        final Node3D   root     = new Node3D();
+        final Object3D outside  = TextureAtlasTest.createObject(new Material());
+        final Clone3D  clone3D  = new Clone3D(outside);
+        clone3D.material = material;
+        root.addChild(clone3D);
+
+        final TextureAtlas textureAtlas = new TextureAtlas(512);
+        textureAtlas.pack(root);
+
+        assertEquals(0, textureAtlas.getNumberOfPackedTextures());
+        assertEquals(1, textureAtlas.getNumberOfRejectedTextures());
+        assertSame(material, clone3D.material);
+        assertSame(texture, material.texture);
+        TextureAtlasTest.assertUVUnchanged(outside);
+    }
+
+    /**
+     * Material shared by an object in the hierarchy and an object outside : the object outside
+     * keeps the material and its texture
+     */
+    public void testMaterialSharedOutside()
+    {
+        final Material shared  = TextureAtlasTest.createMaterial();
+        final Texture  texture = shared.texture;
+        final Node3D   root    = new Node3D();
+        final Object3D inside  = TextureAtlasTest.createObject(shared);
+        final Object3D outside = TextureAtlasTest.createObject(shared);
+        root.addChild(inside);
+
+        final TextureAtlas textureAtlas = new TextureAtlas(512);
+        textureAtlas.pack(root);
+
+        assertEquals(1, textureAtlas.getNumberOfPackedTextures());
+        assertSame(texture, shared.texture);
+        assertSame(shared, outside.material);
+        TextureAtlasTest.assertUVUnchanged(outside);
+
+        assertNotSame(shared, inside.material);
+        assertNotSame(texture, inside.material.texture);
+
+        final float[] bounds = new float[4];
+        assertTrue(inside.uvBounds(bounds));
+        assertTrue(bounds[2] - bounds[0] < 0.1f);
+        assertTrue(bounds[3] - bounds[1] < 0.1f);
+    }
+
+    /**
+     * Object in the hierarchy with a clone outside : the clone shares the mesh, so texture not packed
+     */
+    public void testObjectWithCloneOutside()
+    {
+        final Material material = TextureAtlasTest.createMaterial();
+        final Texture  texture  = material.texture;
+        final Node3D   root     = new Node3D();
+        final Object3D inside   = TextureAtlasTest.createObject(material);
+        final Clone3D  outside  = new Clone3D(inside);
+        outside.material = material;
+        root.addChild(inside);
+
+        final TextureAtlas textureAtlas = new TextureAtlas(512);
+        textureAtlas.pack(root);
+
+        assertEquals(0, textureAtlas.getNumberOfPackedTextures());
+        assertSame(material, inside.material);
+        assertSame(texture, material.texture);
+        TextureAtlasTest.assertUVUnchanged(inside);
+    }
+}